@@ -0,0 +1,162 @@
+package com.bookstore.service;
+
+import com.bookstore.dao.UserDAO;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory Bloom filters of the usernames and emails already in use
+ *
+ * Answers "definitely free" for most names without a database query, which
+ * keeps the live availability check in the registration form cheap. A "maybe
+ * taken" answer must be confirmed against the database. The filters are
+ * loaded on first use, fed with every name that is registered or changed
+ * afterwards, and rebuilt (twice as large) once they fill up. Names are
+ * compared in lower case, like the case-insensitive UNIQUE indexes. If the
+ * names cannot all be read, no filter is kept: every name counts as maybe
+ * taken, and the next check tries to load again.
+ *
+ * This is only a hint for the UI; the UNIQUE indexes decide at insert time.
+ */
+public class AccountNameFilter {
+    private static final int MIN_CAPACITY = 1024;
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    private static AccountNameFilter instance;
+    
+    private final UserDAO userDAO;
+    private final LongAdder checks = new LongAdder();
+    private final LongAdder ruledOut = new LongAdder();
+    private volatile BloomFilter usernames;
+    private volatile BloomFilter emails;
+    private int entries;
+    
+    private AccountNameFilter() {
+        this.userDAO = new UserDAO();
+    }
+    
+    public static synchronized AccountNameFilter getInstance() {
+        if (instance == null) {
+            instance = new AccountNameFilter();
+        }
+        return instance;
+    }
+    
+    /**
+     * Check whether a username may be taken (false means it is definitely free)
+     */
+    public boolean mightBeTakenUsername(String username) {
+        BloomFilter filter = usernames;
+        if (filter == null) {
+            filter = load()[0];
+        }
+        return filter == null || count(filter.mightContain(key(username)));
+    }
+    
+    /**
+     * Check whether an email may be taken (false means it is definitely free)
+     */
+    public boolean mightBeTakenEmail(String email) {
+        BloomFilter filter = emails;
+        if (filter == null) {
+            filter = load()[1];
+        }
+        return filter == null || count(filter.mightContain(key(email)));
+    }
+    
+    /**
+     * Record a username and email that are now in use
+     */
+    public synchronized void add(String username, String email) {
+        if (usernames == null) {
+            return; // Picked up by the initial load
+        }
+        if (entries >= usernames.getExpectedEntries() && !rebuild(entries * 2)) {
+            return; // No filters until the next check loads them
+        }
+        usernames.add(key(username));
+        emails.add(key(email));
+        entries++;
+    }
+    
+    /**
+     * Load the filters again from the database (if they were loaded at all)
+     */
+    public synchronized void reload() {
+        if (usernames != null) {
+            rebuild(0);
+        }
+    }
+    
+    /**
+     * Get the number of accounts in the filters
+     */
+    public synchronized int getEntries() {
+        return entries;
+    }
+    
+    /**
+     * Get the number of username and email checks
+     */
+    public long getChecks() {
+        return checks.sum();
+    }
+    
+    /**
+     * Get the number of checks that answered "definitely free"
+     */
+    public long getRuledOut() {
+        return ruledOut.sum();
+    }
+    
+    private boolean count(boolean mightBeTaken) {
+        checks.increment();
+        if (!mightBeTaken) {
+            ruledOut.increment();
+        }
+        return mightBeTaken;
+    }
+    
+    private synchronized BloomFilter[] load() {
+        if (usernames == null) {
+            rebuild(0);
+        }
+        return new BloomFilter[] {usernames, emails};
+    }
+    
+    /**
+     * Load the filters from the database; if the scan fails, drop them
+     * instead, since a partial filter would call taken names free
+     */
+    private boolean rebuild(int minCapacity) {
+        List<String> usernameKeys = new ArrayList<>();
+        List<String> emailKeys = new ArrayList<>();
+        int scanned = userDAO.scanAccountNames((username, email) -> {
+            usernameKeys.add(key(username));
+            emailKeys.add(key(email));
+        });
+        if (scanned < 0) {
+            entries = 0;
+            usernames = null;
+            emails = null;
+            return false;
+        }
+        
+        int capacity = Math.max(MIN_CAPACITY, Math.max(minCapacity, usernameKeys.size() * 2));
+        BloomFilter newUsernames = new BloomFilter(capacity, FALSE_POSITIVE_RATE);
+        BloomFilter newEmails = new BloomFilter(capacity, FALSE_POSITIVE_RATE);
+        for (int i = 0; i < usernameKeys.size(); i++) {
+            newUsernames.add(usernameKeys.get(i));
+            newEmails.add(emailKeys.get(i));
+        }
+        entries = usernameKeys.size();
+        emails = newEmails;
+        usernames = newUsernames;
+        return true;
+    }
+    
+    private static String key(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,457 @@
+package com.bookstore.api;
+
+import com.bookstore.dao.DataAccessException;
+import com.bookstore.model.Book;
+import com.bookstore.model.User;
+import com.bookstore.service.BookService;
+import com.bookstore.service.ServiceBusyException;
+import com.bookstore.service.StartupWarmup;
+import com.bookstore.service.UserService;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Headless HTTP/JSON API for the catalog and accounts
+ *
+ * Serves the same BookService and UserService as the desktop client, so any
+ * number of API nodes can run behind a load balancer against one database.
+ * Nodes keep no session state: login returns a signed token (see ApiTokens)
+ * that every node sharing bookstore.api.secret accepts.
+ *
+ * Each request runs on its own virtual thread when the runtime supports them
+ * (Java 21+), otherwise on a cached thread pool. Blocking JDBC calls then cost
+ * a parked virtual thread rather than a platform thread, and the per-endpoint
+ * limits below bound how many requests may reach the database at once.
+ *
+ * Endpoints:
+ *   GET  /api/health
+ *   GET  /api/categories
+ *   GET  /api/books?q=term&category=name
+ *   GET  /api/books/{id}
+ *   POST /api/login               username=...&password=...
+ *   POST /api/books/{id}/stock    quantity=N (admin token as "Authorization: Bearer ...")
+ *
+ * Catalog responses carry an ETag from BookService's catalog and book
+ * versions; a request with a matching If-None-Match gets 304 without the
+ * rows being read. While titles are hot, the ETag is node-specific (see
+ * CatalogVersion), so a failover costs a full response, never a stale 304.
+ *
+ * Usage: ApiServer [port]
+ * System properties:
+ *   bookstore.api.port=8080
+ *   bookstore.api.secret=...          token signing key shared by all nodes
+ *   bookstore.api.limit.<endpoint>=N  concurrent requests per endpoint
+ *                                     (health, categories, search, book, login, stock)
+ */
+public class ApiServer {
+    private static final int DEFAULT_PORT = 8080;
+    private static final long TOKEN_LIFETIME_MILLIS = TimeUnit.MINUTES.toMillis(30);
+    private static final int MAX_BODY_BYTES = 8 * 1024;
+    private static final String RETRY_AFTER_SECONDS = "1";
+    
+    private final BookService bookService;
+    private final UserService userService;
+    private final ApiTokens tokens;
+    private final Map<String, Semaphore> limits = new HashMap<>();
+    private HttpServer server;
+    private ExecutorService executor;
+    
+    public ApiServer() {
+        this.bookService = new BookService();
+        this.userService = new UserService();
+        this.tokens = ApiTokens.fromSystemProperties(TOKEN_LIFETIME_MILLIS);
+        limit("health", 64);
+        limit("categories", 64);
+        limit("search", 32);
+        limit("book", 64);
+        // Password hashing is deliberately slow; keep it from starving the catalog
+        limit("login", 8);
+        limit("stock", 8);
+    }
+    
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0])
+            : Integer.getInteger("bookstore.api.port", DEFAULT_PORT);
+        StartupWarmup.start();
+        ApiServer api = new ApiServer();
+        api.start(port);
+        Runtime.getRuntime().addShutdownHook(new Thread(api::stop, "api-shutdown"));
+        System.out.println("Bookstore API listening on port " + port);
+    }
+    
+    /**
+     * Start listening on the given port (0 picks a free port)
+     */
+    public synchronized void start(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.createContext("/api/", this::handle);
+        executor = newRequestExecutor();
+        server.setExecutor(executor);
+        server.start();
+    }
+    
+    /**
+     * Stop accepting requests, giving in-flight requests a second to finish
+     */
+    public synchronized void stop() {
+        if (server != null) {
+            server.stop(1);
+            executor.shutdown();
+            server = null;
+        }
+    }
+    
+    /**
+     * Get the port the server is listening on
+     */
+    public synchronized int getPort() {
+        return server.getAddress().getPort();
+    }
+    
+    /**
+     * A virtual thread per request where available, else a cached pool
+     */
+    private static ExecutorService newRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+    
+    private void limit(String endpoint, int defaultPermits) {
+        int permits = Integer.getInteger("bookstore.api.limit." + endpoint, defaultPermits);
+        limits.put(endpoint, new Semaphore(Math.max(permits, 1)));
+    }
+    
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            route(exchange);
+        } catch (ApiException e) {
+            sendError(exchange, e.status, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            sendError(exchange, 400, e.getMessage());
+        } catch (ServiceBusyException e) {
+            exchange.getResponseHeaders().set("Retry-After", RETRY_AFTER_SECONDS);
+            sendError(exchange, 503, e.getMessage());
+        } catch (DataAccessException e) {
+            // This node has lost its database; the load balancer can retry on another
+            System.err.println("Error handling " + exchange.getRequestURI() + ": " + e.getMessage());
+            exchange.getResponseHeaders().set("Retry-After", RETRY_AFTER_SECONDS);
+            sendError(exchange, 503, "Database unavailable");
+        } catch (RuntimeException e) {
+            System.err.println("Error handling " + exchange.getRequestURI() + ": " + e);
+            sendError(exchange, 500, "Internal server error");
+        } finally {
+            exchange.close();
+        }
+    }
+    
+    private void route(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        String[] path = exchange.getRequestURI().getPath().substring("/api/".length()).split("/");
+        
+        if (path.length == 1 && path[0].equals("health")) {
+            requireMethod(method, "GET");
+            limited(exchange, "health", () -> sendJson(exchange, 200, new JsonWriter()
+                .beginObject().name("status").value("UP").endObject()));
+        } else if (path.length == 1 && path[0].equals("categories")) {
+            requireMethod(method, "GET");
+            limited(exchange, "categories", () -> categories(exchange));
+        } else if (path.length == 1 && path[0].equals("login")) {
+            requireMethod(method, "POST");
+            limited(exchange, "login", () -> login(exchange));
+        } else if (path.length == 1 && path[0].equals("books")) {
+            requireMethod(method, "GET");
+            limited(exchange, "search", () -> search(exchange));
+        } else if (path.length == 2 && path[0].equals("books")) {
+            requireMethod(method, "GET");
+            int id = parseId(path[1]);
+            limited(exchange, "book", () -> book(exchange, id));
+        } else if (path.length == 3 && path[0].equals("books") && path[2].equals("stock")) {
+            requireMethod(method, "POST");
+            int id = parseId(path[1]);
+            limited(exchange, "stock", () -> stock(exchange, id));
+        } else {
+            throw new ApiException(404, "Not found");
+        }
+    }
+    
+    /**
+     * Run a handler if the endpoint has a free permit, else answer 503 so the
+     * load balancer or client can retry elsewhere
+     */
+    private void limited(HttpExchange exchange, String endpoint, Handler handler) throws IOException {
+        Semaphore permits = limits.get(endpoint);
+        if (!permits.tryAcquire()) {
+            exchange.getResponseHeaders().set("Retry-After", RETRY_AFTER_SECONDS);
+            throw new ApiException(503, "Too many concurrent requests");
+        }
+        try {
+            handler.handle();
+        } finally {
+            permits.release();
+        }
+    }
+    
+    private void categories(HttpExchange exchange) throws IOException {
+        if (notModified(exchange, bookService.getCatalogVersion())) {
+            return;
+        }
+        JsonWriter json = new JsonWriter().beginArray();
+        for (String category : bookService.getAllCategories()) {
+            json.value(category);
+        }
+        sendJson(exchange, 200, json.endArray());
+    }
+    
+    private void search(HttpExchange exchange) throws IOException {
+        if (notModified(exchange, bookService.getCatalogVersion())) {
+            return;
+        }
+        Map<String, String> query = parseForm(exchange.getRequestURI().getRawQuery());
+        List<Book> books = bookService.searchBooks(query.get("q"), query.get("category"));
+        JsonWriter json = new JsonWriter().beginArray();
+        for (Book book : books) {
+            writeBook(json, book);
+        }
+        sendJson(exchange, 200, json.endArray());
+    }
+    
+    private void book(HttpExchange exchange, int id) throws IOException {
+        String version = bookService.getBookVersion(id);
+        if (version == null) {
+            throw new ApiException(404, "Book not found");
+        }
+        if (notModified(exchange, version)) {
+            return;
+        }
+        Book book = bookService.getBookById(id);
+        if (book == null || !book.isActive()) {
+            throw new ApiException(404, "Book not found");
+        }
+        JsonWriter json = new JsonWriter();
+        writeBook(json, book);
+        sendJson(exchange, 200, json);
+    }
+    
+    private void login(HttpExchange exchange) throws IOException {
+        Map<String, String> form = parseForm(readBody(exchange));
+        User user = userService.login(form.get("username"), form.get("password"));
+        if (user == null) {
+            throw new ApiException(401, "Invalid username or password");
+        }
+        JsonWriter json = new JsonWriter().beginObject()
+            .name("token").value(tokens.issue(user))
+            .name("expiresIn").value(TimeUnit.MILLISECONDS.toSeconds(TOKEN_LIFETIME_MILLIS))
+            .name("user");
+        writeUser(json, user);
+        sendJson(exchange, 200, json.endObject());
+    }
+    
+    private void stock(HttpExchange exchange, int id) throws IOException {
+        ApiTokens.Claims claims = authenticate(exchange);
+        if (!claims.isAdmin()) {
+            throw new ApiException(403, "Admin access required");
+        }
+        Map<String, String> form = parseForm(readBody(exchange));
+        int quantity = parseInt(form.get("quantity"), "Quantity");
+        if (!bookService.updateStock(id, quantity)) {
+            throw new ApiException(404, "Book not found");
+        }
+        sendJson(exchange, 200, new JsonWriter().beginObject()
+            .name("id").value(id)
+            .name("stockQuantity").value(quantity)
+            .endObject());
+    }
+    
+    /**
+     * Tag the response with a version and answer 304 if the client already
+     * has it. The version is read before the data, so a change in between
+     * only costs the client one extra download. Without a version (it could
+     * not be read) the response goes out untagged.
+     */
+    private static boolean notModified(HttpExchange exchange, String version) throws IOException {
+        if (version == null) {
+            return false;
+        }
+        String etag = "\"" + version + "\"";
+        exchange.getResponseHeaders().set("ETag", etag);
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(etag) || tag.equals("*")) {
+                exchange.sendResponseHeaders(304, -1);
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private ApiTokens.Claims authenticate(HttpExchange exchange) {
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        ApiTokens.Claims claims = header != null && header.startsWith("Bearer ")
+            ? tokens.verify(header.substring("Bearer ".length()).trim())
+            : null;
+        if (claims == null) {
+            exchange.getResponseHeaders().set("WWW-Authenticate", "Bearer");
+            throw new ApiException(401, "Valid bearer token required");
+        }
+        return claims;
+    }
+    
+    private static void writeBook(JsonWriter json, Book book) {
+        json.beginObject()
+            .name("id").value(book.getId())
+            .name("title").value(book.getTitle())
+            .name("author").value(book.getAuthor())
+            .name("isbn").value(book.getIsbn())
+            .name("category").value(book.getCategory());
+        json.name("price");
+        if (book.getPrice() == null) {
+            json.nullValue();
+        } else {
+            json.rawNumber(book.getPrice().toString());
+        }
+        json.name("stockQuantity").value(book.getStockQuantity())
+            .name("inStock").value(book.isInStock())
+            .name("description").value(book.getDescription())
+            .name("publicationDate").value(book.getPublicationDate() == null ? null
+                                                                               : book.getPublicationDate().toString())
+            .name("publisher").value(book.getPublisher())
+            .endObject();
+    }
+    
+    private static void writeUser(JsonWriter json, User user) {
+        json.beginObject()
+            .name("id").value(user.getId())
+            .name("username").value(user.getUsername())
+            .name("email").value(user.getEmail())
+            .name("firstName").value(user.getFirstName())
+            .name("lastName").value(user.getLastName())
+            .name("role").value(user.getRole())
+            .endObject();
+    }
+    
+    private static void requireMethod(String method, String expected) {
+        if (!expected.equals(method)) {
+            throw new ApiException(405, "Method not allowed");
+        }
+    }
+    
+    private static int parseId(String text) {
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            throw new ApiException(404, "Not found");
+        }
+    }
+    
+    private static int parseInt(String text, String field) {
+        if (text == null || text.trim().isEmpty()) {
+            throw new IllegalArgumentException(field + " is required");
+        }
+        try {
+            return Integer.parseInt(text.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(field + " must be a whole number");
+        }
+    }
+    
+    /**
+     * Parse application/x-www-form-urlencoded pairs (also used for query strings)
+     */
+    private static Map<String, String> parseForm(String form) {
+        Map<String, String> values = new HashMap<>();
+        if (form == null || form.isEmpty()) {
+            return values;
+        }
+        for (String pair : form.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            values.putIfAbsent(decode(name), decode(value));
+        }
+        return values;
+    }
+    
+    private static String decode(String text) {
+        try {
+            return URLDecoder.decode(text, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e); // UTF-8 is always supported
+        }
+    }
+    
+    private static String readBody(HttpExchange exchange) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        try (InputStream in = exchange.getRequestBody()) {
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                if (body.size() + n > MAX_BODY_BYTES) {
+                    throw new ApiException(413, "Request body too large");
+                }
+                body.write(buffer, 0, n);
+            }
+        }
+        return new String(body.toByteArray(), StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Send an error response, unless the handler already sent the status
+     * line and headers; then the exchange is just closed as it is
+     */
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        if (exchange.getResponseCode() != -1) {
+            return;
+        }
+        sendJson(exchange, status, new JsonWriter().beginObject().name("error").value(message).endObject());
+    }
+    
+    private static void sendJson(HttpExchange exchange, int status, JsonWriter json) throws IOException {
+        byte[] body = json.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+    
+    private interface Handler {
+        void handle() throws IOException;
+    }
+    
+    /**
+     * An error answered with a specific HTTP status
+     */
+    private static final class ApiException extends RuntimeException {
+        final int status;
+        
+        ApiException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+}
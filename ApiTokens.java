@@ -0,0 +1,112 @@
+package com.bookstore.api;
+
+import com.bookstore.model.User;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Signed, self-contained API access tokens
+ *
+ * A token carries the user ID, role and expiry time, signed with
+ * HMAC-SHA256. Any API node that shares the secret can check it without a
+ * session store, so nodes behind a load balancer stay stateless. Tokens
+ * cannot be revoked early; they simply expire.
+ *
+ * The secret comes from the bookstore.api.secret system property. Without it
+ * a random per-process secret is used, and tokens only work on the node that
+ * issued them.
+ */
+final class ApiTokens {
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    
+    private final SecretKeySpec key;
+    private final long lifetimeMillis;
+    
+    ApiTokens(byte[] secret, long lifetimeMillis) {
+        this.key = new SecretKeySpec(secret, ALGORITHM);
+        this.lifetimeMillis = lifetimeMillis;
+    }
+    
+    /**
+     * Build from the bookstore.api.secret property, or a random secret
+     */
+    static ApiTokens fromSystemProperties(long lifetimeMillis) {
+        String secret = System.getProperty("bookstore.api.secret");
+        if (secret == null || secret.isEmpty()) {
+            System.err.println("bookstore.api.secret is not set; tokens will only be valid on this node");
+            byte[] random = new byte[32];
+            new SecureRandom().nextBytes(random);
+            return new ApiTokens(random, lifetimeMillis);
+        }
+        return new ApiTokens(secret.getBytes(StandardCharsets.UTF_8), lifetimeMillis);
+    }
+    
+    String issue(User user) {
+        long expires = System.currentTimeMillis() + lifetimeMillis;
+        String payload = ENCODER.encodeToString((user.getId() + ":" + user.getRole() + ":" + expires)
+                                                .getBytes(StandardCharsets.UTF_8));
+        return payload + "." + ENCODER.encodeToString(sign(payload));
+    }
+    
+    /**
+     * Check a token; returns its claims, or null if it is malformed,
+     * forged or expired
+     */
+    Claims verify(String token) {
+        if (token == null) {
+            return null;
+        }
+        int dot = token.indexOf('.');
+        if (dot <= 0) {
+            return null;
+        }
+        String payload = token.substring(0, dot);
+        try {
+            byte[] signature = DECODER.decode(token.substring(dot + 1));
+            if (!MessageDigest.isEqual(signature, sign(payload))) {
+                return null;
+            }
+            String[] parts = new String(DECODER.decode(payload), StandardCharsets.UTF_8).split(":");
+            if (parts.length != 3 || Long.parseLong(parts[2]) < System.currentTimeMillis()) {
+                return null;
+            }
+            return new Claims(Integer.parseInt(parts[0]), parts[1]);
+        } catch (IllegalArgumentException e) {
+            return null; // Bad Base64 or numbers
+        }
+    }
+    
+    private byte[] sign(String payload) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 is not available", e);
+        }
+    }
+    
+    /**
+     * The user a valid token was issued to
+     */
+    static final class Claims {
+        final int userId;
+        final String role;
+        
+        Claims(int userId, String role) {
+            this.userId = userId;
+            this.role = role;
+        }
+        
+        boolean isAdmin() {
+            return "ADMIN".equals(role);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.bookstore.tools;
+
+import com.bookstore.dao.BookDAO;
+import com.bookstore.model.Isbn;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Command-line tool that fills books.isbn13 from the ISBN as entered, for
+ * databases created before the column existed. Run it after adding the
+ * column and before adding its unique index (see schema.sql).
+ *
+ * Books whose ISBN does not parse (bad check digit or wrong length), and
+ * books whose ISBN-13 equals one already taken, are listed and left without
+ * an ISBN-13: they cannot be found by ISBN until an admin edits the book,
+ * which requires a valid, unused ISBN. Running the tool again only looks at
+ * books that still have none.
+ *
+ * Usage: java -cp ... com.bookstore.tools.BackfillIsbn13
+ */
+public class BackfillIsbn13 {
+    
+    public static void main(String[] args) {
+        BookDAO bookDAO = new BookDAO();
+        Map<Integer, String> isbns = bookDAO.getIsbnsWithoutIsbn13();
+        if (isbns == null) {
+            System.err.println("Reading books failed");
+            System.exit(1);
+        }
+        
+        Set<Long> taken = new HashSet<>();
+        if (bookDAO.scanIsbns(taken::add) < 0) {
+            System.err.println("Reading existing ISBN-13s failed");
+            System.exit(1);
+        }
+        
+        Map<Integer, Long> isbn13ByBookId = new LinkedHashMap<>();
+        int skipped = 0;
+        for (Map.Entry<Integer, String> entry : isbns.entrySet()) {
+            long isbn13 = Isbn.parse(entry.getValue());
+            if (isbn13 == Isbn.INVALID) {
+                System.err.println("Book " + entry.getKey() + ": invalid ISBN \"" + entry.getValue() + "\", skipped");
+                skipped++;
+            } else if (!taken.add(isbn13)) {
+                System.err.println("Book " + entry.getKey() + ": ISBN " + Isbn.format(isbn13) + " belongs to another book, skipped");
+                skipped++;
+            } else {
+                isbn13ByBookId.put(entry.getKey(), isbn13);
+            }
+        }
+        
+        if (!isbn13ByBookId.isEmpty() && !bookDAO.setIsbn13(isbn13ByBookId)) {
+            System.err.println("Writing ISBN-13s failed");
+            System.exit(1);
+        }
+        System.out.println("ISBN-13 set for " + isbn13ByBookId.size() + " books, " + skipped + " skipped");
+    }
+}
@@ -0,0 +1,39 @@
+package com.bookstore.analytics;
+
+/**
+ * A book and its estimated units sold in a bestseller window
+ */
+public class Bestseller {
+    private final int bookId;
+    private final long units;
+    private final long maxOverestimate;
+    
+    public Bestseller(int bookId, long units, long maxOverestimate) {
+        this.bookId = bookId;
+        this.units = units;
+        this.maxOverestimate = maxOverestimate;
+    }
+    
+    public int getBookId() {
+        return bookId;
+    }
+    
+    /**
+     * Estimated units sold in the window
+     */
+    public long getUnits() {
+        return units;
+    }
+    
+    /**
+     * How much getUnits() may exceed the units actually counted
+     */
+    public long getMaxOverestimate() {
+        return maxOverestimate;
+    }
+    
+    @Override
+    public String toString() {
+        return "Book " + bookId + ": " + units + " units";
+    }
+}
@@ -0,0 +1,223 @@
+package com.bookstore.analytics;
+
+import com.bookstore.dao.ReportDAO;
+import com.bookstore.model.Order;
+import com.bookstore.model.OrderItem;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Live bestseller lists over sliding time windows
+ *
+ * Units sold are fed in as orders are placed and counted in Space-Saving
+ * summaries, one per time bucket (minutes for the last hour, hours for the
+ * last day), overall and per category. Memory is fixed by the summary
+ * capacities no matter how many titles sell, and reading a list never touches
+ * the database. Counts are estimates: within each bucket a book's units are
+ * overcounted by at most its reported error, and a book that sells more than
+ * 1/capacity of a bucket's units is always kept; less popular books may be
+ * missing from some buckets and undercounted for the window.
+ *
+ * On first use the windows are seeded from the last day's order lines.
+ * Cancellations are not subtracted; cancelled orders are left out when seeding.
+ */
+public class BestsellerTracker {
+    private static final int OVERALL_CAPACITY = 1024;
+    private static final int CATEGORY_CAPACITY = 256;
+    private static final int MAX_CATEGORIES = 256;
+    private static BestsellerTracker instance;
+    
+    public enum Window {
+        LAST_HOUR(60_000L, 60),
+        LAST_DAY(3_600_000L, 24);
+        
+        private final long bucketMillis;
+        private final int buckets;
+        
+        Window(long bucketMillis, int buckets) {
+            this.bucketMillis = bucketMillis;
+            this.buckets = buckets;
+        }
+        
+        long spanMillis() {
+            return bucketMillis * buckets;
+        }
+    }
+    
+    private final Map<Window, SlidingTopK> overall = new EnumMap<>(Window.class);
+    private final Map<String, Map<Window, SlidingTopK>> byCategory = new HashMap<>();
+    
+    public BestsellerTracker() {
+        for (Window window : Window.values()) {
+            overall.put(window, new SlidingTopK(window, OVERALL_CAPACITY));
+        }
+    }
+    
+    /**
+     * Get the shared tracker, seeded from recent orders on first use
+     */
+    public static synchronized BestsellerTracker getInstance() {
+        if (instance == null) {
+            instance = new BestsellerTracker();
+            instance.seed();
+        }
+        return instance;
+    }
+    
+    /**
+     * Count the lines of a placed order as sold now. Items carry the book
+     * category as looked up when the order was stored.
+     */
+    public void recordOrder(Order order) {
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            for (OrderItem item : order.getOrderItems()) {
+                record(item.getBookId(), item.getCategory(), item.getQuantity(), now);
+            }
+        }
+    }
+    
+    /**
+     * Count units of a book sold at the given time
+     */
+    public synchronized void record(int bookId, String category, int quantity, long timeMillis) {
+        for (SlidingTopK window : overall.values()) {
+            window.add(bookId, quantity, timeMillis);
+        }
+        Map<Window, SlidingTopK> windows = categoryWindows(category);
+        if (windows != null) {
+            for (SlidingTopK window : windows.values()) {
+                window.add(bookId, quantity, timeMillis);
+            }
+        }
+    }
+    
+    /**
+     * Get the best-selling books in a window, most units first. Pass null as
+     * category for the overall list.
+     */
+    public synchronized List<Bestseller> getTop(Window window, String category, int limit) {
+        if (window == null) {
+            throw new IllegalArgumentException("Window is required");
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        SlidingTopK topK;
+        if (category == null) {
+            topK = overall.get(window);
+        } else {
+            Map<Window, SlidingTopK> windows = byCategory.get(category);
+            if (windows == null) {
+                return Collections.emptyList();
+            }
+            topK = windows.get(window);
+        }
+        return topK.top(limit, System.currentTimeMillis());
+    }
+    
+    /**
+     * Load the last day's sales so the windows are not empty after a restart
+     */
+    public synchronized int seed() {
+        long now = System.currentTimeMillis();
+        return new ReportDAO().scanRecentSales(new Timestamp(now - Window.LAST_DAY.spanMillis()), this::record);
+    }
+    
+    private Map<Window, SlidingTopK> categoryWindows(String category) {
+        if (category == null || category.isEmpty()) {
+            return null;
+        }
+        Map<Window, SlidingTopK> windows = byCategory.get(category);
+        if (windows == null) {
+            if (byCategory.size() >= MAX_CATEGORIES) {
+                return null; // Memory bound; such a catalog needs a coarser category list
+            }
+            windows = new EnumMap<>(Window.class);
+            for (Window window : Window.values()) {
+                windows.put(window, new SlidingTopK(window, CATEGORY_CAPACITY));
+            }
+            byCategory.put(category, windows);
+        }
+        return windows;
+    }
+    
+    /**
+     * Ring of per-bucket summaries covering one window. A bucket is cleared
+     * and reused when time moves past it; buckets are allocated on first use.
+     */
+    private static final class SlidingTopK {
+        private final Window window;
+        private final int capacity;
+        private final SpaceSaving[] buckets;
+        private final long[] bucketEpochs;
+        
+        SlidingTopK(Window window, int capacity) {
+            this.window = window;
+            this.capacity = capacity;
+            this.buckets = new SpaceSaving[window.buckets];
+            this.bucketEpochs = new long[window.buckets];
+        }
+        
+        void add(int bookId, int quantity, long timeMillis) {
+            long epoch = timeMillis / window.bucketMillis;
+            int index = (int) (epoch % buckets.length);
+            if (buckets[index] == null) {
+                buckets[index] = new SpaceSaving(capacity);
+                bucketEpochs[index] = epoch;
+            } else if (bucketEpochs[index] != epoch) {
+                if (bucketEpochs[index] > epoch) {
+                    return; // Older than the window
+                }
+                buckets[index].clear();
+                bucketEpochs[index] = epoch;
+            }
+            buckets[index].add(bookId, quantity);
+        }
+        
+        List<Bestseller> top(int limit, long nowMillis) {
+            long oldestEpoch = nowMillis / window.bucketMillis - buckets.length + 1;
+            IntIntMap positions = new IntIntMap(capacity * 2);
+            int[] bookIds = new int[capacity * 2];
+            long[] units = new long[bookIds.length];
+            long[] errors = new long[bookIds.length];
+            int count = 0;
+            
+            for (int b = 0; b < buckets.length; b++) {
+                SpaceSaving bucket = buckets[b];
+                if (bucket == null || bucketEpochs[b] < oldestEpoch) {
+                    continue;
+                }
+                for (int i = 0; i < bucket.size(); i++) {
+                    int bookId = bucket.keyAt(i);
+                    int position = positions.get(bookId);
+                    if (position == IntIntMap.MISSING) {
+                        if (count == bookIds.length) {
+                            bookIds = Arrays.copyOf(bookIds, count * 2);
+                            units = Arrays.copyOf(units, count * 2);
+                            errors = Arrays.copyOf(errors, count * 2);
+                        }
+                        position = count++;
+                        bookIds[position] = bookId;
+                        positions.put(bookId, position);
+                    }
+                    units[position] += bucket.countAt(i);
+                    errors[position] += bucket.errorAt(i);
+                }
+            }
+            
+            List<Bestseller> result = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                result.add(new Bestseller(bookIds[i], units[i], errors[i]));
+            }
+            result.sort((a, c) -> Long.compare(c.getUnits(), a.getUnits()));
+            return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.bookstore.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size Bloom filter of strings or longs
+ *
+ * mightContain() never returns false for a value that was added, and returns
+ * true for a value that was not added with roughly the false-positive rate
+ * the filter was sized for (while it holds at most expectedEntries values).
+ * Adds and lookups are safe to run concurrently.
+ */
+final class BloomFilter {
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+    private final int expectedEntries;
+    
+    BloomFilter(int expectedEntries, double falsePositiveRate) {
+        if (expectedEntries <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Invalid Bloom filter size");
+        }
+        double ln2 = Math.log(2);
+        long bits = (long) Math.ceil(-expectedEntries * Math.log(falsePositiveRate) / (ln2 * ln2));
+        int wordCount = (int) Math.min((bits + 63) / 64, Integer.MAX_VALUE);
+        this.words = new AtomicLongArray(Math.max(wordCount, 1));
+        this.bitCount = (long) words.length() * 64;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedEntries * ln2));
+        this.expectedEntries = expectedEntries;
+    }
+    
+    void add(String value) {
+        addHash(hash(value));
+    }
+    
+    void add(long value) {
+        addHash(mix(value));
+    }
+    
+    boolean mightContain(String value) {
+        return containsHash(hash(value));
+    }
+    
+    boolean mightContain(long value) {
+        return containsHash(mix(value));
+    }
+    
+    int getExpectedEntries() {
+        return expectedEntries;
+    }
+    
+    private void addHash(long hash) {
+        long h1 = hash;
+        long h2 = mix(hash ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current = words.get(word);
+            while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask)) {
+                current = words.get(word);
+            }
+        }
+    }
+    
+    private boolean containsHash(long hash) {
+        long h1 = hash;
+        long h2 = mix(hash ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * 64-bit FNV-1a over the characters, finished with a MurmurHash3 mix
+     */
+    private static long hash(String value) {
+        long h = 0xCBF29CE484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001B3L;
+        }
+        return mix(h);
+    }
+    
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -1,6 +1,5 @@
 package com.bookstore.model;
 
-import java.math.BigDecimal;
 import java.time.LocalDate;
 
 /**
@@ -12,7 +11,7 @@ public class Book {
     private String author;
     private String isbn;
     private String category;
-    private BigDecimal price;
+    private Money price;
     private int stockQuantity;
     private String description;
     private LocalDate publicationDate;
@@ -24,7 +23,7 @@ public class Book {
 
     // Constructor with all fields
     public Book(int id, String title, String author, String isbn, String category,
-                BigDecimal price, int stockQuantity, String description,
+                Money price, int stockQuantity, String description,
                 LocalDate publicationDate, String publisher, boolean isActive) {
         this.id = id;
         this.title = title;
@@ -41,7 +40,7 @@ public class Book {
 
     // Constructor without ID (for new books)
     public Book(String title, String author, String isbn, String category,
-                BigDecimal price, int stockQuantity, String description,
+                Money price, int stockQuantity, String description,
                 LocalDate publicationDate, String publisher) {
         this.title = title;
         this.author = author;
@@ -96,11 +95,11 @@ public class Book {
         this.category = category;
     }
 
-    public BigDecimal getPrice() {
+    public Money getPrice() {
         return price;
     }
 
-    public void setPrice(BigDecimal price) {
+    public void setPrice(Money price) {
         this.price = price;
     }
 
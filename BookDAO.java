@@ -2,11 +2,15 @@ package com.bookstore.dao;
 
 import com.bookstore.database.DatabaseConnection;
 import com.bookstore.model.Book;
+import com.bookstore.model.Isbn;
+import com.bookstore.model.Money;
 import java.sql.*;
-import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Data Access Object for Book operations
@@ -19,10 +23,10 @@ public class BookDAO {
     }
     
     /**
-     * Create a new book
+     * Create a new book. Throws DuplicateKeyException if the ISBN is taken.
      */
     public boolean createBook(Book book) {
-        String sql = "INSERT INTO books (title, author, isbn, category, price, stock_quantity, description, publication_date, publisher) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        String sql = "INSERT INTO books (title, author, isbn, isbn13, category, price, stock_quantity, description, publication_date, publisher) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
         
         try (Connection conn = dbConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
@@ -30,12 +34,13 @@ public class BookDAO {
             stmt.setString(1, book.getTitle());
             stmt.setString(2, book.getAuthor());
             stmt.setString(3, book.getIsbn());
-            stmt.setString(4, book.getCategory());
-            stmt.setBigDecimal(5, book.getPrice());
-            stmt.setInt(6, book.getStockQuantity());
-            stmt.setString(7, book.getDescription());
-            stmt.setDate(8, book.getPublicationDate() != null ? Date.valueOf(book.getPublicationDate()) : null);
-            stmt.setString(9, book.getPublisher());
+            stmt.setLong(4, Isbn.parse(book.getIsbn()));
+            stmt.setString(5, book.getCategory());
+            stmt.setBigDecimal(6, book.getPrice().toBigDecimal());
+            stmt.setInt(7, book.getStockQuantity());
+            stmt.setString(8, book.getDescription());
+            stmt.setDate(9, book.getPublicationDate() != null ? Date.valueOf(book.getPublicationDate()) : null);
+            stmt.setString(10, book.getPublisher());
             
             int rowsAffected = stmt.executeUpdate();
             
@@ -48,6 +53,9 @@ public class BookDAO {
                 return true;
             }
         } catch (SQLException e) {
+            if (DuplicateKeyException.isDuplicateKey(e)) {
+                throw DuplicateKeyException.from(e);
+            }
             System.err.println("Error creating book: " + e.getMessage());
         }
         return false;
@@ -76,15 +84,23 @@ public class BookDAO {
     }
     
     /**
-     * Get book by ISBN
+     * Get book by ISBN, in any ISBN-10 or ISBN-13 notation
      */
     public Book getBookByIsbn(String isbn) {
-        String sql = "SELECT * FROM books WHERE isbn = ? AND is_active = TRUE";
+        long isbn13 = Isbn.parse(isbn);
+        return isbn13 == Isbn.INVALID ? null : getBookByIsbn(isbn13);
+    }
+    
+    /**
+     * Get book by canonical ISBN-13
+     */
+    public Book getBookByIsbn(long isbn13) {
+        String sql = "SELECT * FROM books WHERE isbn13 = ? AND is_active = TRUE";
         
         try (Connection conn = dbConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
-            stmt.setString(1, isbn);
+            stmt.setLong(1, isbn13);
             
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
@@ -98,10 +114,11 @@ public class BookDAO {
     }
     
     /**
-     * Update book information
+     * Update book information. Throws DuplicateKeyException if the new ISBN
+     * belongs to another book.
      */
     public boolean updateBook(Book book) {
-        String sql = "UPDATE books SET title = ?, author = ?, isbn = ?, category = ?, price = ?, stock_quantity = ?, description = ?, publication_date = ?, publisher = ?, is_active = ? WHERE id = ?";
+        String sql = "UPDATE books SET title = ?, author = ?, isbn = ?, isbn13 = ?, category = ?, price = ?, stock_quantity = ?, description = ?, publication_date = ?, publisher = ?, is_active = ? WHERE id = ?";
         
         try (Connection conn = dbConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -109,17 +126,21 @@ public class BookDAO {
             stmt.setString(1, book.getTitle());
             stmt.setString(2, book.getAuthor());
             stmt.setString(3, book.getIsbn());
-            stmt.setString(4, book.getCategory());
-            stmt.setBigDecimal(5, book.getPrice());
-            stmt.setInt(6, book.getStockQuantity());
-            stmt.setString(7, book.getDescription());
-            stmt.setDate(8, book.getPublicationDate() != null ? Date.valueOf(book.getPublicationDate()) : null);
-            stmt.setString(9, book.getPublisher());
-            stmt.setBoolean(10, book.isActive());
-            stmt.setInt(11, book.getId());
+            stmt.setLong(4, Isbn.parse(book.getIsbn()));
+            stmt.setString(5, book.getCategory());
+            stmt.setBigDecimal(6, book.getPrice().toBigDecimal());
+            stmt.setInt(7, book.getStockQuantity());
+            stmt.setString(8, book.getDescription());
+            stmt.setDate(9, book.getPublicationDate() != null ? Date.valueOf(book.getPublicationDate()) : null);
+            stmt.setString(10, book.getPublisher());
+            stmt.setBoolean(11, book.isActive());
+            stmt.setInt(12, book.getId());
             
             return stmt.executeUpdate() > 0;
         } catch (SQLException e) {
+            if (DuplicateKeyException.isDuplicateKey(e)) {
+                throw DuplicateKeyException.from(e);
+            }
             System.err.println("Error updating book: " + e.getMessage());
         }
         return false;
@@ -162,6 +183,46 @@ public class BookDAO {
         return books;
     }
     
+    /**
+     * Get active books by ID in one query, in the order of the given IDs
+     */
+    public List<Book> getBooksByIds(List<Integer> ids) {
+        List<Book> books = new ArrayList<>();
+        if (ids.isEmpty()) {
+            return books;
+        }
+        StringBuilder sql = new StringBuilder("SELECT * FROM books WHERE is_active = TRUE AND id IN (");
+        for (int i = 0; i < ids.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        sql.append(")");
+        
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+            
+            for (int i = 0; i < ids.size(); i++) {
+                stmt.setInt(i + 1, ids.get(i));
+            }
+            
+            Map<Integer, Book> byId = new HashMap<>();
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Book book = mapResultSetToBook(rs);
+                    byId.put(book.getId(), book);
+                }
+            }
+            for (Integer id : ids) {
+                Book book = byId.get(id);
+                if (book != null) {
+                    books.add(book);
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error getting books by ID: " + e.getMessage());
+        }
+        return books;
+    }
+    
     /**
      * Search books by title
      */
@@ -208,6 +269,43 @@ public class BookDAO {
         return books;
     }
     
+    /**
+     * Search books whose title or author matches, optionally restricted to a category
+     */
+    public List<Book> searchBooks(String term, String category) {
+        List<Book> books = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT * FROM books WHERE is_active = TRUE");
+        if (term != null) {
+            sql.append(" AND (title LIKE ? OR author LIKE ?)");
+        }
+        if (category != null) {
+            sql.append(" AND category = ?");
+        }
+        sql.append(" ORDER BY title");
+        
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+            
+            int index = 1;
+            if (term != null) {
+                stmt.setString(index++, "%" + term + "%");
+                stmt.setString(index++, "%" + term + "%");
+            }
+            if (category != null) {
+                stmt.setString(index, category);
+            }
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    books.add(mapResultSetToBook(rs));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error searching books: " + e.getMessage());
+        }
+        return books;
+    }
+    
     /**
      * Get books by category
      */
@@ -252,7 +350,96 @@ public class BookDAO {
     }
     
     /**
-     * Update stock quantity
+     * Get the newest updated_at of any book, active or not, the epoch if
+     * there are no books, or null if the database cannot be read. Answered
+     * from idx_books_updated_at without reading rows.
+     */
+    public Timestamp getLastBookUpdate() {
+        String sql = "SELECT MAX(updated_at) FROM books";
+        
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            if (rs.next()) {
+                Timestamp lastUpdate = rs.getTimestamp(1);
+                return lastUpdate == null ? new Timestamp(0) : lastUpdate;
+            }
+        } catch (SQLException e) {
+            System.err.println("Error getting last book update: " + e.getMessage());
+        }
+        return null;
+    }
+    
+    /**
+     * Get when an active book was last changed, or null if it does not exist
+     */
+    public Timestamp getBookUpdatedAt(int id) {
+        String sql = "SELECT updated_at FROM books WHERE id = ? AND is_active = TRUE";
+        
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setInt(1, id);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getTimestamp(1);
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error getting book update time: " + e.getMessage());
+        }
+        return null;
+    }
+    
+    /**
+     * Get the books, active or not, changed at or after the given time, or all
+     * active books (ordered by title) if since is null. Returns null if the
+     * database could not be queried, so callers can tell that from no changes.
+     */
+    public List<Book> getBooksChangedSince(Timestamp since) {
+        List<Book> books = new ArrayList<>();
+        String sql = since == null ? "SELECT * FROM books WHERE is_active = TRUE ORDER BY title"
+                                   : "SELECT * FROM books WHERE updated_at >= ?";
+        
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            if (since != null) {
+                stmt.setTimestamp(1, since);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    books.add(mapResultSetToBook(rs));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error getting changed books: " + e.getMessage());
+            return null;
+        }
+        return books;
+    }
+    
+    /**
+     * Count the active books, or -1 if the database could not be queried
+     */
+    public int countActiveBooks() {
+        String sql = "SELECT COUNT(*) FROM books WHERE is_active = TRUE";
+        
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            if (rs.next()) {
+                return rs.getInt(1);
+            }
+        } catch (SQLException e) {
+            System.err.println("Error counting books: " + e.getMessage());
+        }
+        return -1;
+    }
+    
+    /**
+     * Update stock quantity. Returns false if there is no such book; throws
+     * DataAccessException if the database cannot be updated.
      */
     public boolean updateStockQuantity(int bookId, int newQuantity) {
         String sql = "UPDATE books SET stock_quantity = ? WHERE id = ?";
@@ -265,21 +452,101 @@ public class BookDAO {
             
             return stmt.executeUpdate() > 0;
         } catch (SQLException e) {
-            System.err.println("Error updating stock quantity: " + e.getMessage());
+            throw new DataAccessException("Error updating stock quantity", e);
+        }
+    }
+    
+    /**
+     * Atomically reduce stock if enough is available.
+     * Returns false when the book does not exist, is inactive or has less than
+     * the requested quantity; the check and the write happen in one statement,
+     * so concurrent buyers can never drive the stock below zero.
+     */
+    public boolean decrementStock(int bookId, int quantity) {
+        String sql = "UPDATE books SET stock_quantity = stock_quantity - ? WHERE id = ? AND is_active = TRUE AND stock_quantity >= ?";
+        
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setInt(1, quantity);
+            stmt.setInt(2, bookId);
+            stmt.setInt(3, quantity);
+            
+            return stmt.executeUpdate() > 0;
+        } catch (SQLException e) {
+            System.err.println("Error decrementing stock quantity: " + e.getMessage());
+        }
+        return false;
+    }
+    
+    /**
+     * Take up to maxUnits of stock from a book in one transaction.
+     * Returns the number of units actually taken (0 when the book is out of
+     * stock, inactive or missing); the row never goes below zero.
+     */
+    public int leaseStock(int bookId, int maxUnits) {
+        String selectSql = "SELECT stock_quantity FROM books WHERE id = ? AND is_active = TRUE FOR UPDATE";
+        String updateSql = "UPDATE books SET stock_quantity = stock_quantity - ? WHERE id = ?";
+        
+        try (Connection conn = dbConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement select = conn.prepareStatement(selectSql);
+                 PreparedStatement update = conn.prepareStatement(updateSql)) {
+                
+                select.setInt(1, bookId);
+                int granted = 0;
+                try (ResultSet rs = select.executeQuery()) {
+                    if (rs.next()) {
+                        granted = Math.min(maxUnits, rs.getInt(1));
+                    }
+                }
+                
+                if (granted > 0) {
+                    update.setInt(1, granted);
+                    update.setInt(2, bookId);
+                    update.executeUpdate();
+                }
+                conn.commit();
+                return granted;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            System.err.println("Error leasing stock: " + e.getMessage());
+        }
+        return 0;
+    }
+    
+    /**
+     * Add units back to a book's stock (returning unused leased stock)
+     */
+    public boolean incrementStock(int bookId, int quantity) {
+        String sql = "UPDATE books SET stock_quantity = stock_quantity + ? WHERE id = ?";
+        
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setInt(1, quantity);
+            stmt.setInt(2, bookId);
+            
+            return stmt.executeUpdate() > 0;
+        } catch (SQLException e) {
+            System.err.println("Error incrementing stock quantity: " + e.getMessage());
         }
         return false;
     }
     
     /**
-     * Check if ISBN exists
+     * Check if a book (active or not) has the canonical ISBN-13
      */
-    public boolean isbnExists(String isbn) {
-        String sql = "SELECT COUNT(*) FROM books WHERE isbn = ?";
+    public boolean isbnExists(long isbn13) {
+        String sql = "SELECT COUNT(*) FROM books WHERE isbn13 = ?";
         
         try (Connection conn = dbConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
-            stmt.setString(1, isbn);
+            stmt.setLong(1, isbn13);
             
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
@@ -293,16 +560,99 @@ public class BookDAO {
     }
     
     /**
-     * Map ResultSet to Book object
+     * Stream the canonical ISBN-13 of every book, including inactive ones
+     * (their ISBNs stay reserved). Returns the number of books, or -1 if the
+     * scan failed (the handler may then have seen only some of them).
+     */
+    public int scanIsbns(IsbnHandler handler) {
+        String sql = "SELECT isbn13 FROM books WHERE isbn13 IS NOT NULL";
+        int count = 0;
+        
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            
+            stmt.setFetchSize(Integer.MIN_VALUE); // Stream rows instead of buffering the whole result
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    handler.isbn(rs.getLong(1));
+                    count++;
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error scanning ISBNs: " + e.getMessage());
+            return -1;
+        }
+        return count;
+    }
+    
+    /**
+     * Get the ISBN as entered of every book that has no canonical ISBN-13
+     * yet (rows stored before the isbn13 column existed), by book ID
+     */
+    public Map<Integer, String> getIsbnsWithoutIsbn13() {
+        Map<Integer, String> isbns = new LinkedHashMap<>();
+        String sql = "SELECT id, isbn FROM books WHERE isbn13 IS NULL ORDER BY id";
+        
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            
+            while (rs.next()) {
+                isbns.put(rs.getInt("id"), rs.getString("isbn"));
+            }
+        } catch (SQLException e) {
+            System.err.println("Error getting ISBNs without ISBN-13: " + e.getMessage());
+            return null;
+        }
+        return isbns;
+    }
+    
+    /**
+     * Set the canonical ISBN-13 of several books in one transaction
+     */
+    public boolean setIsbn13(Map<Integer, Long> isbn13ByBookId) {
+        String sql = "UPDATE books SET isbn13 = ? WHERE id = ?";
+        
+        try (Connection conn = dbConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                for (Map.Entry<Integer, Long> entry : isbn13ByBookId.entrySet()) {
+                    stmt.setLong(1, entry.getValue());
+                    stmt.setInt(2, entry.getKey());
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+                conn.commit();
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            System.err.println("Error setting ISBN-13: " + e.getMessage());
+        }
+        return false;
+    }
+    
+    /**
+     * Receives one ISBN from scanIsbns
+     */
+    public interface IsbnHandler {
+        void isbn(long isbn13);
+    }
+    
+    /**
+     * Map ResultSet to Book object (package-private for the mapping benchmark)
      */
-    private Book mapResultSetToBook(ResultSet rs) throws SQLException {
+    static Book mapResultSetToBook(ResultSet rs) throws SQLException {
         Book book = new Book();
         book.setId(rs.getInt("id"));
         book.setTitle(rs.getString("title"));
         book.setAuthor(rs.getString("author"));
         book.setIsbn(rs.getString("isbn"));
         book.setCategory(rs.getString("category"));
-        book.setPrice(rs.getBigDecimal("price"));
+        book.setPrice(Money.of(rs.getBigDecimal("price")));
         book.setStockQuantity(rs.getInt("stock_quantity"));
         book.setDescription(rs.getString("description"));
         
@@ -1,12 +1,12 @@
 package com.bookstore.gui;
 
 import com.bookstore.model.Book;
+import com.bookstore.model.Money;
 import com.bookstore.service.BookService;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.math.BigDecimal;
 import java.time.LocalDate;
 
 /**
@@ -259,12 +259,12 @@ public class BookDialog extends JDialog {
             }
             
             // Parse numeric fields
-            BigDecimal price;
+            Money price;
             int stockQuantity;
             
             try {
-                price = new BigDecimal(priceField.getText().trim());
-            } catch (NumberFormatException e) {
+                price = Money.parse(priceField.getText());
+            } catch (IllegalArgumentException | ArithmeticException e) {
                 JOptionPane.showMessageDialog(this, "Invalid price format.", "Validation Error", JOptionPane.ERROR_MESSAGE);
                 return;
             }
@@ -1,186 +1,395 @@
 package com.bookstore.service;
 
+import com.bookstore.analytics.Bestseller;
+import com.bookstore.analytics.BestsellerTracker;
+import com.bookstore.analytics.CoPurchaseIndex;
 import com.bookstore.dao.BookDAO;
+import com.bookstore.dao.DuplicateKeyException;
 import com.bookstore.model.Book;
-import java.math.BigDecimal;
-import java.time.LocalDate;
+import com.bookstore.model.Isbn;
+import com.bookstore.tracing.Span;
+import com.bookstore.validation.BookValidator;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Service layer for Book operations
  * Contains business logic and validation
+ * Calls are counted per operation (JMX) and recorded as JFR events
  */
 public class BookService {
+    private static final OperationCounters<Operation> CALLS = OperationCounters.register("BookService", Operation.class);
+    
+    static {
+        CacheStats.register();
+    }
+    
+    /**
+     * Operations counted for JMX
+     */
+    enum Operation {
+        ADD_BOOK,
+        UPDATE_BOOK,
+        GET_CATALOG_VERSION,
+        GET_BOOK_VERSION,
+        GET_BOOK_BY_ID,
+        GET_ALL_BOOKS,
+        SYNC_CATALOG,
+        SEARCH_BOOKS_BY_TITLE,
+        SEARCH_BOOKS_BY_AUTHOR,
+        SEARCH_BOOKS,
+        GET_BOOKS_BY_CATEGORY,
+        GET_ALL_CATEGORIES,
+        DELETE_BOOK,
+        UPDATE_STOCK,
+        REDUCE_STOCK,
+        ENABLE_HOT_INVENTORY,
+        DISABLE_HOT_INVENTORY,
+        GET_BESTSELLERS,
+        SORT_BY_POPULARITY,
+        GET_ALSO_BOUGHT
+    }
+    
     private BookDAO bookDAO;
+    private HotStockInventory hotStock;
+    private IsbnFilter isbnFilter;
+    private CatalogVersion catalogVersion;
     
     public BookService() {
         this.bookDAO = new BookDAO();
+        this.hotStock = HotStockInventory.getInstance();
+        this.isbnFilter = IsbnFilter.getInstance();
+        this.catalogVersion = CatalogVersion.getInstance();
     }
     
     /**
-     * Add a new book
+     * Add a new book. The duplicate-ISBN query only runs for ISBNs the
+     * in-memory filter cannot rule out.
      */
     public boolean addBook(Book book) {
-        validateBook(book);
-        
-        // Check if ISBN already exists
-        if (bookDAO.isbnExists(book.getIsbn())) {
-            throw new IllegalArgumentException("ISBN already exists");
+        try (Span span = CALLS.begin(Operation.ADD_BOOK)) {
+            validateBook(book);
+            
+            // Check if ISBN already exists, in any notation
+            long isbn13 = Isbn.parse(book.getIsbn());
+            if (isbnFilter.mightContain(isbn13) && bookDAO.isbnExists(isbn13)) {
+                throw new IllegalArgumentException("ISBN already exists");
+            }
+            
+            boolean created;
+            try {
+                created = bookDAO.createBook(book);
+            } catch (DuplicateKeyException e) {
+                throw new IllegalArgumentException("ISBN already exists"); // Added since the check above
+            }
+            if (created) {
+                isbnFilter.add(isbn13);
+                catalogVersion.changed();
+            }
+            return created;
         }
-        
-        return bookDAO.createBook(book);
     }
     
     /**
      * Update book information
      */
     public boolean updateBook(Book book) {
-        validateBook(book);
-        
-        // Check if ISBN is taken by another book
-        Book existingBook = bookDAO.getBookByIsbn(book.getIsbn());
-        if (existingBook != null && existingBook.getId() != book.getId()) {
-            throw new IllegalArgumentException("ISBN already exists");
+        try (Span span = CALLS.begin(Operation.UPDATE_BOOK)) {
+            validateBook(book);
+            
+            // Check if ISBN is taken by another book, in any notation
+            long isbn13 = Isbn.parse(book.getIsbn());
+            if (isbnFilter.mightContain(isbn13)) {
+                Book existingBook = bookDAO.getBookByIsbn(isbn13);
+                if (existingBook != null && existingBook.getId() != book.getId()) {
+                    throw new IllegalArgumentException("ISBN already exists");
+                }
+            }
+            
+            // The stock being written already includes any leased units
+            boolean updated;
+            try {
+                updated = hotStock.writeStock(book.getId(), () -> bookDAO.updateBook(book));
+            } catch (DuplicateKeyException e) {
+                throw new IllegalArgumentException("ISBN already exists");
+            }
+            if (updated) {
+                isbnFilter.add(isbn13);
+                catalogVersion.changed();
+            }
+            return updated;
+        }
+    }
+    
+    /**
+     * Get the version of the catalog: every book list, search result and
+     * category listing. If it equals the version a caller got with an earlier
+     * result, that result is still current and need not be fetched again.
+     * Returns null if the version cannot be read right now.
+     */
+    public String getCatalogVersion() {
+        try (Span span = CALLS.begin(Operation.GET_CATALOG_VERSION)) {
+            return catalogVersion.catalog();
+        }
+    }
+    
+    /**
+     * Get the version of a single book (see getCatalogVersion), or null if
+     * the book does not exist
+     */
+    public String getBookVersion(int id) {
+        try (Span span = CALLS.begin(Operation.GET_BOOK_VERSION)) {
+            return catalogVersion.book(id);
         }
-        
-        return bookDAO.updateBook(book);
     }
     
     /**
      * Get book by ID
      */
     public Book getBookById(int id) {
-        return bookDAO.getBookById(id);
+        try (Span span = CALLS.begin(Operation.GET_BOOK_BY_ID)) {
+            Book book = bookDAO.getBookById(id);
+            if (book != null && hotStock.isHot(id)) {
+                book.setStockQuantity(book.getStockQuantity() + hotStock.getReservedStock(id));
+            }
+            return book;
+        }
     }
     
     /**
      * Get all books
      */
     public List<Book> getAllBooks() {
-        return bookDAO.getAllBooks();
+        try (Span span = CALLS.begin(Operation.GET_ALL_BOOKS)) {
+            return includeReservedStock(bookDAO.getAllBooks());
+        }
+    }
+    
+    /**
+     * Bring the local catalog copy up to date (a delta sync when a snapshot
+     * exists) and get all books. Returns null if the database could not be
+     * reached; LocalCatalog still has the last saved books then.
+     */
+    public List<Book> syncCatalog() {
+        try (Span span = CALLS.begin(Operation.SYNC_CATALOG)) {
+            List<Book> books = LocalCatalog.getInstance().sync();
+            return books == null ? null : includeReservedStock(books);
+        }
     }
     
     /**
      * Search books by title
      */
     public List<Book> searchBooksByTitle(String title) {
-        if (title == null || title.trim().isEmpty()) {
-            return getAllBooks();
+        try (Span span = CALLS.begin(Operation.SEARCH_BOOKS_BY_TITLE)) {
+            if (title == null || title.trim().isEmpty()) {
+                return getAllBooks();
+            }
+            return includeReservedStock(bookDAO.searchBooksByTitle(title.trim()));
         }
-        return bookDAO.searchBooksByTitle(title.trim());
     }
     
     /**
      * Search books by author
      */
     public List<Book> searchBooksByAuthor(String author) {
-        if (author == null || author.trim().isEmpty()) {
-            return getAllBooks();
+        try (Span span = CALLS.begin(Operation.SEARCH_BOOKS_BY_AUTHOR)) {
+            if (author == null || author.trim().isEmpty()) {
+                return getAllBooks();
+            }
+            return includeReservedStock(bookDAO.searchBooksByAuthor(author.trim()));
+        }
+    }
+    
+    /**
+     * Search books by title or author within an optional category.
+     * Blank arguments are ignored, so searchBooks(null, null) lists every book.
+     */
+    public List<Book> searchBooks(String term, String category) {
+        try (Span span = CALLS.begin(Operation.SEARCH_BOOKS)) {
+            String cleanTerm = term == null || term.trim().isEmpty() ? null : term.trim();
+            String cleanCategory = category == null || category.trim().isEmpty() ? null : category.trim();
+            if (cleanTerm == null && cleanCategory == null) {
+                return getAllBooks();
+            }
+            return includeReservedStock(bookDAO.searchBooks(cleanTerm, cleanCategory));
         }
-        return bookDAO.searchBooksByAuthor(author.trim());
     }
     
     /**
      * Get books by category
      */
     public List<Book> getBooksByCategory(String category) {
-        if (category == null || category.trim().isEmpty()) {
-            return getAllBooks();
+        try (Span span = CALLS.begin(Operation.GET_BOOKS_BY_CATEGORY)) {
+            if (category == null || category.trim().isEmpty()) {
+                return getAllBooks();
+            }
+            return includeReservedStock(bookDAO.getBooksByCategory(category.trim()));
         }
-        return bookDAO.getBooksByCategory(category.trim());
     }
     
     /**
      * Get all categories
      */
     public List<String> getAllCategories() {
-        return bookDAO.getAllCategories();
+        try (Span span = CALLS.begin(Operation.GET_ALL_CATEGORIES)) {
+            return bookDAO.getAllCategories();
+        }
     }
     
     /**
      * Delete book
      */
     public boolean deleteBook(int id) {
-        return bookDAO.deleteBook(id);
+        try (Span span = CALLS.begin(Operation.DELETE_BOOK)) {
+            boolean deleted = bookDAO.deleteBook(id);
+            if (deleted) {
+                catalogVersion.changed();
+            }
+            return deleted;
+        }
     }
     
     /**
-     * Update stock quantity
+     * Update stock quantity. Returns false if there is no such book; throws
+     * DataAccessException if the database cannot be updated.
      */
     public boolean updateStock(int bookId, int newQuantity) {
-        if (newQuantity < 0) {
-            throw new IllegalArgumentException("Stock quantity cannot be negative");
+        try (Span span = CALLS.begin(Operation.UPDATE_STOCK)) {
+            if (newQuantity < 0) {
+                throw new IllegalArgumentException("Stock quantity cannot be negative");
+            }
+            
+            // Return leased units first so they are not counted twice
+            boolean updated = hotStock.writeStock(bookId, () -> bookDAO.updateStockQuantity(bookId, newQuantity));
+            if (updated) {
+                catalogVersion.changed();
+            }
+            return updated;
         }
-        
-        return bookDAO.updateStockQuantity(bookId, newQuantity);
     }
     
     /**
      * Reduce stock quantity (for orders)
      */
     public boolean reduceStock(int bookId, int quantity) {
-        Book book = getBookById(bookId);
-        if (book == null) {
-            throw new IllegalArgumentException("Book not found");
-        }
-        
-        if (quantity <= 0) {
-            throw new IllegalArgumentException("Quantity must be positive");
-        }
-        
-        if (book.getStockQuantity() < quantity) {
-            throw new IllegalArgumentException("Insufficient stock. Available: " + book.getStockQuantity());
+        try (Span span = CALLS.begin(Operation.REDUCE_STOCK)) {
+            if (quantity <= 0) {
+                throw new IllegalArgumentException("Quantity must be positive");
+            }
+            
+            // Hot titles are served from leased in-memory stock; everything else
+            // is checked and decremented in a single conditional UPDATE
+            boolean reduced = hotStock.isHot(bookId)
+                ? hotStock.reduce(bookId, quantity)
+                : bookDAO.decrementStock(bookId, quantity);
+            if (reduced) {
+                catalogVersion.changed();
+                return true;
+            }
+            
+            // Only the failure path pays for a second query, to report why
+            Book book = getBookById(bookId);
+            if (book == null) {
+                throw new IllegalArgumentException("Book not found");
+            }
+            if (book.getStockQuantity() < quantity) {
+                throw new IllegalArgumentException("Insufficient stock. Available: " + book.getStockQuantity());
+            }
+            return false; // The update itself failed (already logged by the DAO)
         }
-        
-        int newQuantity = book.getStockQuantity() - quantity;
-        return updateStock(bookId, newQuantity);
     }
     
     /**
-     * Validate book data
+     * Serve a title's stock from striped in-memory counters (for launches of
+     * hot titles); stock is leased from the database in chunks
      */
-    private void validateBook(Book book) {
-        if (book == null) {
-            throw new IllegalArgumentException("Book cannot be null");
-        }
-        
-        if (book.getTitle() == null || book.getTitle().trim().isEmpty()) {
-            throw new IllegalArgumentException("Title is required");
-        }
-        
-        if (book.getAuthor() == null || book.getAuthor().trim().isEmpty()) {
-            throw new IllegalArgumentException("Author is required");
+    public void enableHotInventory(int bookId) {
+        try (Span span = CALLS.begin(Operation.ENABLE_HOT_INVENTORY)) {
+            hotStock.enable(bookId);
         }
-        
-        if (book.getIsbn() == null || book.getIsbn().trim().isEmpty()) {
-            throw new IllegalArgumentException("ISBN is required");
+    }
+    
+    /**
+     * Serve a title's stock from the database again, returning unsold leased units
+     */
+    public void disableHotInventory(int bookId) {
+        try (Span span = CALLS.begin(Operation.DISABLE_HOT_INVENTORY)) {
+            hotStock.disable(bookId);
+            catalogVersion.changed();
         }
-        
-        if (!isValidISBN(book.getIsbn())) {
-            throw new IllegalArgumentException("Invalid ISBN format");
+    }
+    
+    /**
+     * Get the best-selling books in a window (estimated from live sales, no
+     * database query). Pass null as category for the overall list.
+     */
+    public List<Bestseller> getBestsellers(BestsellerTracker.Window window, String category, int limit) {
+        try (Span span = CALLS.begin(Operation.GET_BESTSELLERS)) {
+            if (limit <= 0 || limit > 100) {
+                throw new IllegalArgumentException("Limit must be between 1 and 100");
+            }
+            return BestsellerTracker.getInstance().getTop(window, category, limit);
         }
-        
-        if (book.getPrice() == null || book.getPrice().compareTo(BigDecimal.ZERO) <= 0) {
-            throw new IllegalArgumentException("Price must be greater than 0");
+    }
+    
+    /**
+     * Sort books by units sold in a window, best-selling first; books without
+     * recent sales keep their order at the end
+     */
+    public List<Book> sortByPopularity(List<Book> books, BestsellerTracker.Window window) {
+        try (Span span = CALLS.begin(Operation.SORT_BY_POPULARITY)) {
+            List<Bestseller> top = BestsellerTracker.getInstance().getTop(window, null, Integer.MAX_VALUE);
+            Map<Integer, Long> units = new HashMap<>();
+            for (Bestseller bestseller : top) {
+                units.put(bestseller.getBookId(), bestseller.getUnits());
+            }
+            books.sort((a, b) -> Long.compare(units.getOrDefault(b.getId(), 0L), units.getOrDefault(a.getId(), 0L)));
+            return books;
         }
-        
-        if (book.getStockQuantity() < 0) {
-            throw new IllegalArgumentException("Stock quantity cannot be negative");
+    }
+    
+    /**
+     * Get up to k books most often bought in the same order as the given book.
+     * The neighbors come from the in-memory co-purchase index; only their
+     * details are read from the database, in one query.
+     */
+    public List<Book> getAlsoBought(int bookId, int k) {
+        try (Span span = CALLS.begin(Operation.GET_ALSO_BOUGHT)) {
+            CoPurchaseIndex index = CoPurchaseIndex.getInstance();
+            if (k <= 0 || k > index.getMaxNeighbors()) {
+                throw new IllegalArgumentException("k must be between 1 and " + index.getMaxNeighbors());
+            }
+            int[] neighborIds = index.alsoBought(bookId, k);
+            List<Integer> ids = new ArrayList<>(neighborIds.length);
+            for (int id : neighborIds) {
+                ids.add(id);
+            }
+            return includeReservedStock(bookDAO.getBooksByIds(ids));
         }
-        
-        if (book.getPublicationDate() != null && book.getPublicationDate().isAfter(LocalDate.now())) {
-            throw new IllegalArgumentException("Publication date cannot be in the future");
+    }
+    
+    /**
+     * Add leased but unsold units of hot titles to the stock shown to callers
+     */
+    private List<Book> includeReservedStock(List<Book> books) {
+        if (hotStock.hasHotItems()) {
+            for (Book book : books) {
+                int reserved = hotStock.getReservedStock(book.getId());
+                if (reserved > 0) {
+                    book.setStockQuantity(book.getStockQuantity() + reserved);
+                }
+            }
         }
+        return books;
     }
     
     /**
-     * Validate ISBN format (basic validation)
+     * Validate book data, throwing the first error found
      */
-    private boolean isValidISBN(String isbn) {
-        // Remove hyphens and spaces
-        String cleanIsbn = isbn.replaceAll("[\\s-]", "");
-        
-        // Check if it's 10 or 13 digits
-        return cleanIsbn.matches("^\\d{10}$") || cleanIsbn.matches("^\\d{13}$");
+    private void validateBook(Book book) {
+        BookValidator.validate(book).throwIfInvalid();
     }
 }
@@ -1,43 +1,109 @@
 package com.bookstore.gui;
 
+import com.bookstore.analytics.BestsellerTracker;
 import com.bookstore.model.Book;
 import com.bookstore.model.User;
 import com.bookstore.service.BookService;
+import com.bookstore.service.LocalCatalog;
+import com.bookstore.tracing.Span;
+import com.bookstore.tracing.Tracer;
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.math.BigDecimal;
+import java.sql.Timestamp;
 import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 
 /**
  * Main window for the Book Store application
+ * 
+ * Books come from the local catalog copy (LocalCatalog): the table shows the
+ * catalog saved by the last run at once, then the result of a delta sync. If
+ * the database cannot be reached, the saved catalog stays on screen
+ * read-only, with editing disabled and searches run in memory, until a
+ * refresh reaches the database again. A guest window (opened from the login
+ * window while offline) stays read-only; once the database answers, the
+ * guest is sent back to log in. Syncs run in the background, off the event
+ * dispatch thread.
  */
 public class BookStoreMainWindow extends JFrame {
     private User currentUser;
     private BookService bookService;
+    private LocalCatalog localCatalog;
+    private final boolean guest;
+    private boolean readOnly;
     private JTable bookTable;
     private DefaultTableModel tableModel;
     private JTextField searchField;
     private JComboBox<String> categoryComboBox;
+    private JComboBox<String> sortComboBox;
+    private List<Book> currentBooks;
     private JButton searchButton;
     private JButton addBookButton;
     private JButton editBookButton;
     private JButton deleteBookButton;
     private JButton refreshButton;
     private JButton logoutButton;
+    private JButton[] editButtons;
     private JLabel userLabel;
     private JLabel statusLabel;
     
+    // Search input pipeline: keystrokes and category changes restart the
+    // debounce timer, at most one query runs at a time, and results from a
+    // superseded request are discarded.
+    private static final int SEARCH_DEBOUNCE_MS = 300;
+    private static final String ALL_CATEGORIES = "All Categories";
+    private static final String SORT_DEFAULT = "Default";
+    private static final String SORT_POPULAR_HOUR = "Popular (last hour)";
+    private static final String SORT_POPULAR_DAY = "Popular (last day)";
+    private static final DateTimeFormatter SAVED_AT_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    private Timer searchDebounceTimer;
+    private boolean suppressSearchEvents;
+    private boolean searchInFlight;
+    private boolean searchPending;
+    private long searchGeneration;
+    
     public BookStoreMainWindow(User user) {
+        this(user, null);
+    }
+    
+    /**
+     * Open the window with books and categories that were loaded in the
+     * background (see prefetch()); the table fills in when they arrive
+     */
+    BookStoreMainWindow(User user, Prefetch prefetch) {
+        this(user, prefetch, false);
+    }
+    
+    /**
+     * Open the window for a user who did not log in (guest = true), who may
+     * only browse the saved catalog
+     */
+    BookStoreMainWindow(User user, Prefetch prefetch, boolean guest) {
         this.currentUser = user;
-        this.bookService = new BookService();
+        this.guest = guest;
+        this.bookService = prefetch != null ? prefetch.bookService : new BookService();
+        this.localCatalog = LocalCatalog.getInstance();
         initializeComponents();
         setupLayout();
         setupEventHandlers();
-        loadBooks();
+        if (guest) {
+            setReadOnly(true);
+        }
+        if (prefetch != null) {
+            showPrefetched(prefetch);
+        } else {
+            loadBooks();
+        }
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setTitle("Book Store Management System");
         setExtendedState(JFrame.MAXIMIZED_BOTH);
@@ -86,7 +152,11 @@ public class BookStoreMainWindow extends JFrame {
         // Search components
         searchField = new JTextField(20);
         categoryComboBox = new JComboBox<>();
-        categoryComboBox.addItem("All Categories");
+        categoryComboBox.addItem(ALL_CATEGORIES);
+        sortComboBox = new JComboBox<>(new String[] {SORT_DEFAULT, SORT_POPULAR_HOUR, SORT_POPULAR_DAY});
+        
+        searchDebounceTimer = new Timer(SEARCH_DEBOUNCE_MS, traced("debouncedSearch", e -> performSearch()));
+        searchDebounceTimer.setRepeats(false);
         
         // Buttons
         searchButton = new JButton("Search");
@@ -105,7 +175,8 @@ public class BookStoreMainWindow extends JFrame {
         statusLabel.setBorder(BorderFactory.createEmptyBorder(4, 8, 4, 8));
         
         // Tooltips
-        searchField.setToolTipText("Type title or author and press Enter");
+        searchField.setToolTipText("Type title or author; results update as you type");
+        sortComboBox.setToolTipText("Order the list by recent sales");
         searchButton.setToolTipText("Search by title/author and category");
         refreshButton.setToolTipText("Reload all books");
         addBookButton.setToolTipText("Add a new book");
@@ -165,10 +236,11 @@ public class BookStoreMainWindow extends JFrame {
         toolBar.add(tbRefresh);
         
         // bind toolbar actions
-        tbAdd.addActionListener(e -> showAddBookDialog());
-        tbEdit.addActionListener(e -> editSelectedBook());
-        tbDelete.addActionListener(e -> deleteSelectedBook());
-        tbRefresh.addActionListener(e -> loadBooks());
+        tbAdd.addActionListener(traced("toolbarAdd", e -> showAddBookDialog()));
+        tbEdit.addActionListener(traced("toolbarEdit", e -> editSelectedBook()));
+        tbDelete.addActionListener(traced("toolbarDelete", e -> deleteSelectedBook()));
+        tbRefresh.addActionListener(traced("toolbarRefresh", e -> loadBooks()));
+        editButtons = new JButton[] {addBookButton, editBookButton, deleteBookButton, tbAdd, tbEdit, tbDelete};
         
         // Top panel with user info and logout
         JPanel topPanel = new JPanel(new BorderLayout());
@@ -186,6 +258,8 @@ public class BookStoreMainWindow extends JFrame {
         searchPanel.add(searchField);
         searchPanel.add(new JLabel("Category:"));
         searchPanel.add(categoryComboBox);
+        searchPanel.add(new JLabel("Sort:"));
+        searchPanel.add(sortComboBox);
         searchPanel.add(searchButton);
         searchPanel.add(refreshButton);
         
@@ -222,102 +296,265 @@ public class BookStoreMainWindow extends JFrame {
         statusBar.setBorder(BorderFactory.createMatteBorder(1, 0, 0, 0, new Color(230,230,230)));
         statusBar.add(statusLabel, BorderLayout.WEST);
         add(statusBar, BorderLayout.SOUTH);
-        
-        // Load categories
-        loadCategories();
     }
     
     private void setupEventHandlers() {
-        searchButton.addActionListener(new ActionListener() {
+        searchButton.addActionListener(traced("search", new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                performSearch();
-                statusLabel.setText("Search completed at " + java.time.LocalTime.now().withNano(0));
+                searchNow();
             }
-        });
+        }));
         
-        refreshButton.addActionListener(new ActionListener() {
+        refreshButton.addActionListener(traced("refresh", new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                loadBooks();
-                statusLabel.setText("List refreshed at " + java.time.LocalTime.now().withNano(0));
+                loadBooks(true);
             }
-        });
+        }));
         
-        addBookButton.addActionListener(new ActionListener() {
+        addBookButton.addActionListener(traced("addBook", new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
                 showAddBookDialog();
                 statusLabel.setText("Add book dialog opened");
             }
-        });
+        }));
         
-        editBookButton.addActionListener(new ActionListener() {
+        editBookButton.addActionListener(traced("editBook", new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
                 editSelectedBook();
                 statusLabel.setText("Edit book dialog opened");
             }
-        });
+        }));
         
-        deleteBookButton.addActionListener(new ActionListener() {
+        deleteBookButton.addActionListener(traced("deleteBook", new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
                 deleteSelectedBook();
                 statusLabel.setText("Delete requested");
             }
-        });
+        }));
         
-        logoutButton.addActionListener(new ActionListener() {
+        logoutButton.addActionListener(traced("logout", new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
                 logout();
                 statusLabel.setText("Logging out...");
             }
-        });
+        }));
         
         // Enter key search
-        searchField.addActionListener(new ActionListener() {
+        searchField.addActionListener(traced("searchEnter", new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                performSearch();
+                searchNow();
+            }
+        }));
+        
+        // Search as you type
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                scheduleSearch();
+            }
+            
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                scheduleSearch();
+            }
+            
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                // Attribute changes do not affect the search term
             }
         });
         
+        // Popularity comes from live sales counts, so re-sorting needs no query
+        sortComboBox.addActionListener(traced("sort", new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                if (currentBooks != null) {
+                    updateTable(currentBooks);
+                }
+            }
+        }));
+        
         // Category change search
-        categoryComboBox.addActionListener(new ActionListener() {
+        categoryComboBox.addActionListener(traced("categoryChange", new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                performSearch();
+                if (!suppressSearchEvents) {
+                    scheduleSearch();
+                }
             }
-        });
+        }));
+    }
+    
+    /**
+     * Wrap an action handler so each run is recorded as a JFR UI action
+     * event, which the service and statement events it causes nest inside
+     */
+    private static ActionListener traced(String action, ActionListener listener) {
+        return e -> {
+            try (Span span = Tracer.get().uiAction("BookStoreMainWindow", action)) {
+                listener.actionPerformed(e);
+            }
+        };
     }
     
     private void loadBooks() {
-        try {
-            List<Book> books = bookService.getAllBooks();
-            updateTable(books);
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this, "Error loading books: " + e.getMessage(), 
-                                        "Error", JOptionPane.ERROR_MESSAGE);
+        loadBooks(false);
+    }
+    
+    /**
+     * Sync the catalog in the background and show it (announce: say when the
+     * list was refreshed)
+     */
+    private void loadBooks(final boolean announce) {
+        // A full reload supersedes any search still waiting or in flight
+        searchDebounceTimer.stop();
+        searchPending = false;
+        final long generation = ++searchGeneration;
+        statusLabel.setText("Loading books...");
+        new SwingWorker<List<Book>, Void>() {
+            @Override
+            protected List<Book> doInBackground() {
+                return bookService.syncCatalog();
+            }
+            
+            @Override
+            protected void done() {
+                if (generation != searchGeneration) {
+                    return; // Out of date: a newer request or reload has taken over
+                }
+                try {
+                    showCatalog(get());
+                    if (!readOnly) {
+                        statusLabel.setText(announce ? "List refreshed at " + java.time.LocalTime.now().withNano(0) : "Ready");
+                    }
+                } catch (InterruptedException | ExecutionException | IllegalStateException e) {
+                    Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+                    statusLabel.setText("Loading books failed");
+                    JOptionPane.showMessageDialog(BookStoreMainWindow.this, "Error loading books: " + cause.getMessage(), 
+                                                "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.execute();
+    }
+    
+    /**
+     * Start loading the catalog in the background for a window that is about
+     * to open (for example while the welcome message is showing)
+     */
+    static Prefetch prefetch() {
+        return new Prefetch(new BookService());
+    }
+    
+    private void showPrefetched(Prefetch prefetch) {
+        final long generation = searchGeneration;
+        statusLabel.setText("Loading books...");
+        // The saved catalog shows at once; the synced one replaces it when it arrives
+        prefetch.saved.thenAccept(saved -> SwingUtilities.invokeLater(() -> {
+            if (saved == null || prefetch.books.isDone() || generation != searchGeneration) {
+                return;
+            }
+            updateTable(saved);
+            setCategories(localCatalog.getCategories());
+            statusLabel.setText("Showing the catalog saved " + savedAtText() + ", syncing...");
+        }));
+        prefetch.books.whenComplete((books, error) -> SwingUtilities.invokeLater(() -> {
+            if (generation != searchGeneration) {
+                return; // A search or reload has taken over
+            }
+            if (error != null || books == null && localCatalog.getSavedAt() == null) {
+                loadBooks(); // Try again, reporting the error
+                return;
+            }
+            showCatalog(books);
+            if (!readOnly) {
+                statusLabel.setText("Ready");
+            }
+        }));
+    }
+    
+    /**
+     * Show synced books, or the saved catalog read-only if the database could
+     * not be reached (books is null). A guest is sent to log in instead once
+     * the database answers.
+     */
+    private void showCatalog(List<Book> books) {
+        if (books != null && guest) {
+            returnToLogin();
+            return;
+        }
+        if (books == null) {
+            List<Book> saved = localCatalog.getBooks();
+            if (saved == null) {
+                throw new IllegalStateException("The database cannot be reached and no saved catalog is available");
+            }
+            updateTable(saved);
+            setCategories(localCatalog.getCategories());
+            setReadOnly(true);
+            return;
+        }
+        setReadOnly(false);
+        updateTable(books);
+        setCategories(localCatalog.getCategories());
+    }
+    
+    private void setReadOnly(boolean readOnly) {
+        this.readOnly = readOnly || guest; // A guest never gets to edit
+        for (JButton button : editButtons) {
+            button.setEnabled(!this.readOnly);
         }
+        if (this.readOnly) {
+            statusLabel.setText("Offline: showing the catalog saved " + savedAtText() + " (read-only)");
+        }
+    }
+    
+    private String savedAtText() {
+        Timestamp savedAt = localCatalog.getSavedAt();
+        return savedAt == null ? "earlier" : "at " + savedAt.toLocalDateTime().format(SAVED_AT_FORMAT);
     }
     
-    private void loadCategories() {
+    private void setCategories(List<String> categories) {
+        // Rebuilding the model fires an action event per item; keep those from
+        // triggering searches and restore the user's selection afterwards
+        Object selected = categoryComboBox.getSelectedItem();
+        suppressSearchEvents = true;
         try {
-            List<String> categories = bookService.getAllCategories();
             categoryComboBox.removeAllItems();
-            categoryComboBox.addItem("All Categories");
+            categoryComboBox.addItem(ALL_CATEGORIES);
             for (String category : categories) {
                 categoryComboBox.addItem(category);
             }
-        } catch (Exception e) {
-            System.err.println("Error loading categories: " + e.getMessage());
+            if (selected != null && categories.contains(selected)) {
+                categoryComboBox.setSelectedItem(selected);
+            }
+        } finally {
+            suppressSearchEvents = false;
         }
     }
     
     private void updateTable(List<Book> books) {
-        tableModel.setRowCount(0);
+        currentBooks = books;
+        Object sort = sortComboBox.getSelectedItem();
+        if (!SORT_DEFAULT.equals(sort)) {
+            bookService.sortByPopularity(books, SORT_POPULAR_HOUR.equals(sort)
+                                         ? BestsellerTracker.Window.LAST_HOUR : BestsellerTracker.Window.LAST_DAY);
+            bookTable.getRowSorter().setSortKeys(null); // Show the popularity order, not a column order
+        }
+        populateTableModel(tableModel, books);
+    }
+    
+    /**
+     * Replace the rows of the book table model (package-private for the
+     * table benchmark)
+     */
+    static void populateTableModel(DefaultTableModel model, List<Book> books) {
+        model.setRowCount(0);
         for (Book book : books) {
             Object[] row = {
                 book.getId(),
@@ -325,56 +562,96 @@ public class BookStoreMainWindow extends JFrame {
                 book.getAuthor(),
                 book.getIsbn(),
                 book.getCategory(),
-                "$" + book.getPrice().toString(),
+                book.getPrice().format(),
                 book.getStockQuantity(),
                 book.getPublisher()
             };
-            tableModel.addRow(row);
+            model.addRow(row);
         }
     }
     
+    /**
+     * Restart the debounce timer so a burst of edits results in one search
+     */
+    private void scheduleSearch() {
+        searchDebounceTimer.restart();
+    }
+    
+    /**
+     * Search immediately (Enter key or Search button)
+     */
+    private void searchNow() {
+        searchDebounceTimer.stop();
+        performSearch();
+    }
+    
     private void performSearch() {
-        String searchTerm = searchField.getText().trim();
-        String selectedCategory = (String) categoryComboBox.getSelectedItem();
+        final long generation = ++searchGeneration;
+        if (readOnly) {
+            searchSavedCatalog();
+            return;
+        }
+        if (searchInFlight) {
+            // Coalesce: run once more with the latest input when the current query finishes
+            searchPending = true;
+            return;
+        }
         
-        try {
-            List<Book> books;
-            
-            if (!searchTerm.isEmpty()) {
-                // Search by title or author
-                List<Book> titleResults = bookService.searchBooksByTitle(searchTerm);
-                List<Book> authorResults = bookService.searchBooksByAuthor(searchTerm);
-                
-                // Combine results and remove duplicates
-                books = titleResults;
-                for (Book book : authorResults) {
-                    if (!books.contains(book)) {
-                        books.add(book);
-                    }
+        final String searchTerm = searchField.getText().trim();
+        final String selectedCategory = (String) categoryComboBox.getSelectedItem();
+        final String category = ALL_CATEGORIES.equals(selectedCategory) ? null : selectedCategory;
+        
+        searchInFlight = true;
+        statusLabel.setText("Searching...");
+        new SwingWorker<List<Book>, Void>() {
+            @Override
+            protected List<Book> doInBackground() {
+                try (Span span = Tracer.get().uiAction("BookStoreMainWindow", "searchQuery")) {
+                    return bookService.searchBooks(searchTerm, category);
                 }
-            } else {
-                books = bookService.getAllBooks();
             }
             
-            // Filter by category if not "All Categories"
-            if (!"All Categories".equals(selectedCategory)) {
-                books = books.stream()
-                    .filter(book -> selectedCategory.equals(book.getCategory()))
-                    .collect(java.util.stream.Collectors.toList());
+            @Override
+            protected void done() {
+                searchInFlight = false;
+                if (searchPending) {
+                    searchPending = false;
+                    performSearch();
+                    return;
+                }
+                if (generation != searchGeneration) {
+                    return; // Out of date: a newer request or reload has taken over
+                }
+                try {
+                    List<Book> books = get();
+                    updateTable(books);
+                    statusLabel.setText("Search completed at " + java.time.LocalTime.now().withNano(0)
+                                        + " (" + books.size() + " books)");
+                } catch (InterruptedException | ExecutionException e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    statusLabel.setText("Search failed");
+                    JOptionPane.showMessageDialog(BookStoreMainWindow.this, "Error searching books: " + cause.getMessage(), 
+                                                "Error", JOptionPane.ERROR_MESSAGE);
+                }
             }
-            
-            updateTable(books);
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this, "Error searching books: " + e.getMessage(), 
-                                        "Error", JOptionPane.ERROR_MESSAGE);
-        }
+        }.execute();
+    }
+    
+    /**
+     * Search the saved catalog in memory while the database cannot be reached
+     */
+    private void searchSavedCatalog() {
+        String selectedCategory = (String) categoryComboBox.getSelectedItem();
+        List<Book> books = localCatalog.search(searchField.getText(),
+                                               ALL_CATEGORIES.equals(selectedCategory) ? null : selectedCategory);
+        updateTable(books);
+        statusLabel.setText("Searched the saved catalog (" + books.size() + " books, read-only)");
     }
     
     private void showAddBookDialog() {
         BookDialog dialog = new BookDialog(this, null);
         dialog.setVisible(true);
-        loadBooks(); // Refresh the table
-        loadCategories(); // Refresh categories
+        loadBooks(); // Refresh the table and categories
     }
     
     private void editSelectedBook() {
@@ -391,8 +668,7 @@ public class BookStoreMainWindow extends JFrame {
             if (book != null) {
                 BookDialog dialog = new BookDialog(this, book);
                 dialog.setVisible(true);
-                loadBooks(); // Refresh the table
-                loadCategories(); // Refresh categories
+                loadBooks(); // Refresh the table and categories
             }
         } catch (Exception e) {
             JOptionPane.showMessageDialog(this, "Error loading book: " + e.getMessage(), 
@@ -433,6 +709,18 @@ public class BookStoreMainWindow extends JFrame {
         }
     }
     
+    /**
+     * The database is back while a guest is browsing offline: ask them to log in
+     */
+    private void returnToLogin() {
+        JOptionPane.showMessageDialog(this, "The database can be reached again. Please log in to continue.", 
+                                    "Online", JOptionPane.INFORMATION_MESSAGE);
+        dispose();
+        SwingUtilities.invokeLater(() -> {
+            new LoginWindow().setVisible(true);
+        });
+    }
+    
     private void logout() {
         int result = JOptionPane.showConfirmDialog(this, 
             "Are you sure you want to logout?", 
@@ -445,4 +733,25 @@ public class BookStoreMainWindow extends JFrame {
             });
         }
     }
+    
+    /**
+     * The saved catalog and the synced one being loaded, with the service that loads them
+     */
+    static final class Prefetch {
+        private static final Executor LOADER = runnable -> {
+            Thread thread = new Thread(runnable, "catalog-prefetch");
+            thread.setDaemon(true);
+            thread.start();
+        };
+        
+        final BookService bookService;
+        final CompletableFuture<List<Book>> saved; // null if nothing was saved
+        final CompletableFuture<List<Book>> books; // null if the database cannot be reached
+        
+        Prefetch(BookService bookService) {
+            this.bookService = bookService;
+            this.saved = CompletableFuture.supplyAsync(LocalCatalog.getInstance()::load, LOADER);
+            this.books = saved.thenApplyAsync(ignored -> bookService.syncCatalog(), LOADER);
+        }
+    }
 }
@@ -0,0 +1,59 @@
+package com.bookstore.validation;
+
+import com.bookstore.model.Book;
+import com.bookstore.model.Isbn;
+import java.time.LocalDate;
+
+/**
+ * Validation rules for books
+ */
+public final class BookValidator {
+    private BookValidator() {
+    }
+    
+    /**
+     * Check every field of a book and report all errors at once
+     */
+    public static ValidationResult validate(Book book) {
+        return validate(book, LocalDate.now());
+    }
+    
+    /**
+     * Same as validate(book), with the current date passed in so bulk imports
+     * can look it up once
+     */
+    public static ValidationResult validate(Book book, LocalDate today) {
+        if (book == null) {
+            return ValidationResult.add(null, "book", "Book cannot be null");
+        }
+        ValidationResult result = null;
+        
+        if (Scanners.isBlank(book.getTitle())) {
+            result = ValidationResult.add(result, "title", "Title is required");
+        }
+        
+        if (Scanners.isBlank(book.getAuthor())) {
+            result = ValidationResult.add(result, "author", "Author is required");
+        }
+        
+        if (Scanners.isBlank(book.getIsbn())) {
+            result = ValidationResult.add(result, "isbn", "ISBN is required");
+        } else if (!Isbn.isValid(book.getIsbn())) {
+            result = ValidationResult.add(result, "isbn",
+                                          "Invalid ISBN (expected an ISBN-10 or ISBN-13 with a correct check digit)");
+        }
+        
+        if (book.getPrice() == null || !book.getPrice().isPositive()) {
+            result = ValidationResult.add(result, "price", "Price must be greater than 0");
+        }
+        
+        if (book.getStockQuantity() < 0) {
+            result = ValidationResult.add(result, "stockQuantity", "Stock quantity cannot be negative");
+        }
+        
+        if (book.getPublicationDate() != null && book.getPublicationDate().isAfter(today)) {
+            result = ValidationResult.add(result, "publicationDate", "Publication date cannot be in the future");
+        }
+        return ValidationResult.finish(result);
+    }
+}
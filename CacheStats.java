@@ -0,0 +1,88 @@
+package com.bookstore.service;
+
+import com.bookstore.analytics.SalesSnapshot;
+
+/**
+ * Sizes and hit rates of the service layer's in-memory structures, exposed
+ * over JMX
+ */
+final class CacheStats implements CacheStatsMXBean {
+    private static boolean registered;
+    
+    private CacheStats() {
+    }
+    
+    /**
+     * Register the MBean (once; called by the services as they load)
+     */
+    static synchronized void register() {
+        if (!registered) {
+            registered = true;
+            OperationCounters.registerMBean(new CacheStats(), "com.bookstore:type=Caches");
+        }
+    }
+    
+    @Override
+    public long getIsbnFilterEntries() {
+        return IsbnFilter.getInstance().getEntries();
+    }
+    
+    @Override
+    public long getIsbnFilterCapacity() {
+        return IsbnFilter.getInstance().getCapacity();
+    }
+    
+    @Override
+    public double getIsbnFilterRuledOutRate() {
+        IsbnFilter filter = IsbnFilter.getInstance();
+        return rate(filter.getRuledOut(), filter.getChecks());
+    }
+    
+    @Override
+    public long getAccountNameFilterEntries() {
+        return AccountNameFilter.getInstance().getEntries();
+    }
+    
+    @Override
+    public double getAccountNameFilterRuledOutRate() {
+        AccountNameFilter filter = AccountNameFilter.getInstance();
+        return rate(filter.getRuledOut(), filter.getChecks());
+    }
+    
+    @Override
+    public double getCatalogVersionHitRate() {
+        CatalogVersion version = CatalogVersion.getInstance();
+        return rate(version.getHits(), version.getRequests());
+    }
+    
+    @Override
+    public int getSessionCount() {
+        return SessionStore.getInstance().size();
+    }
+    
+    @Override
+    public int getHotTitleCount() {
+        return HotStockInventory.getInstance().getHotTitleCount();
+    }
+    
+    @Override
+    public int getSalesSnapshotRows() {
+        return SalesSnapshot.getInstance().size();
+    }
+    
+    @Override
+    public void flushCaches() {
+        IsbnFilter.getInstance().reload();
+        AccountNameFilter.getInstance().reload();
+        CatalogVersion.getInstance().invalidate();
+    }
+    
+    @Override
+    public void flushHotStock() {
+        HotStockInventory.getInstance().flushAll();
+    }
+    
+    private static double rate(long hits, long total) {
+        return total == 0 ? 0 : (double) hits / total;
+    }
+}
@@ -0,0 +1,46 @@
+package com.bookstore.service;
+
+/**
+ * JMX view of the service layer's in-memory structures
+ * (com.bookstore:type=Caches)
+ */
+public interface CacheStatsMXBean {
+    
+    long getIsbnFilterEntries();
+    
+    long getIsbnFilterCapacity();
+    
+    /**
+     * Share of ISBN checks the filter answered without a database query
+     */
+    double getIsbnFilterRuledOutRate();
+    
+    long getAccountNameFilterEntries();
+    
+    /**
+     * Share of username and email checks answered without a database query
+     */
+    double getAccountNameFilterRuledOutRate();
+    
+    /**
+     * Share of catalog version requests answered without probing the database
+     */
+    double getCatalogVersionHitRate();
+    
+    int getSessionCount();
+    
+    int getHotTitleCount();
+    
+    int getSalesSnapshotRows();
+    
+    /**
+     * Reload the ISBN and account name filters from the database and forget
+     * the cached catalog version
+     */
+    void flushCaches();
+    
+    /**
+     * Write the unsold leased stock of hot titles back to the database
+     */
+    void flushHotStock();
+}
@@ -0,0 +1,321 @@
+package com.bookstore.dao;
+
+import com.bookstore.model.Book;
+import com.bookstore.model.Money;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Binary snapshot file of the book catalog
+ *
+ * Layout (big-endian):
+ *   header      magic "BKCS", format version, book count, category count,
+ *               string heap length, synced-through time (epoch microseconds,
+ *               MIN_VALUE if unknown), save time (epoch milliseconds) and
+ *               the CRC32 of the whole file except this field
+ *   records     one fixed-width record per book: ID, price in cents, stock,
+ *               publication date (epoch day, or NO_DATE) and category number
+ *               (-1 for none)
+ *   offsets     per book, the heap offsets of title, author, ISBN, publisher
+ *               and description (-1 for null)
+ *   categories  heap offsets of the category names
+ *   heap        strings as a length and UTF-8 bytes; repeated strings
+ *               (authors, publishers) are stored once
+ *
+ * read() loads the file into a heap buffer and checks the header, the
+ * section sizes and the checksum; only the category names are decoded then,
+ * books when getBook() or getBooks() asks for them. The file is not kept mapped or open, so
+ * write() can replace it atomically (on Windows a mapped file cannot be
+ * replaced) and readers see either the old or the new snapshot. Files of
+ * another format version are rejected, and the caller falls back to a full
+ * sync.
+ */
+public final class CatalogSnapshot {
+    public static final int FORMAT_VERSION = 2;
+    private static final int MAGIC = 0x424B4353; // "BKCS"
+    private static final int HEADER_BYTES = 40;
+    private static final int CRC_OFFSET = 36;
+    private static final int RECORD_BYTES = 24;
+    private static final int STRINGS_PER_BOOK = 5;
+    private static final int OFFSET_BYTES = 4 * STRINGS_PER_BOOK;
+    private static final int NO_DATE = Integer.MIN_VALUE;
+    private static final long NO_TIME = Long.MIN_VALUE;
+    
+    private final ByteBuffer data;
+    private final int bookCount;
+    private final int offsetsStart;
+    private final int heapStart;
+    private final List<String> categories;
+    private final Timestamp syncedThrough;
+    private final Timestamp savedAt;
+    
+    private CatalogSnapshot(ByteBuffer data, int bookCount, int categoryCount, Timestamp syncedThrough,
+                            Timestamp savedAt) {
+        this.data = data;
+        this.bookCount = bookCount;
+        this.offsetsStart = HEADER_BYTES + bookCount * RECORD_BYTES;
+        int categoriesStart = offsetsStart + bookCount * OFFSET_BYTES;
+        this.heapStart = categoriesStart + categoryCount * 4;
+        this.syncedThrough = syncedThrough;
+        this.savedAt = savedAt;
+        
+        List<String> names = new ArrayList<>(categoryCount);
+        for (int i = 0; i < categoryCount; i++) {
+            names.add(string(data.getInt(categoriesStart + i * 4)));
+        }
+        this.categories = names;
+    }
+    
+    /**
+     * Read and validate a snapshot file. Throws IOException if it cannot be
+     * read or is not a valid snapshot of this format version.
+     */
+    public static CatalogSnapshot read(Path file) throws IOException {
+        ByteBuffer data;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES || channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Not a catalog snapshot: " + file);
+            }
+            data = ByteBuffer.allocate((int) channel.size());
+            while (data.hasRemaining()) {
+                if (channel.read(data) < 0) {
+                    throw new IOException("Truncated catalog snapshot: " + file);
+                }
+            }
+        }
+        
+        if (data.getInt(0) != MAGIC) {
+            throw new IOException("Not a catalog snapshot: " + file);
+        }
+        int version = data.getInt(4);
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported catalog snapshot version " + version + ": " + file);
+        }
+        int bookCount = data.getInt(8);
+        int categoryCount = data.getInt(12);
+        int heapLength = data.getInt(16);
+        long expectedSize = HEADER_BYTES + (long) bookCount * (RECORD_BYTES + OFFSET_BYTES)
+                            + (long) categoryCount * 4 + heapLength;
+        if (bookCount < 0 || categoryCount < 0 || heapLength < 0 || expectedSize != data.capacity()) {
+            throw new IOException("Truncated catalog snapshot: " + file);
+        }
+        
+        CRC32 crc = new CRC32();
+        crc.update(data.array(), 0, CRC_OFFSET);
+        crc.update(data.array(), HEADER_BYTES, data.capacity() - HEADER_BYTES);
+        if ((int) crc.getValue() != data.getInt(CRC_OFFSET)) {
+            throw new IOException("Corrupt catalog snapshot (checksum mismatch): " + file);
+        }
+        return new CatalogSnapshot(data, bookCount, categoryCount, fromMicros(data.getLong(20)),
+                                   new Timestamp(data.getLong(28)));
+    }
+    
+    /**
+     * Write a snapshot of the given books, replacing the file atomically
+     */
+    public static void write(Path file, List<Book> books, Timestamp syncedThrough) throws IOException {
+        Map<String, Integer> categoryNumbers = new HashMap<>();
+        List<String> categoryNames = new ArrayList<>();
+        HeapWriter heap = new HeapWriter();
+        
+        ByteBuffer records = ByteBuffer.allocate(books.size() * RECORD_BYTES);
+        ByteBuffer offsets = ByteBuffer.allocate(books.size() * OFFSET_BYTES);
+        for (Book book : books) {
+            int category = -1;
+            if (book.getCategory() != null) {
+                Integer number = categoryNumbers.get(book.getCategory());
+                if (number == null) {
+                    number = categoryNames.size();
+                    categoryNumbers.put(book.getCategory(), number);
+                    categoryNames.add(book.getCategory());
+                }
+                category = number;
+            }
+            records.putInt(book.getId());
+            records.putLong(book.getPrice() == null ? 0 : book.getPrice().getCents());
+            records.putInt(book.getStockQuantity());
+            records.putInt(book.getPublicationDate() == null ? NO_DATE : (int) book.getPublicationDate().toEpochDay());
+            records.putInt(category);
+            
+            offsets.putInt(heap.add(book.getTitle()));
+            offsets.putInt(heap.add(book.getAuthor()));
+            offsets.putInt(heap.add(book.getIsbn()));
+            offsets.putInt(heap.add(book.getPublisher()));
+            offsets.putInt(heap.add(book.getDescription()));
+        }
+        ByteBuffer categories = ByteBuffer.allocate(categoryNames.size() * 4);
+        for (String name : categoryNames) {
+            categories.putInt(heap.add(name));
+        }
+        ByteBuffer strings = heap.toBuffer();
+        
+        for (ByteBuffer section : new ByteBuffer[] {records, offsets, categories, strings}) {
+            section.flip();
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC);
+        header.putInt(FORMAT_VERSION);
+        header.putInt(books.size());
+        header.putInt(categoryNames.size());
+        header.putInt(strings.remaining());
+        header.putLong(syncedThrough == null ? NO_TIME : toMicros(syncedThrough));
+        header.putLong(System.currentTimeMillis());
+        
+        CRC32 crc = new CRC32();
+        crc.update(header.array(), 0, CRC_OFFSET);
+        for (ByteBuffer section : new ByteBuffer[] {records, offsets, categories, strings}) {
+            crc.update(section.duplicate());
+        }
+        header.putInt((int) crc.getValue());
+        header.flip();
+        
+        Path parent = file.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                for (ByteBuffer section : new ByteBuffer[] {header, records, offsets, categories, strings}) {
+                    while (section.hasRemaining()) {
+                        channel.write(section);
+                    }
+                }
+                channel.force(true);
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+    
+    /**
+     * Get the number of books in the snapshot
+     */
+    public int size() {
+        return bookCount;
+    }
+    
+    /**
+     * Decode the book at the given position (books keep the order they were written in)
+     */
+    public Book getBook(int index) {
+        if (index < 0 || index >= bookCount) {
+            throw new IndexOutOfBoundsException("Book " + index + " of " + bookCount);
+        }
+        int record = HEADER_BYTES + index * RECORD_BYTES;
+        int offsets = offsetsStart + index * OFFSET_BYTES;
+        int epochDay = data.getInt(record + 16);
+        int category = data.getInt(record + 20);
+        return new Book(data.getInt(record),
+                        string(data.getInt(offsets)),
+                        string(data.getInt(offsets + 4)),
+                        string(data.getInt(offsets + 8)),
+                        category < 0 ? null : categories.get(category),
+                        Money.ofCents(data.getLong(record + 4)),
+                        data.getInt(record + 12),
+                        string(data.getInt(offsets + 16)),
+                        epochDay == NO_DATE ? null : LocalDate.ofEpochDay(epochDay),
+                        string(data.getInt(offsets + 12)),
+                        true);
+    }
+    
+    /**
+     * Decode all books
+     */
+    public List<Book> getBooks() {
+        List<Book> books = new ArrayList<>(bookCount);
+        for (int i = 0; i < bookCount; i++) {
+            books.add(getBook(i));
+        }
+        return books;
+    }
+    
+    /**
+     * Get the newest updated_at the snapshot includes, or null if unknown
+     */
+    public Timestamp getSyncedThrough() {
+        return syncedThrough;
+    }
+    
+    /**
+     * Get when the snapshot was written
+     */
+    public Timestamp getSavedAt() {
+        return savedAt;
+    }
+    
+    private String string(int offset) {
+        if (offset < 0) {
+            return null;
+        }
+        int position = heapStart + offset;
+        int length = data.getInt(position);
+        byte[] bytes = new byte[length];
+        ByteBuffer source = data.duplicate();
+        source.position(position + 4);
+        source.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    private static long toMicros(Timestamp time) {
+        return Math.floorDiv(time.getTime(), 1000) * 1_000_000L + time.getNanos() / 1000;
+    }
+    
+    private static Timestamp fromMicros(long micros) {
+        if (micros == NO_TIME) {
+            return null;
+        }
+        Timestamp time = new Timestamp(Math.floorDiv(micros, 1_000_000L) * 1000);
+        time.setNanos((int) Math.floorMod(micros, 1_000_000L) * 1000);
+        return time;
+    }
+    
+    /**
+     * String heap under construction; each distinct string is stored once
+     */
+    private static final class HeapWriter {
+        private final Map<String, Integer> offsets = new HashMap<>();
+        private ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+        
+        int add(String value) {
+            if (value == null) {
+                return -1;
+            }
+            Integer offset = offsets.get(value);
+            if (offset == null) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                if (buffer.remaining() < bytes.length + 4) {
+                    ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes.length + 4));
+                    buffer.flip();
+                    larger.put(buffer);
+                    buffer = larger;
+                }
+                offset = buffer.position();
+                buffer.putInt(bytes.length);
+                buffer.put(bytes);
+                offsets.put(value, offset);
+            }
+            return offset;
+        }
+        
+        ByteBuffer toBuffer() {
+            return buffer;
+        }
+    }
+}
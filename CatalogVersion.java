@@ -0,0 +1,133 @@
+package com.bookstore.service;
+
+import com.bookstore.dao.BookDAO;
+import java.sql.Timestamp;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Versions of the catalog and of single books, for conditional reads
+ *
+ * A version is derived from books.updated_at (microsecond precision), so it
+ * is the same on every node reading the same database, plus the reserved
+ * stock of hot titles, which changes the stock shown without touching a row.
+ * That part is node-specific, like the stock shown: each node adds the units
+ * it has leased itself. So versions only agree across nodes while no title
+ * is hot (the suffix is then empty). Leaving it out would let a node answer
+ * 304 for stock it has since sold from its lease.
+ * The catalog version is the newest updated_at of any book; books are only
+ * ever deactivated, never deleted, so every change moves it forward.
+ *
+ * Probing MAX(updated_at) is a single index lookup, and its result is reused
+ * until a local write bumps the change counter or PROBE_INTERVAL_MILLIS
+ * passes, so validating an unchanged catalog is usually an in-memory check.
+ * Writes by other nodes show up within that interval. A write whose
+ * transaction commits after a later write was already seen can keep an older
+ * updated_at than the version returned; it is picked up with the next change.
+ */
+class CatalogVersion {
+    private static final long PROBE_INTERVAL_MILLIS = 1_000;
+    private static CatalogVersion instance;
+    
+    private final BookDAO bookDAO;
+    private final HotStockInventory hotStock;
+    private final AtomicLong changes = new AtomicLong();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private volatile Probe probe;
+    
+    private CatalogVersion() {
+        this.bookDAO = new BookDAO();
+        this.hotStock = HotStockInventory.getInstance();
+    }
+    
+    static synchronized CatalogVersion getInstance() {
+        if (instance == null) {
+            instance = new CatalogVersion();
+        }
+        return instance;
+    }
+    
+    /**
+     * Record that this process has written to the books table
+     */
+    void changed() {
+        changes.incrementAndGet();
+    }
+    
+    /**
+     * Get the version of the whole catalog (every book list and category), or
+     * null if it cannot be read from the database. A failed probe is not
+     * cached, so the next call tries again.
+     */
+    String catalog() {
+        requests.increment();
+        long now = System.currentTimeMillis();
+        long changeCount = changes.get();
+        Probe current = probe;
+        if (current == null || current.changeCount != changeCount || now - current.probedAt >= PROBE_INTERVAL_MILLIS) {
+            // Read the counter before the probe, so a write during it forces another
+            Timestamp lastUpdate = bookDAO.getLastBookUpdate();
+            if (lastUpdate == null) {
+                return null;
+            }
+            current = new Probe(changeCount, now, micros(lastUpdate));
+            probe = current;
+        } else {
+            hits.increment();
+        }
+        return "c" + Long.toHexString(current.lastUpdate) + withHotStock(hotStock.getReservedStockFingerprint());
+    }
+    
+    /**
+     * Forget the last probe, so the next catalog version is read from the database
+     */
+    void invalidate() {
+        probe = null;
+    }
+    
+    long getRequests() {
+        return requests.sum();
+    }
+    
+    /**
+     * Catalog version requests answered from the last probe
+     */
+    long getHits() {
+        return hits.sum();
+    }
+    
+    /**
+     * Get the version of one active book, or null if there is no such book
+     */
+    String book(int bookId) {
+        Timestamp updatedAt = bookDAO.getBookUpdatedAt(bookId);
+        if (updatedAt == null) {
+            return null;
+        }
+        return "b" + bookId + "-" + Long.toHexString(micros(updatedAt)) + withHotStock(hotStock.getReservedStock(bookId));
+    }
+    
+    private static String withHotStock(long reserved) {
+        return reserved == 0 ? "" : "-" + Long.toHexString(reserved);
+    }
+    
+    private static long micros(Timestamp timestamp) {
+        return Math.floorDiv(timestamp.getTime(), 1000) * 1_000_000 + timestamp.getNanos() / 1000;
+    }
+    
+    /**
+     * Result of the last MAX(updated_at) probe
+     */
+    private static final class Probe {
+        final long changeCount;
+        final long probedAt;
+        final long lastUpdate;
+        
+        Probe(long changeCount, long probedAt, long lastUpdate) {
+            this.changeCount = changeCount;
+            this.probedAt = probedAt;
+            this.lastUpdate = lastUpdate;
+        }
+    }
+}
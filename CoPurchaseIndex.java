@@ -0,0 +1,256 @@
+package com.bookstore.analytics;
+
+import com.bookstore.dao.ReportDAO;
+import com.bookstore.model.Order;
+import com.bookstore.model.OrderItem;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+
+/**
+ * "Customers also bought" index: for each book, the books most often bought
+ * in the same order
+ *
+ * Each book keeps at most maxNeighbors co-purchase counters, packed as
+ * (count << 32 | book ID) in one long[] per book, so memory stays bounded at
+ * roughly 20 bytes per counter however large the catalog grows. When a
+ * book's counters are full, a new neighbor decrements all of them instead
+ * and counters that reach zero are dropped (Misra-Gries): any neighbor bought
+ * with the book in more than 1/(maxNeighbors + 1) of its pairs is always
+ * kept, and counts are undercounted rather than inflated by one-off pairs.
+ *
+ * Books are spread over shards by ID. The initial build streams all orders
+ * and updates the shards in parallel, each shard owned by one task; orders
+ * placed afterwards are added one at a time. Lookups copy a book's counters
+ * under a read lock and never touch the database.
+ */
+public class CoPurchaseIndex {
+    private static final int DEFAULT_MAX_NEIGHBORS = 16;
+    private static final int SHARDS = 64;
+    // Very large orders say little about affinity and cost n^2 updates
+    private static final int MAX_BASKET_SIZE = 50;
+    private static final int BUILD_CHUNK_SIZE = 50_000;
+    private static CoPurchaseIndex instance;
+    
+    private final int maxNeighbors;
+    private final Shard[] shards;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Orders up to this ID are covered by the build; live orders at or below it are skipped
+    private int builtUpToOrderId = Integer.MAX_VALUE;
+    
+    public CoPurchaseIndex() {
+        this(DEFAULT_MAX_NEIGHBORS);
+    }
+    
+    public CoPurchaseIndex(int maxNeighbors) {
+        if (maxNeighbors <= 0) {
+            throw new IllegalArgumentException("Neighbor count must be positive");
+        }
+        this.maxNeighbors = maxNeighbors;
+        this.shards = new Shard[SHARDS];
+        for (int i = 0; i < SHARDS; i++) {
+            shards[i] = new Shard();
+        }
+    }
+    
+    /**
+     * Get the shared index; the first call starts building it from order
+     * history in the background (lookups return partial results until then)
+     */
+    public static synchronized CoPurchaseIndex getInstance() {
+        if (instance == null) {
+            instance = new CoPurchaseIndex();
+            CoPurchaseIndex index = instance;
+            Thread builder = new Thread(index::build, "co-purchase-build");
+            builder.setDaemon(true);
+            builder.start();
+        }
+        return instance;
+    }
+    
+    public int getMaxNeighbors() {
+        return maxNeighbors;
+    }
+    
+    /**
+     * Load all existing orders. Orders recorded with recordOrder() while the
+     * build runs are counted once, either by the build or live.
+     */
+    public void build() {
+        ReportDAO reportDAO = new ReportDAO();
+        int upToOrderId;
+        lock.writeLock().lock();
+        try {
+            upToOrderId = reportDAO.getMaxOrderId();
+            builtUpToOrderId = upToOrderId;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        
+        List<int[]> chunk = new ArrayList<>(BUILD_CHUNK_SIZE);
+        reportDAO.scanBaskets(0, upToOrderId, (orderId, bookIds) -> {
+            chunk.add(bookIds);
+            if (chunk.size() == BUILD_CHUNK_SIZE) {
+                addBaskets(chunk);
+                chunk.clear();
+            }
+        });
+        addBaskets(chunk);
+    }
+    
+    /**
+     * Count a newly placed order
+     */
+    public void recordOrder(Order order) {
+        List<OrderItem> items = order.getOrderItems();
+        int[] bookIds = new int[items.size()];
+        for (int i = 0; i < bookIds.length; i++) {
+            bookIds[i] = items.get(i).getBookId();
+        }
+        
+        lock.writeLock().lock();
+        try {
+            if (order.getId() > builtUpToOrderId) {
+                addBasket(bookIds, 0, 1);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Add orders given as arrays of distinct book IDs, updating shards in parallel
+     */
+    public void addBaskets(List<int[]> baskets) {
+        if (baskets.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            // Each task owns the shards congruent to its number, so no two tasks touch the same shard
+            int tasks = Math.min(SHARDS, ForkJoinPool.getCommonPoolParallelism() + 1);
+            IntStream.range(0, tasks).parallel().forEach(task -> {
+                for (int[] basket : baskets) {
+                    addBasket(basket, task, tasks);
+                }
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Get up to k books most often bought together with the given book,
+     * most frequent first
+     */
+    public int[] alsoBought(int bookId, int k) {
+        long[] entries;
+        lock.readLock().lock();
+        try {
+            entries = shards[shardOf(bookId)].copy(bookId);
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (entries == null) {
+            return new int[0];
+        }
+        
+        Arrays.sort(entries); // Count is in the high bits: ascending by count
+        int n = Math.min(k, entries.length);
+        int[] result = new int[n];
+        for (int i = 0; i < n; i++) {
+            result[i] = (int) entries[entries.length - 1 - i];
+        }
+        return result;
+    }
+    
+    /**
+     * Count every pair in the basket, for books in shards where shard % tasks == task
+     */
+    private void addBasket(int[] bookIds, int task, int tasks) {
+        int n = Math.min(bookIds.length, MAX_BASKET_SIZE);
+        for (int i = 0; i < n; i++) {
+            int shard = shardOf(bookIds[i]);
+            if (shard % tasks != task) {
+                continue;
+            }
+            for (int j = 0; j < n; j++) {
+                if (i != j && bookIds[i] != bookIds[j]) {
+                    shards[shard].add(bookIds[i], bookIds[j]);
+                }
+            }
+        }
+    }
+    
+    private static int shardOf(int bookId) {
+        int hash = bookId * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & (SHARDS - 1);
+    }
+    
+    /**
+     * Counters of the books in one shard. Modified by one thread at a time
+     * (under the write lock, by the shard's build task).
+     */
+    private final class Shard {
+        private final IntIntMap rows = new IntIntMap(256);
+        private long[][] counters = new long[256][];
+        private int[] sizes = new int[256];
+        private int rowCount;
+        
+        void add(int bookId, int otherId) {
+            int row = rows.get(bookId);
+            if (row == IntIntMap.MISSING) {
+                row = newRow(bookId);
+            }
+            long[] entries = counters[row];
+            int size = sizes[row];
+            
+            for (int i = 0; i < size; i++) {
+                if ((int) entries[i] == otherId) {
+                    entries[i] += 1L << 32;
+                    return;
+                }
+            }
+            
+            if (size < entries.length) {
+                entries[size] = (1L << 32) | (otherId & 0xFFFFFFFFL);
+                sizes[row] = size + 1;
+            } else if (entries.length < maxNeighbors) {
+                entries = Arrays.copyOf(entries, Math.min(entries.length * 2, maxNeighbors));
+                entries[size] = (1L << 32) | (otherId & 0xFFFFFFFFL);
+                counters[row] = entries;
+                sizes[row] = size + 1;
+            } else {
+                // Full: the new pair cancels one count of every neighbor
+                int kept = 0;
+                for (int i = 0; i < size; i++) {
+                    long entry = entries[i] - (1L << 32);
+                    if ((entry >>> 32) > 0) {
+                        entries[kept++] = entry;
+                    }
+                }
+                sizes[row] = kept;
+            }
+        }
+        
+        long[] copy(int bookId) {
+            int row = rows.get(bookId);
+            return row == IntIntMap.MISSING ? null : Arrays.copyOf(counters[row], sizes[row]);
+        }
+        
+        private int newRow(int bookId) {
+            if (rowCount == sizes.length) {
+                counters = Arrays.copyOf(counters, rowCount * 2);
+                sizes = Arrays.copyOf(sizes, rowCount * 2);
+            }
+            int row = rowCount++;
+            counters[row] = new long[Math.min(4, maxNeighbors)];
+            rows.put(bookId, row);
+            return row;
+        }
+    }
+}
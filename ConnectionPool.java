@@ -0,0 +1,541 @@
+package com.bookstore.database;
+
+import com.bookstore.tracing.Span;
+import com.bookstore.tracing.Tracer;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded pool of JDBC connections
+ *
+ * borrow() hands out a proxy whose close() puts the physical connection back
+ * in the pool, so the DAOs keep using try-with-resources unchanged. Idle
+ * connections are reused most recently returned first. One that sat idle
+ * longer than VALIDATE_AFTER_MILLIS is checked with isValid() and replaced if
+ * the server dropped it. Connections come back with auto-commit on; anything
+ * left uncommitted is rolled back.
+ *
+ * The limits can be changed at runtime through JMX. While the slow-query log
+ * or the JFR statement event is on, statements from new borrows are wrapped:
+ * executions over the slow-query threshold are printed with their SQL, and
+ * each execution is recorded as a JFR event with its row count. While both
+ * are off, statements are not wrapped at all.
+ */
+class ConnectionPool implements ConnectionPoolMXBean {
+    private static final long VALIDATE_AFTER_MILLIS = 30_000;
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+    private static final Class<?>[] CONNECTION_TYPE = {Connection.class};
+    private static final Class<?>[] RESULT_SET_TYPE = {ResultSet.class};
+    
+    private final String url;
+    private final String username;
+    private final String password;
+    private final long maxWaitMillis;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    private final Deque<IdleConnection> idle = new ArrayDeque<>();
+    private int maxActive;
+    private int maxIdle;
+    private int open; // Physical connections, borrowed or idle
+    private int waiters;
+    
+    private final LongAdder borrows = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder reconnects = new LongAdder();
+    private final LongAdder slowQueries = new LongAdder();
+    private volatile boolean slowQueryLogging;
+    private volatile long slowQueryMillis;
+    
+    ConnectionPool(String url, String username, String password, int maxActive, int maxIdle, long maxWaitMillis,
+                   boolean slowQueryLogging, long slowQueryMillis) {
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.maxWaitMillis = maxWaitMillis;
+        this.slowQueryLogging = slowQueryLogging;
+        this.slowQueryMillis = slowQueryMillis;
+        setMaxActive(maxActive);
+        setMaxIdle(maxIdle);
+    }
+    
+    /**
+     * Get a connection, waiting up to maxWaitMillis when all are in use.
+     * Closing the returned connection gives it back to the pool.
+     */
+    Connection borrow() throws SQLException {
+        borrows.increment();
+        IdleConnection reused = null;
+        lock.lock();
+        try {
+            long remaining = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+            while (idle.isEmpty() && open >= maxActive) {
+                if (remaining <= 0) {
+                    timeouts.increment();
+                    throw new SQLException("Timed out after " + maxWaitMillis + " ms waiting for a database connection");
+                }
+                waiters++;
+                try {
+                    remaining = released.awaitNanos(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("Interrupted while waiting for a database connection");
+                } finally {
+                    waiters--;
+                }
+            }
+            if (idle.isEmpty()) {
+                open++; // Reserve the slot; the connection is opened outside the lock
+            } else {
+                reused = idle.pollFirst();
+            }
+        } finally {
+            lock.unlock();
+        }
+        
+        Connection physical = reused == null ? openConnection() : validate(reused);
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), CONNECTION_TYPE,
+                                                   new PooledConnection(physical));
+    }
+    
+    /**
+     * Open connections in parallel on the executor until count are idle (used
+     * to warm the pool up). Each runs one query, so the driver's statement and
+     * result set classes are loaded before the first real query.
+     */
+    CompletableFuture<Void> fill(int count, Executor executor) {
+        List<CompletableFuture<Connection>> opening = new ArrayList<>();
+        for (int i = 0; i < Math.min(count, maxActive); i++) {
+            opening.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    Connection connection = borrow();
+                    try (Statement stmt = connection.createStatement();
+                         ResultSet rs = stmt.executeQuery("SELECT 1")) {
+                        rs.next();
+                    } catch (SQLException e) {
+                        connection.close();
+                        throw e;
+                    }
+                    return connection;
+                } catch (SQLException e) {
+                    throw new CompletionException(e);
+                }
+            }, executor));
+        }
+        // Hold every connection until all are open, so each borrow opens a new one
+        return CompletableFuture.allOf(opening.toArray(new CompletableFuture<?>[0]))
+            .whenComplete((ignored, error) -> {
+                for (CompletableFuture<Connection> future : opening) {
+                    if (!future.isCompletedExceptionally()) {
+                        closeQuietly(future.join()); // Back to the pool
+                    }
+                }
+            });
+    }
+    
+    private Connection openConnection() throws SQLException {
+        try {
+            return DriverManager.getConnection(url, username, password);
+        } catch (SQLException | RuntimeException e) {
+            lock.lock();
+            try {
+                open--;
+                released.signal();
+            } finally {
+                lock.unlock();
+            }
+            throw e;
+        }
+    }
+    
+    private Connection validate(IdleConnection candidate) throws SQLException {
+        if (System.currentTimeMillis() - candidate.idleSince < VALIDATE_AFTER_MILLIS) {
+            return candidate.connection;
+        }
+        boolean valid;
+        try {
+            valid = candidate.connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            valid = false;
+        }
+        if (valid) {
+            return candidate.connection;
+        }
+        reconnects.increment();
+        closeQuietly(candidate.connection);
+        return openConnection(); // Keeps the slot of the dead connection
+    }
+    
+    private void giveBack(Connection physical) {
+        boolean healthy;
+        try {
+            if (!physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            healthy = !physical.isClosed();
+        } catch (SQLException e) {
+            healthy = false;
+        }
+        if (!healthy) {
+            reconnects.increment();
+        }
+        
+        boolean keep = false;
+        lock.lock();
+        try {
+            keep = healthy && open <= maxActive && idle.size() < maxIdle;
+            if (keep) {
+                idle.addFirst(new IdleConnection(physical, System.currentTimeMillis()));
+            } else {
+                open--;
+            }
+            released.signal();
+        } finally {
+            lock.unlock();
+        }
+        if (!keep) {
+            closeQuietly(physical);
+        }
+    }
+    
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            // Already broken; nothing else to release
+        }
+    }
+    
+    @Override
+    public int getActiveConnections() {
+        lock.lock();
+        try {
+            return open - idle.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    @Override
+    public int getIdleConnections() {
+        lock.lock();
+        try {
+            return idle.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    @Override
+    public int getWaiters() {
+        lock.lock();
+        try {
+            return waiters;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    @Override
+    public int getMaxActive() {
+        lock.lock();
+        try {
+            return maxActive;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    @Override
+    public void setMaxActive(int maxActive) {
+        if (maxActive <= 0) {
+            throw new IllegalArgumentException("Pool size must be positive");
+        }
+        List<Connection> surplus = new ArrayList<>();
+        lock.lock();
+        try {
+            this.maxActive = maxActive;
+            while (open > maxActive && !idle.isEmpty()) {
+                surplus.add(idle.pollLast().connection);
+                open--;
+            }
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        surplus.forEach(ConnectionPool::closeQuietly);
+    }
+    
+    @Override
+    public int getMaxIdle() {
+        lock.lock();
+        try {
+            return maxIdle;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    @Override
+    public void setMaxIdle(int maxIdle) {
+        if (maxIdle < 0) {
+            throw new IllegalArgumentException("Idle limit cannot be negative");
+        }
+        List<Connection> surplus = new ArrayList<>();
+        lock.lock();
+        try {
+            this.maxIdle = maxIdle;
+            while (idle.size() > maxIdle) {
+                surplus.add(idle.pollLast().connection);
+                open--;
+            }
+        } finally {
+            lock.unlock();
+        }
+        surplus.forEach(ConnectionPool::closeQuietly);
+    }
+    
+    @Override
+    public long getBorrowCount() {
+        return borrows.sum();
+    }
+    
+    @Override
+    public long getTimeoutCount() {
+        return timeouts.sum();
+    }
+    
+    @Override
+    public long getReconnectCount() {
+        return reconnects.sum();
+    }
+    
+    @Override
+    public boolean isSlowQueryLogging() {
+        return slowQueryLogging;
+    }
+    
+    @Override
+    public void setSlowQueryLogging(boolean enabled) {
+        slowQueryLogging = enabled;
+    }
+    
+    @Override
+    public long getSlowQueryMillis() {
+        return slowQueryMillis;
+    }
+    
+    @Override
+    public void setSlowQueryMillis(long millis) {
+        if (millis < 0) {
+            throw new IllegalArgumentException("Threshold cannot be negative");
+        }
+        slowQueryMillis = millis;
+    }
+    
+    @Override
+    public long getSlowQueryCount() {
+        return slowQueries.sum();
+    }
+    
+    @Override
+    public void closeIdleConnections() {
+        List<Connection> closing = new ArrayList<>();
+        lock.lock();
+        try {
+            while (!idle.isEmpty()) {
+                closing.add(idle.pollFirst().connection);
+                open--;
+            }
+        } finally {
+            lock.unlock();
+        }
+        closing.forEach(ConnectionPool::closeQuietly);
+    }
+    
+    private static final class IdleConnection {
+        final Connection connection;
+        final long idleSince;
+        
+        IdleConnection(Connection connection, long idleSince) {
+            this.connection = connection;
+            this.idleSince = idleSince;
+        }
+    }
+    
+    /**
+     * Connection handed to a caller: forwards everything to the physical
+     * connection except close(), which returns it to the pool
+     */
+    private final class PooledConnection implements InvocationHandler {
+        private final boolean watched = slowQueryLogging || Tracer.get().isStatementTracingEnabled();
+        private Connection physical;
+        
+        PooledConnection(Connection physical) {
+            this.physical = physical;
+        }
+        
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (physical != null) {
+                        Connection returned = physical;
+                        physical = null;
+                        giveBack(returned);
+                    }
+                    return null;
+                case "isClosed":
+                    return physical == null;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled " + physical;
+                default:
+                    break;
+            }
+            if (physical == null) {
+                throw new SQLException("Connection has been returned to the pool");
+            }
+            Object result = forward(physical, method, args);
+            if (watched && result instanceof Statement) {
+                Statement statement = (Statement) result;
+                Class<?> type = statement instanceof CallableStatement ? CallableStatement.class
+                    : statement instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+                String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+                return Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[] {type},
+                                              new WatchedStatement(statement, sql, proxy));
+            }
+            return result;
+        }
+    }
+    
+    /**
+     * Statement handed to a caller while statements are being watched: times
+     * each execution for the slow-query log and records it as a JFR event.
+     * A query's event covers reading its result set and ends when the result
+     * set or statement is closed.
+     */
+    private final class WatchedStatement implements InvocationHandler {
+        private final Statement statement;
+        private final String sql;
+        private final Object connection;
+        private Span query;
+        private long queryRows;
+        
+        WatchedStatement(Statement statement, String sql, Object connection) {
+            this.statement = statement;
+            this.sql = sql;
+            this.connection = connection;
+        }
+        
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("getConnection")) {
+                return connection;
+            }
+            if (name.equals("close")) {
+                endQuery();
+            }
+            if (!name.startsWith("execute")) {
+                return forward(statement, method, args);
+            }
+            
+            String text = sql != null ? sql : args != null && args.length > 0 ? String.valueOf(args[0]) : null;
+            endQuery(); // A new execution closes the previous result set
+            Span span = Tracer.get().statement(text);
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = forward(statement, method, args);
+            } catch (Throwable e) {
+                span.close();
+                throw e;
+            } finally {
+                logIfSlow(start, text);
+            }
+            
+            if (result instanceof ResultSet && span != Span.NONE) {
+                query = span;
+                queryRows = 0;
+                return Proxy.newProxyInstance(ResultSet.class.getClassLoader(), RESULT_SET_TYPE,
+                                              (rs, rsMethod, rsArgs) -> {
+                    Object value = forward(result, rsMethod, rsArgs);
+                    if (rsMethod.getName().equals("next") && Boolean.TRUE.equals(value)) {
+                        queryRows++;
+                    } else if (rsMethod.getName().equals("close")) {
+                        endQuery();
+                    }
+                    return value;
+                });
+            }
+            span.setRows(updateCount(result));
+            span.close();
+            return result;
+        }
+        
+        private void endQuery() {
+            if (query != null) {
+                query.setRows(queryRows);
+                query.close();
+                query = null;
+            }
+        }
+    }
+    
+    private void logIfSlow(long startNanos, String sql) {
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        if (slowQueryLogging && millis >= slowQueryMillis) {
+            slowQueries.increment();
+            System.err.println("Slow query (" + millis + " ms): " + sql);
+        }
+    }
+    
+    private static long updateCount(Object result) {
+        if (result instanceof Number) {
+            return ((Number) result).longValue();
+        }
+        long total = 0;
+        if (result instanceof int[]) {
+            for (int count : (int[]) result) {
+                total += Math.max(count, 0);
+            }
+        } else if (result instanceof long[]) {
+            for (long count : (long[]) result) {
+                total += Math.max(count, 0);
+            }
+        }
+        return total;
+    }
+    
+    private static Object forward(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.bookstore.database;
+
+/**
+ * JMX view of the connection pool (com.bookstore:type=ConnectionPool)
+ */
+public interface ConnectionPoolMXBean {
+    
+    /**
+     * Connections currently borrowed by callers
+     */
+    int getActiveConnections();
+    
+    /**
+     * Open connections waiting in the pool
+     */
+    int getIdleConnections();
+    
+    /**
+     * Threads waiting for a connection because the pool is at its maximum
+     */
+    int getWaiters();
+    
+    int getMaxActive();
+    
+    /**
+     * Change the maximum number of open connections; surplus connections
+     * are closed as they are returned
+     */
+    void setMaxActive(int maxActive);
+    
+    int getMaxIdle();
+    
+    void setMaxIdle(int maxIdle);
+    
+    /**
+     * Connections handed out since startup
+     */
+    long getBorrowCount();
+    
+    /**
+     * Borrows that gave up after waiting db.pool.maxWait milliseconds
+     */
+    long getTimeoutCount();
+    
+    /**
+     * Connections replaced because the server closed them or they failed
+     * validation
+     */
+    long getReconnectCount();
+    
+    boolean isSlowQueryLogging();
+    
+    /**
+     * Log statements that run longer than the slow-query threshold
+     */
+    void setSlowQueryLogging(boolean enabled);
+    
+    long getSlowQueryMillis();
+    
+    void setSlowQueryMillis(long millis);
+    
+    /**
+     * Statements logged as slow since startup
+     */
+    long getSlowQueryCount();
+    
+    /**
+     * Close every idle connection (new ones are opened on demand)
+     */
+    void closeIdleConnections();
+}
@@ -0,0 +1,13 @@
+package com.bookstore.dao;
+
+/**
+ * Thrown when a query fails for a reason other than the data (no connection,
+ * a lost connection, a server error), where answering false or null would
+ * read as "not found"
+ */
+public class DataAccessException extends RuntimeException {
+    
+    public DataAccessException(String message, Throwable cause) {
+        super(message + ": " + cause.getMessage(), cause);
+    }
+}
@@ -1,30 +1,49 @@
 package com.bookstore.database;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.util.Properties;
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.management.JMException;
+import javax.management.ObjectName;
 
 /**
  * Database connection utility class
  * Handles database connections and configuration
+ * 
+ * Every call to getConnection() hands out a dedicated connection from a pool
+ * (sized by the db.pool.* settings) which the caller closes to return it (the
+ * DAOs use try-with-resources), so DAOs and services can be used from several
+ * threads at the same time. The pool is registered with JMX as
+ * com.bookstore:type=ConnectionPool.
+ * 
+ * getInstance() only reads the configuration. The JDBC driver is loaded and
+ * connections are opened on first use, or ahead of time in the background
+ * by warmUp(), so a slow or unreachable server does not hold up startup.
  */
 public class DatabaseConnection {
     private static final String CONFIG_FILE = "database.properties";
     private static DatabaseConnection instance;
-    private Connection connection;
     
     // Default database configuration
     private String url = "jdbc:mysql://localhost:3306/bookstore_db";
     private String username = "root";
     private String password = "password";
     private String driver = "com.mysql.cj.jdbc.Driver";
+    private Properties settings = new Properties();
+    private ConnectionPool pool;
+    private volatile boolean driverLoaded;
+    private CompletableFuture<Void> warmUp;
     
     private DatabaseConnection() {
         loadConfiguration();
-        initializeConnection();
+        createPool();
     }
     
     /**
@@ -38,12 +57,26 @@ public class DatabaseConnection {
     }
     
     /**
-     * Load database configuration from properties file
+     * Load database configuration from properties file. System properties
+     * with the same names (-Ddb.url=...) take precedence, which lets tools and
+     * benchmarks point the DAOs at another database without editing the file.
      */
     private void loadConfiguration() {
+        loadConfigurationFile();
+        url = System.getProperty("db.url", url);
+        username = System.getProperty("db.username", username);
+        password = System.getProperty("db.password", password);
+        driver = System.getProperty("db.driver", driver);
+    }
+    
+    private void loadConfigurationFile() {
+        if (System.getProperty("db.url") != null && !new File(CONFIG_FILE).exists()) {
+            return; // Configured entirely through system properties
+        }
         Properties props = new Properties();
         try (FileInputStream fis = new FileInputStream(CONFIG_FILE)) {
             props.load(fis);
+            settings = props;
             url = props.getProperty("db.url", url);
             username = props.getProperty("db.username", username);
             password = props.getProperty("db.password", password);
@@ -59,60 +92,98 @@ public class DatabaseConnection {
     }
     
     /**
-     * Initialize database connection
+     * Load the JDBC driver class (once)
      */
-    private void initializeConnection() {
+    private synchronized void loadDriver() {
+        if (driverLoaded) {
+            return;
+        }
         try {
             Class.forName(driver);
-            connection = DriverManager.getConnection(url, username, password);
-            System.out.println("Database connection established successfully!");
         } catch (ClassNotFoundException e) {
             System.err.println("MySQL JDBC Driver not found!");
             System.err.println("Please add MySQL JDBC driver to your classpath.");
             e.printStackTrace();
-        } catch (SQLException e) {
-            System.err.println("Failed to connect to database!");
-            System.err.println("Please check your database configuration and ensure MySQL is running.");
-            e.printStackTrace();
         }
+        driverLoaded = true;
     }
     
     /**
-     * Get database connection
+     * Create the connection pool and register it with JMX
      */
-    public Connection getConnection() {
+    private void createPool() {
+        pool = new ConnectionPool(url, username, password,
+                                  intSetting("db.pool.maxActive", 20),
+                                  intSetting("db.pool.maxIdle", 10),
+                                  intSetting("db.pool.maxWait", 30_000),
+                                  Boolean.parseBoolean(setting("db.slowQuery.log", "false")),
+                                  intSetting("db.slowQuery.millis", 200));
         try {
-            if (connection == null || connection.isClosed()) {
-                initializeConnection();
-            }
-        } catch (SQLException e) {
-            System.err.println("Error checking connection status: " + e.getMessage());
-            initializeConnection();
+            ManagementFactory.getPlatformMBeanServer()
+                .registerMBean(pool, new ObjectName("com.bookstore:type=ConnectionPool"));
+        } catch (JMException e) {
+            System.err.println("Could not register connection pool MBean: " + e.getMessage());
+        }
+    }
+    
+    private String setting(String name, String defaultValue) {
+        return System.getProperty(name, settings.getProperty(name, defaultValue));
+    }
+    
+    private int intSetting(String name, int defaultValue) {
+        String value = setting(name, null);
+        try {
+            return value == null || value.trim().isEmpty() ? defaultValue : Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid " + name + " setting: " + value);
+            return defaultValue;
         }
-        return connection;
     }
     
     /**
-     * Close database connection
+     * Load the driver and open the initial connections (db.pool.initialSize)
+     * in parallel on background threads. Later calls return the same future;
+     * getConnection() does not wait for it.
      */
-    public void closeConnection() {
-        try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
-                System.out.println("Database connection closed successfully!");
-            }
-        } catch (SQLException e) {
-            System.err.println("Error closing database connection: " + e.getMessage());
+    public synchronized CompletableFuture<Void> warmUp() {
+        if (warmUp == null) {
+            int initialSize = intSetting("db.pool.initialSize", 0);
+            ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, initialSize), runnable -> {
+                Thread thread = new Thread(runnable, "db-warmup");
+                thread.setDaemon(true);
+                return thread;
+            });
+            warmUp = CompletableFuture.runAsync(this::loadDriver, executor)
+                .thenCompose(ignored -> pool.fill(initialSize, executor))
+                .whenComplete((ignored, error) -> {
+                    executor.shutdown();
+                    if (error != null) {
+                        Throwable cause = error.getCause() != null ? error.getCause() : error;
+                        System.err.println("Could not open initial database connections: " + cause.getMessage());
+                    }
+                });
+        }
+        return warmUp;
+    }
+    
+    /**
+     * Get a pooled database connection; the caller is responsible for closing
+     * it. Throws SQLException if no connection can be opened (never returns
+     * null), so DAOs report an unreachable database like any other failure.
+     */
+    public Connection getConnection() throws SQLException {
+        if (!driverLoaded) {
+            loadDriver();
         }
+        return pool.borrow();
     }
     
     /**
      * Test database connection
      */
     public boolean testConnection() {
-        try {
-            Connection testConn = getConnection();
-            return testConn != null && !testConn.isClosed();
+        try (Connection testConn = getConnection()) {
+            return !testConn.isClosed();
         } catch (SQLException e) {
             System.err.println("Database connection test failed: " + e.getMessage());
             return false;
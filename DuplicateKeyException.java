@@ -0,0 +1,50 @@
+package com.bookstore.dao;
+
+import java.sql.SQLException;
+
+/**
+ * Thrown when an insert or update violates a UNIQUE index; carries the name
+ * of the index (for example "username") so callers can report which value
+ * is taken
+ */
+public class DuplicateKeyException extends RuntimeException {
+    // MySQL's ER_DUP_ENTRY
+    private static final int DUPLICATE_ENTRY = 1062;
+    private final String key;
+    
+    public DuplicateKeyException(String key, Throwable cause) {
+        super("Duplicate value for key " + key, cause);
+        this.key = key;
+    }
+    
+    /**
+     * Get the name of the violated index, without any table prefix
+     */
+    public String getKey() {
+        return key;
+    }
+    
+    /**
+     * Check whether an exception is a duplicate-key violation
+     */
+    static boolean isDuplicateKey(SQLException e) {
+        return e.getErrorCode() == DUPLICATE_ENTRY;
+    }
+    
+    /**
+     * Wrap a duplicate-key violation, reading the index name from a message
+     * such as "Duplicate entry 'bob' for key 'users.username'"
+     */
+    static DuplicateKeyException from(SQLException e) {
+        String message = e.getMessage() == null ? "" : e.getMessage();
+        int start = message.lastIndexOf("for key '");
+        String key = "";
+        if (start >= 0) {
+            start += "for key '".length();
+            int end = message.indexOf('\'', start);
+            key = message.substring(start, end < 0 ? message.length() : end);
+            key = key.substring(key.lastIndexOf('.') + 1);
+        }
+        return new DuplicateKeyException(key, e);
+    }
+}
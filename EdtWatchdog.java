@@ -0,0 +1,282 @@
+package com.bookstore.gui;
+
+import java.awt.AWTEvent;
+import java.awt.EventQueue;
+import java.awt.Toolkit;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watchdog for stalls of the event dispatch thread
+ *
+ * Installs an event queue that notes when the EDT takes an event and when it
+ * comes back for the next one, so the EDT counts as busy from taking an event
+ * until it asks for another. Waiting inside a modal dialog's event loop is
+ * not busy time. A sampler thread checks the EDT every few milliseconds.
+ * Once the EDT has been busy longer than the stall threshold, it samples the
+ * EDT stack on every check until the EDT is free again.
+ *
+ * Samples are grouped by call site: the innermost application frame, which
+ * is usually the blocking call (e.g. BookDAO.getAllBooks), and the innermost
+ * gui frame that led to it (e.g. BookStoreMainWindow.loadBooks). Each stall
+ * is logged to stderr when it ends. On exit the report of the top call sites
+ * is written to a file.
+ *
+ * System properties:
+ *   bookstore.edt.watchdog=false   do not install the watchdog
+ *   bookstore.edt.stallMillis=100  busy time that counts as a stall
+ *   bookstore.edt.report=edt-stalls.txt
+ */
+public class EdtWatchdog {
+    private static final String APP_PACKAGE = "com.bookstore.";
+    private static final String GUI_PACKAGE = "com.bookstore.gui.";
+    // Plumbing between the DAOs and JDBC; the DAO frame above it is the useful one
+    private static final String[] INFRASTRUCTURE_PACKAGES = {"com.bookstore.database.", "com.bookstore.tracing."};
+    private static final int REPORTED_SITES = 20;
+    private static final int REPORTED_FRAMES = 12;
+    private static EdtWatchdog instance;
+    
+    private final long stallNanos;
+    private final long sampleIntervalMillis;
+    private volatile Thread edt;
+    // System.nanoTime() when the EDT took its current event; 0 while it waits for one
+    private volatile long busySince;
+    
+    // Guarded by this
+    private final Map<String, CallSite> callSites = new HashMap<>();
+    private final Map<String, Integer> currentStallSites = new HashMap<>();
+    private long stalls;
+    private long totalStallNanos;
+    private long longestStallNanos;
+    
+    EdtWatchdog(long stallMillis) {
+        this.stallNanos = TimeUnit.MILLISECONDS.toNanos(stallMillis);
+        this.sampleIntervalMillis = Math.max(5, Math.min(50, stallMillis / 4));
+    }
+    
+    /**
+     * Install the watchdog on the system event queue (once), unless
+     * bookstore.edt.watchdog is false
+     */
+    public static synchronized void install() {
+        if (instance != null || !Boolean.parseBoolean(System.getProperty("bookstore.edt.watchdog", "true"))) {
+            return;
+        }
+        instance = new EdtWatchdog(Long.getLong("bookstore.edt.stallMillis", 100));
+        Toolkit.getDefaultToolkit().getSystemEventQueue().push(instance.new WatchedQueue());
+        
+        Thread sampler = new Thread(instance::sample, "edt-watchdog");
+        sampler.setDaemon(true);
+        sampler.start();
+        
+        String reportFile = System.getProperty("bookstore.edt.report", "edt-stalls.txt");
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> instance.writeReport(reportFile), "edt-watchdog-report"));
+    }
+    
+    /**
+     * Get the installed watchdog, or null if it is not installed
+     */
+    public static synchronized EdtWatchdog getInstance() {
+        return instance;
+    }
+    
+    /**
+     * Event queue that marks the EDT idle while it waits for an event and
+     * busy from the moment it takes one
+     */
+    private final class WatchedQueue extends EventQueue {
+        
+        @Override
+        public AWTEvent getNextEvent() throws InterruptedException {
+            idle();
+            try {
+                return super.getNextEvent();
+            } finally {
+                busySince = System.nanoTime();
+            }
+        }
+    }
+    
+    private void idle() {
+        Thread current = Thread.currentThread();
+        if (edt != current) {
+            edt = current; // The EDT is replaced after an uncaught exception
+        }
+        long since = busySince;
+        busySince = 0;
+        if (since != 0) {
+            long busy = System.nanoTime() - since;
+            if (busy >= stallNanos) {
+                stallEnded(busy);
+            }
+        }
+    }
+    
+    private void sample() {
+        while (true) {
+            try {
+                Thread.sleep(sampleIntervalMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+            long since = busySince;
+            Thread thread = edt;
+            if (since == 0 || thread == null || System.nanoTime() - since < stallNanos) {
+                continue;
+            }
+            StackTraceElement[] stack = thread.getStackTrace();
+            if (busySince == since) { // Still the same busy stretch
+                record(stack);
+            }
+        }
+    }
+    
+    private synchronized void record(StackTraceElement[] stack) {
+        String site = callSite(stack);
+        CallSite entry = callSites.get(site);
+        if (entry == null) {
+            entry = new CallSite(site, stack);
+            callSites.put(site, entry);
+        }
+        entry.samples++;
+        currentStallSites.merge(site, 1, Integer::sum);
+    }
+    
+    private synchronized void stallEnded(long busyNanos) {
+        stalls++;
+        totalStallNanos += busyNanos;
+        longestStallNanos = Math.max(longestStallNanos, busyNanos);
+        
+        String site = null;
+        int samples = 0;
+        for (Map.Entry<String, Integer> entry : currentStallSites.entrySet()) {
+            if (entry.getValue() > samples) {
+                site = entry.getKey();
+                samples = entry.getValue();
+            }
+        }
+        currentStallSites.clear();
+        System.err.println("EDT blocked for " + TimeUnit.NANOSECONDS.toMillis(busyNanos) + " ms"
+                           + (site == null ? "" : " in " + site));
+    }
+    
+    /**
+     * Name the call site of a sample: the blocking application frame and the
+     * gui frame that called it
+     */
+    static String callSite(StackTraceElement[] stack) {
+        StackTraceElement blocking = null;
+        StackTraceElement gui = null;
+        for (StackTraceElement frame : stack) {
+            String className = frame.getClassName();
+            if (!className.startsWith(APP_PACKAGE) || isInfrastructure(className)
+                || className.startsWith(EdtWatchdog.class.getName())) {
+                continue;
+            }
+            if (blocking == null) {
+                blocking = frame;
+            }
+            if (className.startsWith(GUI_PACKAGE)) {
+                gui = frame;
+                break;
+            }
+        }
+        if (blocking == null) {
+            return stack.length == 0 ? "(unknown)" : shortName(stack[0]);
+        }
+        if (gui == null || gui == blocking) {
+            return shortName(blocking);
+        }
+        return shortName(blocking) + " <- " + shortName(gui);
+    }
+    
+    private static boolean isInfrastructure(String className) {
+        for (String prefix : INFRASTRUCTURE_PACKAGES) {
+            if (className.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static String shortName(StackTraceElement frame) {
+        String className = frame.getClassName();
+        return className.substring(className.lastIndexOf('.') + 1) + "." + frame.getMethodName();
+    }
+    
+    /**
+     * Get the report of stalls and their top call sites so far
+     */
+    public synchronized String getReport() {
+        List<CallSite> sites = new ArrayList<>(callSites.values());
+        sites.sort((a, b) -> Long.compare(b.samples, a.samples));
+        
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("EDT stall report (threshold %d ms, sampled every %d ms)%n",
+                                    TimeUnit.NANOSECONDS.toMillis(stallNanos), sampleIntervalMillis));
+        report.append(String.format("Stalls: %d, total %d ms, longest %d ms%n%n", stalls,
+                                    TimeUnit.NANOSECONDS.toMillis(totalStallNanos),
+                                    TimeUnit.NANOSECONDS.toMillis(longestStallNanos)));
+        if (sites.isEmpty()) {
+            return report.toString();
+        }
+        
+        report.append(String.format("%8s  %8s  %s%n", "samples", "~ms", "call site"));
+        for (CallSite site : sites.subList(0, Math.min(REPORTED_SITES, sites.size()))) {
+            report.append(String.format("%8d  %8d  %s%n", site.samples, site.samples * sampleIntervalMillis, site.name));
+        }
+        for (CallSite site : sites.subList(0, Math.min(REPORTED_SITES, sites.size()))) {
+            report.append(String.format("%n%s%n", site.name));
+            for (int i = 0; i < Math.min(REPORTED_FRAMES, site.stack.length); i++) {
+                report.append("    at ").append(site.stack[i]).append(System.lineSeparator());
+            }
+        }
+        return report.toString();
+    }
+    
+    /**
+     * Forget all stalls and samples
+     */
+    public synchronized void reset() {
+        callSites.clear();
+        currentStallSites.clear();
+        stalls = 0;
+        totalStallNanos = 0;
+        longestStallNanos = 0;
+    }
+    
+    private void writeReport(String fileName) {
+        synchronized (this) {
+            if (stalls == 0) {
+                return;
+            }
+        }
+        try (Writer out = new FileWriter(fileName)) {
+            out.write(getReport());
+            System.err.println("EDT stall report written to " + fileName);
+        } catch (IOException e) {
+            System.err.println("Could not write EDT stall report: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Samples that share a call site, with the stack of the first one
+     */
+    private static final class CallSite {
+        final String name;
+        final StackTraceElement[] stack;
+        long samples;
+        
+        CallSite(String name, StackTraceElement[] stack) {
+            this.name = name;
+            this.stack = stack;
+        }
+    }
+}
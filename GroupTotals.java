@@ -0,0 +1,123 @@
+package com.bookstore.analytics;
+
+/**
+ * Open-addressing map from an int group key to line, unit and revenue sums
+ *
+ * Keys and sums live in parallel primitive arrays, so adding a row neither
+ * boxes nor allocates. Not thread-safe; each scan task fills its own.
+ */
+class GroupTotals {
+    private int[] keys;
+    private boolean[] used;
+    private long[] lines;
+    private long[] units;
+    private long[] revenue;
+    private int size;
+    
+    GroupTotals(int expectedGroups) {
+        int capacity = Integer.highestOneBit(Math.max(expectedGroups, 2) * 2 - 1) << 1;
+        allocate(capacity);
+    }
+    
+    void add(int key, long quantity, long revenueCents) {
+        int slot = slotFor(key);
+        lines[slot]++;
+        units[slot] += quantity;
+        revenue[slot] += revenueCents;
+    }
+    
+    void addAll(GroupTotals other) {
+        for (int slot = other.firstSlot(); slot >= 0; slot = other.nextSlot(slot)) {
+            int target = slotFor(other.keys[slot]);
+            lines[target] += other.lines[slot];
+            units[target] += other.units[slot];
+            revenue[target] += other.revenue[slot];
+        }
+    }
+    
+    int size() {
+        return size;
+    }
+    
+    /**
+     * First occupied slot, or -1; iterate with nextSlot()
+     */
+    int firstSlot() {
+        return nextSlot(-1);
+    }
+    
+    int nextSlot(int slot) {
+        for (int i = slot + 1; i < used.length; i++) {
+            if (used[i]) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    int keyAt(int slot) {
+        return keys[slot];
+    }
+    
+    long linesAt(int slot) {
+        return lines[slot];
+    }
+    
+    long unitsAt(int slot) {
+        return units[slot];
+    }
+    
+    long revenueAt(int slot) {
+        return revenue[slot];
+    }
+    
+    private int slotFor(int key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (used[slot]) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (size * 2 >= keys.length) {
+            rehash();
+            return slotFor(key);
+        }
+        used[slot] = true;
+        keys[slot] = key;
+        size++;
+        return slot;
+    }
+    
+    private void rehash() {
+        int[] oldKeys = keys;
+        boolean[] oldUsed = used;
+        long[] oldLines = lines;
+        long[] oldUnits = units;
+        long[] oldRevenue = revenue;
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                int slot = slotFor(oldKeys[i]);
+                lines[slot] = oldLines[i];
+                units[slot] = oldUnits[i];
+                revenue[slot] = oldRevenue[i];
+            }
+        }
+    }
+    
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        used = new boolean[capacity];
+        lines = new long[capacity];
+        units = new long[capacity];
+        revenue = new long[capacity];
+        size = 0;
+    }
+    
+    private static int mix(int key) {
+        int hash = key * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
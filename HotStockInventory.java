@@ -0,0 +1,329 @@
+package com.bookstore.service;
+
+import com.bookstore.dao.BookDAO;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.BooleanSupplier;
+
+/**
+ * In-process stock counters for hot titles
+ *
+ * During a launch every purchase of the same title would otherwise queue on the
+ * same books row lock. For titles marked hot, stock is leased from the row in
+ * chunks and spread over striped counters that purchases decrement with a CAS,
+ * without a database round trip. Unsold leased units are written back to
+ * books.stock_quantity periodically, when a title stops being hot, before an
+ * absolute stock update and on shutdown.
+ *
+ * Units are only sold out of a lease and leases are taken with a locked,
+ * bounded update of the row, so the store can never oversell. Absolute stock
+ * writes hold the title's lock across the write-back and the write, and a
+ * title that stops being hot is retired under its lock, so no lease can slip
+ * in between and be counted twice or lost. Sold units are
+ * persisted when they are leased; if the process dies, leased but unsold units
+ * are missing from the row until the stock is corrected.
+ */
+public class HotStockInventory {
+    private static final int DEFAULT_LEASE_SIZE = 100;
+    private static final long WRITE_BACK_INTERVAL_SECONDS = 5;
+    private static HotStockInventory instance;
+    
+    private final BookDAO bookDAO;
+    private final Map<Integer, HotItem> items = new ConcurrentHashMap<>();
+    private ScheduledExecutorService writeBackExecutor;
+    
+    private HotStockInventory() {
+        this.bookDAO = new BookDAO();
+    }
+    
+    /**
+     * Get singleton instance of HotStockInventory
+     */
+    public static synchronized HotStockInventory getInstance() {
+        if (instance == null) {
+            instance = new HotStockInventory();
+        }
+        return instance;
+    }
+    
+    /**
+     * Serve a title's stock from in-memory counters using the default lease size
+     */
+    public void enable(int bookId) {
+        enable(bookId, DEFAULT_LEASE_SIZE);
+    }
+    
+    /**
+     * Serve a title's stock from in-memory counters, leasing leaseSize units at a time
+     */
+    public synchronized void enable(int bookId, int leaseSize) {
+        if (leaseSize <= 0) {
+            throw new IllegalArgumentException("Lease size must be positive");
+        }
+        items.putIfAbsent(bookId, new HotItem(bookId, leaseSize));
+        startWriteBack();
+    }
+    
+    /**
+     * Stop serving a title from memory and return its unsold leased stock
+     */
+    public void disable(int bookId) {
+        HotItem item = items.remove(bookId);
+        if (item != null) {
+            item.retire();
+        }
+    }
+    
+    /**
+     * Check if a title is served from in-memory counters
+     */
+    public boolean isHot(int bookId) {
+        return !items.isEmpty() && items.containsKey(bookId);
+    }
+    
+    /**
+     * Get the number of titles served from in-memory counters
+     */
+    public int getHotTitleCount() {
+        return items.size();
+    }
+    
+    /**
+     * Check if any title is served from in-memory counters
+     */
+    public boolean hasHotItems() {
+        return !items.isEmpty();
+    }
+    
+    /**
+     * Take quantity units of a title; returns false when it is sold out.
+     * Titles that are not hot go straight to the database.
+     */
+    public boolean reduce(int bookId, int quantity) {
+        HotItem item = items.get(bookId);
+        if (item == null) {
+            return bookDAO.decrementStock(bookId, quantity);
+        }
+        return item.reduce(quantity);
+    }
+    
+    /**
+     * Give back units taken with reduce() for a purchase that did not complete
+     */
+    public void release(int bookId, int quantity) {
+        HotItem item = items.get(bookId);
+        if (item == null) {
+            bookDAO.incrementStock(bookId, quantity);
+        } else {
+            item.release(quantity);
+        }
+    }
+    
+    /**
+     * Get the leased but unsold units currently held for a title
+     */
+    public int getReservedStock(int bookId) {
+        HotItem item = items.get(bookId);
+        return item == null ? 0 : item.reserved();
+    }
+    
+    /**
+     * Get a fingerprint of the reserved stock of every hot title. It changes
+     * whenever the stock shown for a hot title changes without a write to its row.
+     */
+    public long getReservedStockFingerprint() {
+        long fingerprint = 0;
+        for (HotItem item : items.values()) {
+            // Order-independent sum of mixed (book, reserved) pairs
+            long pair = ((long) item.bookId << 32 | item.reserved() & 0xFFFFFFFFL) * 0x9E3779B97F4A7C15L;
+            fingerprint += pair ^ pair >>> 29;
+        }
+        return fingerprint;
+    }
+    
+    /**
+     * Return a title's unsold leased stock to the database
+     */
+    public void flush(int bookId) {
+        HotItem item = items.get(bookId);
+        if (item != null) {
+            item.writeBack();
+        }
+    }
+    
+    /**
+     * Run an absolute stock write (one that sets stock_quantity) for a title.
+     * A hot title's unsold leased stock is returned first, and its lock is
+     * held until the write is done, so no purchase can lease units in between
+     * that the write would then overwrite.
+     */
+    public boolean writeStock(int bookId, BooleanSupplier write) {
+        HotItem item = items.get(bookId);
+        if (item == null) {
+            return write.getAsBoolean();
+        }
+        synchronized (item) {
+            item.writeBack();
+            return write.getAsBoolean();
+        }
+    }
+    
+    /**
+     * Return all unsold leased stock to the database
+     */
+    public void flushAll() {
+        for (HotItem item : items.values()) {
+            item.writeBack();
+        }
+    }
+    
+    /**
+     * Stop the periodic write-back and return all unsold leased stock
+     */
+    public synchronized void shutdown() {
+        if (writeBackExecutor != null) {
+            writeBackExecutor.shutdownNow();
+            writeBackExecutor = null;
+        }
+        flushAll();
+    }
+    
+    private void startWriteBack() {
+        if (writeBackExecutor != null) {
+            return;
+        }
+        writeBackExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "hot-stock-write-back");
+            thread.setDaemon(true);
+            return thread;
+        });
+        writeBackExecutor.scheduleWithFixedDelay(this::flushAll, WRITE_BACK_INTERVAL_SECONDS,
+                                                 WRITE_BACK_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "hot-stock-shutdown"));
+    }
+    
+    private static int nextPowerOfTwo(int value) {
+        return value <= 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+    }
+    
+    /**
+     * Striped stock budget of one hot title
+     */
+    private final class HotItem {
+        // Counters sit 16 ints (64 bytes) apart so stripes do not share a cache line
+        private static final int PADDING = 16;
+        
+        private final int bookId;
+        private final int leaseSize;
+        private final int stripes;
+        private final AtomicIntegerArray budgets;
+        // Set under the lock once the title is no longer hot; after that all
+        // stock goes to and from the row directly
+        private boolean retired;
+        
+        HotItem(int bookId, int leaseSize) {
+            this.bookId = bookId;
+            this.leaseSize = leaseSize;
+            this.stripes = nextPowerOfTwo(Runtime.getRuntime().availableProcessors());
+            this.budgets = new AtomicIntegerArray(stripes * PADDING);
+        }
+        
+        boolean reduce(int quantity) {
+            if (tryTake(quantity)) {
+                return true;
+            }
+            synchronized (this) {
+                // Another buyer may have refilled while we waited for the lock
+                if (tryTake(quantity)) {
+                    return true;
+                }
+                if (retired) {
+                    return bookDAO.decrementStock(bookId, quantity);
+                }
+                int gathered = drain();
+                int leased = 0;
+                if (gathered < quantity) {
+                    leased = bookDAO.leaseStock(bookId, Math.max(leaseSize, quantity - gathered));
+                }
+                int total = gathered + leased;
+                if (total >= quantity) {
+                    distribute(total - quantity);
+                    return true;
+                }
+                distribute(total); // Not enough for this purchase; keep it for smaller ones
+                return false;
+            }
+        }
+        
+        private boolean tryTake(int quantity) {
+            int home = homeStripe();
+            for (int i = 0; i < stripes; i++) {
+                int index = ((home + i) & (stripes - 1)) * PADDING;
+                int available = budgets.get(index);
+                while (available >= quantity) {
+                    if (budgets.compareAndSet(index, available, available - quantity)) {
+                        return true;
+                    }
+                    available = budgets.get(index);
+                }
+            }
+            return false;
+        }
+        
+        private int homeStripe() {
+            int hash = (int) Thread.currentThread().getId() * 0x9E3779B9;
+            return (hash ^ (hash >>> 16)) & (stripes - 1);
+        }
+        
+        private int drain() {
+            int total = 0;
+            for (int i = 0; i < stripes; i++) {
+                total += budgets.getAndSet(i * PADDING, 0);
+            }
+            return total;
+        }
+        
+        void distribute(int units) {
+            int share = units / stripes;
+            int remainder = units % stripes;
+            for (int i = 0; i < stripes; i++) {
+                int amount = share + (i < remainder ? 1 : 0);
+                if (amount > 0) {
+                    budgets.addAndGet(i * PADDING, amount);
+                }
+            }
+        }
+        
+        int reserved() {
+            int total = 0;
+            for (int i = 0; i < stripes; i++) {
+                total += budgets.get(i * PADDING);
+            }
+            return total;
+        }
+        
+        synchronized void release(int quantity) {
+            if (retired) {
+                bookDAO.incrementStock(bookId, quantity);
+            } else {
+                distribute(quantity);
+            }
+        }
+        
+        synchronized void retire() {
+            retired = true;
+            writeBack();
+        }
+        
+        synchronized void writeBack() {
+            int units = drain();
+            if (units > 0 && !bookDAO.incrementStock(bookId, units)) {
+                distribute(units); // Keep the units and retry on the next write-back
+            }
+        }
+    }
+}
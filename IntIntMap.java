@@ -0,0 +1,110 @@
+package com.bookstore.analytics;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing map from int keys to int values without boxing
+ *
+ * Linear probing with backward-shift deletion, so removals leave no
+ * tombstones behind. Not thread-safe.
+ */
+class IntIntMap {
+    static final int MISSING = -1;
+    
+    private int[] keys;
+    private int[] values;
+    private boolean[] used;
+    private int size;
+    
+    IntIntMap(int expectedSize) {
+        allocate(Integer.highestOneBit(Math.max(expectedSize, 2) * 2 - 1) << 1);
+    }
+    
+    /**
+     * Get the value for key, or MISSING
+     */
+    int get(int key) {
+        int mask = keys.length - 1;
+        for (int slot = mix(key) & mask; used[slot]; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+        }
+        return MISSING;
+    }
+    
+    void put(int key, int value) {
+        if ((size + 1) * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (used[slot]) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        used[slot] = true;
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+    }
+    
+    void remove(int key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (used[slot] && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        if (!used[slot]) {
+            return;
+        }
+        // Shift later entries of the probe run back into the gap
+        int gap = slot;
+        for (int next = (gap + 1) & mask; used[next]; next = (next + 1) & mask) {
+            int home = mix(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+        }
+        used[gap] = false;
+        size--;
+    }
+    
+    int size() {
+        return size;
+    }
+    
+    void clear() {
+        Arrays.fill(used, false);
+        size = 0;
+    }
+    
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        boolean[] oldUsed = used;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+    
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        used = new boolean[capacity];
+        size = 0;
+    }
+    
+    private static int mix(int key) {
+        int hash = key * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,94 @@
+package com.bookstore.model;
+
+/**
+ * ISBN parsing and formatting
+ *
+ * parse() turns an ISBN-10 or ISBN-13, with or without spaces or hyphens,
+ * into its canonical ISBN-13 as a long (ISBN-10s get the 978 prefix and a new
+ * check digit), so "0-7432-7356-7", "978-0-7432-7356-5" and "9780743273565"
+ * all give 9780743273565L. Check digits are verified. Parsing scans the
+ * characters once and does not allocate.
+ */
+public final class Isbn {
+    /** Returned by parse() for text that is not a valid ISBN */
+    public static final long INVALID = -1;
+
+    private Isbn() {
+    }
+
+    /**
+     * Parse an ISBN-10 or ISBN-13 into its canonical 13-digit value, or INVALID
+     */
+    public static long parse(CharSequence text) {
+        if (text == null) {
+            return INVALID;
+        }
+        long digits = 0;
+        int count = 0;
+        int sum10 = 0;
+        int sum13 = 0;
+        boolean checkX = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '-' || Character.isWhitespace(c)) {
+                continue;
+            }
+            if (count == 13 || checkX) {
+                return INVALID; // Too long, or characters after an X check digit
+            }
+            int digit;
+            if (c >= '0' && c <= '9') {
+                digit = c - '0';
+                digits = digits * 10 + digit;
+            } else if ((c == 'X' || c == 'x') && count == 9) {
+                digit = 10; // Check digit 10 of an ISBN-10
+                checkX = true;
+            } else {
+                return INVALID;
+            }
+            sum10 += digit * (10 - count);
+            sum13 += digit * (count % 2 == 0 ? 1 : 3);
+            count++;
+        }
+
+        if (count == 13) {
+            return sum13 % 10 == 0 && (digits / 10_000_000_000L == 978 || digits / 10_000_000_000L == 979)
+                ? digits : INVALID;
+        }
+        if (count == 10 && sum10 % 11 == 0) {
+            return toIsbn13(checkX ? digits : digits / 10);
+        }
+        return INVALID;
+    }
+
+    /**
+     * Check whether text is a valid ISBN-10 or ISBN-13
+     */
+    public static boolean isValid(CharSequence text) {
+        return parse(text) != INVALID;
+    }
+
+    /**
+     * Format a canonical value as 13 digits without separators
+     */
+    public static String format(long isbn13) {
+        if (isbn13 < 9_780_000_000_000L || isbn13 > 9_799_999_999_999L) {
+            throw new IllegalArgumentException("Not an ISBN-13: " + isbn13);
+        }
+        return Long.toString(isbn13);
+    }
+
+    /**
+     * Build the ISBN-13 for the first nine digits of an ISBN-10
+     */
+    private static long toIsbn13(long body9) {
+        long digits = 978_000_000_000L + body9;
+        int sum = 0;
+        long rest = digits;
+        for (int position = 11; position >= 0; position--) {
+            sum += (int) (rest % 10) * (position % 2 == 0 ? 1 : 3);
+            rest /= 10;
+        }
+        return digits * 10 + (10 - sum % 10) % 10;
+    }
+}
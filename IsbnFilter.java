@@ -0,0 +1,156 @@
+package com.bookstore.service;
+
+import com.bookstore.dao.BookDAO;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory Bloom filter of the canonical ISBN-13s already in the catalog
+ *
+ * Lets addBook and updateBook skip their duplicate-ISBN queries for ISBNs
+ * that are definitely new, which is nearly every row of an import of new
+ * titles. A "maybe present" answer must be confirmed against the database.
+ *
+ * The filter is loaded in the background when first requested; until then,
+ * and after a load that could not read every ISBN (the database is down),
+ * every ISBN counts as maybe present. A failed load is retried by the next
+ * add() or reload(). ISBNs of new and edited books are added
+ * as they are saved, and the filter is rebuilt twice as large once it fills
+ * up. Deleted books keep their ISBN (books are only deactivated), so the
+ * filter never needs to forget one.
+ */
+public class IsbnFilter {
+    private static final int MIN_CAPACITY = 4096;
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    private static IsbnFilter instance;
+    
+    private final BookDAO bookDAO;
+    private final LongAdder checks = new LongAdder();
+    private final LongAdder ruledOut = new LongAdder();
+    private volatile BloomFilter filter;
+    private List<Long> pending = new ArrayList<>();
+    private int entries;
+    private boolean loading;
+    
+    private IsbnFilter() {
+        this.bookDAO = new BookDAO();
+    }
+    
+    /**
+     * Get the shared filter, starting its initial load on first use
+     */
+    public static synchronized IsbnFilter getInstance() {
+        if (instance == null) {
+            instance = new IsbnFilter();
+            instance.startLoad(0);
+        }
+        return instance;
+    }
+    
+    /**
+     * Check whether a book may have this canonical ISBN-13 (false means
+     * definitely none)
+     */
+    public boolean mightContain(long isbn13) {
+        checks.increment();
+        BloomFilter current = filter;
+        if (current == null || current.mightContain(isbn13)) {
+            return true;
+        }
+        ruledOut.increment();
+        return false;
+    }
+    
+    /**
+     * Record the ISBN of a saved book
+     */
+    public synchronized void add(long isbn13) {
+        if (loading) {
+            pending.add(isbn13); // Applied once the load finishes
+            return;
+        }
+        if (filter == null) {
+            pending.add(isbn13);
+            startLoad(0); // The last load failed; try again
+            return;
+        }
+        filter.add(isbn13);
+        entries++;
+        if (entries >= filter.getExpectedEntries()) {
+            startLoad(entries * 2);
+        }
+    }
+    
+    /**
+     * Load the filter again from the database, in the background
+     */
+    public synchronized void reload() {
+        if (!loading) {
+            startLoad(0);
+        }
+    }
+    
+    /**
+     * Get the number of ISBNs in the filter
+     */
+    public synchronized int getEntries() {
+        return entries;
+    }
+    
+    /**
+     * Get the number of ISBNs the filter holds before it is rebuilt
+     */
+    public long getCapacity() {
+        BloomFilter current = filter;
+        return current == null ? 0 : current.getExpectedEntries();
+    }
+    
+    /**
+     * Get the number of mightContain() calls
+     */
+    public long getChecks() {
+        return checks.sum();
+    }
+    
+    /**
+     * Get the number of mightContain() calls that answered "definitely not"
+     */
+    public long getRuledOut() {
+        return ruledOut.sum();
+    }
+    
+    private synchronized void startLoad(int minCapacity) {
+        loading = true;
+        Thread loader = new Thread(() -> load(minCapacity), "isbn-filter-load");
+        loader.setDaemon(true);
+        loader.start();
+    }
+    
+    private void load(int minCapacity) {
+        List<Long> keys = new ArrayList<>();
+        boolean complete = false;
+        try {
+            complete = bookDAO.scanIsbns(keys::add) >= 0;
+        } finally {
+            synchronized (this) {
+                if (complete) {
+                    keys.addAll(pending);
+                    BloomFilter loaded = new BloomFilter(Math.max(MIN_CAPACITY, Math.max(minCapacity, keys.size() * 2)),
+                                                         FALSE_POSITIVE_RATE);
+                    for (long key : keys) {
+                        loaded.add(key);
+                    }
+                    entries = keys.size();
+                    filter = loaded;
+                } else {
+                    // A partial filter would rule out ISBNs that exist; answer "maybe" until a load succeeds
+                    entries = 0;
+                    filter = null;
+                }
+                pending = new ArrayList<>();
+                loading = false;
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.bookstore.tracing;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Tracer that records JFR events
+ *
+ * Compiled on its own (see app/pom.xml), because jdk.jfr is not part of the
+ * Java 8 API the rest of the application is built against. It is loaded by
+ * Tracer only when the runtime has JFR.
+ */
+final class JfrTracer extends Tracer {
+    private static final EventType OPERATION = EventType.getEventType(OperationEvent.class);
+    private static final EventType STATEMENT = EventType.getEventType(StatementEvent.class);
+    private static final EventType UI_ACTION = EventType.getEventType(UiActionEvent.class);
+    
+    JfrTracer() {
+    }
+    
+    @Override
+    public Span operation(String service, String operation) {
+        if (!OPERATION.isEnabled()) {
+            return Span.NONE;
+        }
+        OperationEvent event = new OperationEvent();
+        event.service = service;
+        event.operation = operation;
+        event.begin();
+        return event;
+    }
+    
+    @Override
+    public Span statement(String sql) {
+        if (!STATEMENT.isEnabled()) {
+            return Span.NONE;
+        }
+        StatementEvent event = new StatementEvent();
+        event.sqlId = sql == null ? null : Integer.toHexString(sql.hashCode());
+        event.sql = sql;
+        event.begin();
+        return event;
+    }
+    
+    @Override
+    public boolean isStatementTracingEnabled() {
+        return STATEMENT.isEnabled();
+    }
+    
+    @Override
+    public Span uiAction(String window, String action) {
+        if (!UI_ACTION.isEnabled()) {
+            return Span.NONE;
+        }
+        UiActionEvent event = new UiActionEvent();
+        event.window = window;
+        event.action = action;
+        event.begin();
+        return event;
+    }
+    
+    @Name("com.bookstore.ServiceOperation")
+    @Label("Service Operation")
+    @Category({"Bookstore", "Service"})
+    @Description("A call to a BookService or UserService operation")
+    static final class OperationEvent extends Event implements Span {
+        @Label("Service")
+        String service;
+        
+        @Label("Operation")
+        String operation;
+        
+        @Override
+        public void close() {
+            commit();
+        }
+    }
+    
+    @Name("com.bookstore.Statement")
+    @Label("JDBC Statement")
+    @Category({"Bookstore", "Database"})
+    @Description("Execution of a JDBC statement, including reading its result set")
+    static final class StatementEvent extends Event implements Span {
+        @Label("SQL ID")
+        @Description("Hash of the SQL text, for grouping executions of the same statement")
+        String sqlId;
+        
+        @Label("SQL")
+        String sql;
+        
+        @Label("Rows")
+        @Description("Rows read from the result set, or the update count")
+        long rows;
+        
+        @Override
+        public void setRows(long rows) {
+            this.rows = rows;
+        }
+        
+        @Override
+        public void close() {
+            commit();
+        }
+    }
+    
+    @Name("com.bookstore.UiAction")
+    @Label("UI Action")
+    @Category({"Bookstore", "UI"})
+    @Description("An action handler, or background work started by one")
+    static final class UiActionEvent extends Event implements Span {
+        @Label("Window")
+        String window;
+        
+        @Label("Action")
+        String action;
+        
+        @Override
+        public void close() {
+            commit();
+        }
+    }
+}
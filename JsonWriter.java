@@ -0,0 +1,158 @@
+package com.bookstore.api;
+
+/**
+ * Minimal streaming JSON writer
+ *
+ * Writes objects, arrays and values straight into a StringBuilder, adding
+ * commas as needed, so responses are built field by field without
+ * reflection or an intermediate tree. Strings are escaped per RFC 8259.
+ */
+public final class JsonWriter {
+    private static final int MAX_DEPTH = 64;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    
+    private final StringBuilder out;
+    // needsComma[d]: a value has already been written at nesting depth d
+    private final boolean[] needsComma = new boolean[MAX_DEPTH];
+    private int depth;
+    private boolean afterName;
+    
+    public JsonWriter() {
+        this(new StringBuilder(256));
+    }
+    
+    public JsonWriter(StringBuilder out) {
+        this.out = out;
+    }
+    
+    public JsonWriter beginObject() {
+        beforeValue();
+        out.append('{');
+        push();
+        return this;
+    }
+    
+    public JsonWriter endObject() {
+        depth--;
+        out.append('}');
+        return this;
+    }
+    
+    public JsonWriter beginArray() {
+        beforeValue();
+        out.append('[');
+        push();
+        return this;
+    }
+    
+    public JsonWriter endArray() {
+        depth--;
+        out.append(']');
+        return this;
+    }
+    
+    /**
+     * Write the name of the next object member
+     */
+    public JsonWriter name(String name) {
+        if (needsComma[depth]) {
+            out.append(',');
+        }
+        needsComma[depth] = true;
+        string(name);
+        out.append(':');
+        afterName = true;
+        return this;
+    }
+    
+    public JsonWriter value(String value) {
+        if (value == null) {
+            return nullValue();
+        }
+        beforeValue();
+        string(value);
+        return this;
+    }
+    
+    public JsonWriter value(long value) {
+        beforeValue();
+        out.append(value);
+        return this;
+    }
+    
+    public JsonWriter value(boolean value) {
+        beforeValue();
+        out.append(value);
+        return this;
+    }
+    
+    /**
+     * Write a number that is already in JSON form, such as "12.50"
+     */
+    public JsonWriter rawNumber(String number) {
+        beforeValue();
+        out.append(number);
+        return this;
+    }
+    
+    public JsonWriter nullValue() {
+        beforeValue();
+        out.append("null");
+        return this;
+    }
+    
+    @Override
+    public String toString() {
+        return out.toString();
+    }
+    
+    private void push() {
+        if (++depth == MAX_DEPTH) {
+            throw new IllegalStateException("JSON nested too deeply");
+        }
+        needsComma[depth] = false;
+    }
+    
+    private void beforeValue() {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        if (needsComma[depth]) {
+            out.append(',');
+        }
+        needsComma[depth] = true;
+    }
+    
+    private void string(String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20 || c == '\u2028' || c == '\u2029') {
+                        out.append("\\u").append(HEX[c >> 12 & 0xF]).append(HEX[c >> 8 & 0xF])
+                           .append(HEX[c >> 4 & 0xF]).append(HEX[c & 0xF]);
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        out.append('"');
+    }
+}
@@ -0,0 +1,249 @@
+package com.bookstore.service;
+
+import com.bookstore.dao.BookDAO;
+import com.bookstore.dao.CatalogSnapshot;
+import com.bookstore.database.DatabaseConnection;
+import com.bookstore.model.Book;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Local copy of the book catalog, kept in a snapshot file between runs
+ *
+ * load() reads the snapshot saved by the last sync (see CatalogSnapshot), so
+ * the catalog can be shown before the database answers, and browsed read-only
+ * while it cannot be reached. sync() brings the copy up to date. With a
+ * snapshot it fetches only the books whose updated_at is at or after the
+ * snapshot's sync point, less an overlap for transactions that committed
+ * late. Without one it fetches the whole catalog. If the number of active
+ * books does not match after merging the changes (rows deleted outright),
+ * it falls back to a full sync. A sync that found changes saves a new
+ * snapshot.
+ *
+ * The file is catalog.snapshot in the working directory
+ * (bookstore.catalog.snapshot). Books are handed out as copies, so callers
+ * may change them.
+ */
+public class LocalCatalog {
+    private static final long OVERLAP_MILLIS = 10_000;
+    private static LocalCatalog instance;
+    
+    private final Path file;
+    private final BookDAO bookDAO;
+    private volatile Copy copy;
+    private boolean loaded;
+    
+    LocalCatalog(Path file) {
+        this.file = file;
+        this.bookDAO = new BookDAO();
+    }
+    
+    /**
+     * Get the shared local catalog
+     */
+    public static synchronized LocalCatalog getInstance() {
+        if (instance == null) {
+            instance = new LocalCatalog(Paths.get(System.getProperty("bookstore.catalog.snapshot", "catalog.snapshot")));
+        }
+        return instance;
+    }
+    
+    /**
+     * Read the saved snapshot (once) without asking the database. Returns the
+     * active books, or null if there is no valid snapshot. Every book is
+     * decoded here, because the window lists them all and sync() merges
+     * changes into them.
+     */
+    public synchronized List<Book> load() {
+        if (!loaded) {
+            loaded = true;
+            if (Files.exists(file)) {
+                try {
+                    CatalogSnapshot snapshot = CatalogSnapshot.read(file);
+                    copy = new Copy(snapshot.getBooks(), snapshot.getSyncedThrough(), snapshot.getSavedAt());
+                } catch (IOException e) {
+                    System.err.println("Ignoring catalog snapshot: " + e.getMessage());
+                }
+            }
+        }
+        return getBooks();
+    }
+    
+    /**
+     * Bring the local copy up to date with the database and save it. Returns
+     * the active books, or null if the database could not be reached (the
+     * copy is left as it was).
+     */
+    public synchronized List<Book> sync() {
+        load();
+        Copy current = copy;
+        // Read first: anything changed after this is picked up by the next sync
+        Timestamp latest = bookDAO.getLastBookUpdate();
+        
+        List<Book> books = null;
+        if (current != null && current.syncedThrough != null) {
+            Timestamp since = new Timestamp(current.syncedThrough.getTime() - OVERLAP_MILLIS);
+            List<Book> changed = bookDAO.getBooksChangedSince(since);
+            if (changed == null) {
+                return null;
+            }
+            List<Book> merged = merge(current.books, changed);
+            if (merged.size() == bookDAO.countActiveBooks()) {
+                books = merged;
+            }
+        }
+        boolean full = books == null;
+        if (full) {
+            books = bookDAO.getBooksChangedSince(null);
+            if (books == null) {
+                return null;
+            }
+        }
+        
+        Timestamp savedAt = current == null ? null : current.savedAt;
+        boolean modified = full || latest == null || !latest.equals(current.syncedThrough);
+        if (modified) {
+            savedAt = save(books, latest);
+        }
+        copy = new Copy(books, latest, savedAt);
+        return getBooks();
+    }
+    
+    /**
+     * Get the books of the local copy (as loaded or last synced), or null if
+     * there is none
+     */
+    public List<Book> getBooks() {
+        Copy current = copy;
+        if (current == null) {
+            return null;
+        }
+        List<Book> books = new ArrayList<>(current.books.size());
+        for (Book book : current.books) {
+            books.add(copyOf(book));
+        }
+        return books;
+    }
+    
+    /**
+     * Get the categories of the local copy, sorted
+     */
+    public List<String> getCategories() {
+        Copy current = copy;
+        return current == null ? Collections.<String>emptyList() : current.categories;
+    }
+    
+    /**
+     * Search the local copy by title or author within an optional category,
+     * like BookService.searchBooks does in the database
+     */
+    public List<Book> search(String term, String category) {
+        Copy current = copy;
+        List<Book> result = new ArrayList<>();
+        if (current == null) {
+            return result;
+        }
+        String cleanTerm = term == null || term.trim().isEmpty() ? null : term.trim().toLowerCase(Locale.ROOT);
+        String cleanCategory = category == null || category.trim().isEmpty() ? null : category.trim();
+        for (Book book : current.books) {
+            if (cleanCategory != null && !cleanCategory.equalsIgnoreCase(book.getCategory())) {
+                continue;
+            }
+            if (cleanTerm != null && !contains(book.getTitle(), cleanTerm) && !contains(book.getAuthor(), cleanTerm)) {
+                continue;
+            }
+            result.add(copyOf(book));
+        }
+        return result;
+    }
+    
+    /**
+     * Get when the local copy was last saved, or null if it never was
+     */
+    public Timestamp getSavedAt() {
+        Copy current = copy;
+        return current == null ? null : current.savedAt;
+    }
+    
+    /**
+     * Check whether the database can be reached for a sync
+     */
+    public boolean isDatabaseReachable() {
+        return DatabaseConnection.getInstance().testConnection();
+    }
+    
+    private Timestamp save(List<Book> books, Timestamp syncedThrough) {
+        try {
+            CatalogSnapshot.write(file, books, syncedThrough);
+            return new Timestamp(System.currentTimeMillis());
+        } catch (IOException e) {
+            System.err.println("Could not save catalog snapshot: " + e.getMessage());
+            return copy == null ? null : copy.savedAt;
+        }
+    }
+    
+    /**
+     * Apply changed rows to a copy: active books are added or replaced,
+     * inactive ones removed. The result is ordered by title.
+     */
+    private static List<Book> merge(List<Book> books, List<Book> changed) {
+        Map<Integer, Book> byId = new LinkedHashMap<>();
+        for (Book book : books) {
+            byId.put(book.getId(), book);
+        }
+        for (Book book : changed) {
+            if (book.isActive()) {
+                byId.put(book.getId(), book);
+            } else {
+                byId.remove(book.getId());
+            }
+        }
+        List<Book> merged = new ArrayList<>(byId.values());
+        merged.sort((a, b) -> String.CASE_INSENSITIVE_ORDER.compare(a.getTitle(), b.getTitle()));
+        return merged;
+    }
+    
+    private static boolean contains(String value, String lowerCaseTerm) {
+        return value != null && value.toLowerCase(Locale.ROOT).contains(lowerCaseTerm);
+    }
+    
+    private static Book copyOf(Book book) {
+        return new Book(book.getId(), book.getTitle(), book.getAuthor(), book.getIsbn(), book.getCategory(),
+                        book.getPrice(), book.getStockQuantity(), book.getDescription(),
+                        book.getPublicationDate(), book.getPublisher(), book.isActive());
+    }
+    
+    /**
+     * Immutable state of the local copy
+     */
+    private static final class Copy {
+        final List<Book> books;
+        final List<String> categories;
+        final Timestamp syncedThrough;
+        final Timestamp savedAt;
+        
+        Copy(List<Book> books, Timestamp syncedThrough, Timestamp savedAt) {
+            this.books = Collections.unmodifiableList(new ArrayList<>(books));
+            this.syncedThrough = syncedThrough;
+            this.savedAt = savedAt;
+            
+            TreeSet<String> names = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+            for (Book book : books) {
+                if (book.getCategory() != null) {
+                    names.add(book.getCategory());
+                }
+            }
+            this.categories = Collections.unmodifiableList(new ArrayList<>(names));
+        }
+    }
+}
@@ -1,14 +1,31 @@
 package com.bookstore.gui;
 
 import com.bookstore.model.User;
+import com.bookstore.service.LocalCatalog;
+import com.bookstore.service.StartupWarmup;
 import com.bookstore.service.UserService;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.lang.management.ManagementFactory;
+import java.sql.Timestamp;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 /**
  * Login window for the Book Store application
+ * 
+ * The window paints before the database is reached: the connection pool,
+ * password hashing and the main window classes warm up in the background
+ * (StartupWarmup), and the login check runs off the event dispatch thread.
+ * With -Dbookstore.startup.timing=true the time from JVM start to the
+ * window showing and to the end of the warm-up is printed; adding
+ * -Dbookstore.startup.exit=true exits after that (for startup measurements
+ * and class-data-sharing training runs).
+ * 
+ * When the database cannot be reached but a catalog was saved by an earlier
+ * run, the window offers to browse that catalog read-only.
  */
 public class LoginWindow extends JFrame {
     private JTextField usernameField;
@@ -145,30 +162,102 @@ public class LoginWindow extends JFrame {
             return;
         }
         
-        try {
-            User user = userService.login(username, password);
-            if (user != null) {
-                // Login successful
-                JOptionPane.showMessageDialog(this, "Login successful! Welcome, " + user.getFullName(), 
-                                            "Success", JOptionPane.INFORMATION_MESSAGE);
-                
-                // Open main window
-                SwingUtilities.invokeLater(() -> {
-                    mainWindow = new BookStoreMainWindow(user);
-                    mainWindow.setVisible(true);
-                    dispose(); // Close login window
-                });
-            } else {
-                JOptionPane.showMessageDialog(this, "Invalid username or password.", 
-                                            "Login Error", JOptionPane.ERROR_MESSAGE);
+        // The first login may wait for the database; keep the window responsive
+        setLoginEnabled(false);
+        new SwingWorker<User, Void>() {
+            private boolean offline;
+            
+            @Override
+            protected User doInBackground() {
+                try {
+                    User user = userService.login(username, password);
+                    if (user == null) {
+                        offline = isOffline();
+                    }
+                    return user;
+                } catch (RuntimeException e) {
+                    offline = isOffline();
+                    if (offline) {
+                        return null;
+                    }
+                    throw e;
+                }
+            }
+            
+            private boolean isOffline() {
+                LocalCatalog catalog = LocalCatalog.getInstance();
+                return !catalog.isDatabaseReachable() && catalog.load() != null;
+            }
+            
+            @Override
+            protected void done() {
+                setLoginEnabled(true);
+                passwordField.setText(""); // Clear password field
+                try {
+                    User user = get();
+                    if (user != null) {
+                        loginSucceeded(user);
+                    } else if (offline) {
+                        offerOfflineBrowsing();
+                    } else {
+                        JOptionPane.showMessageDialog(LoginWindow.this, "Invalid username or password.", 
+                                                    "Login Error", JOptionPane.ERROR_MESSAGE);
+                    }
+                } catch (InterruptedException | ExecutionException ex) {
+                    Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                    JOptionPane.showMessageDialog(LoginWindow.this, "Login failed: " + cause.getMessage(), 
+                                                "Error", JOptionPane.ERROR_MESSAGE);
+                }
             }
-        } catch (Exception ex) {
-            JOptionPane.showMessageDialog(this, "Login failed: " + ex.getMessage(), 
-                                        "Error", JOptionPane.ERROR_MESSAGE);
+        }.execute();
+    }
+    
+    private void loginSucceeded(User user) {
+        // Load books and categories while the welcome message is showing
+        BookStoreMainWindow.Prefetch prefetch = BookStoreMainWindow.prefetch();
+        JOptionPane.showMessageDialog(this, "Login successful! Welcome, " + user.getFullName(), 
+                                    "Success", JOptionPane.INFORMATION_MESSAGE);
+        
+        // Open main window
+        SwingUtilities.invokeLater(() -> {
+            mainWindow = new BookStoreMainWindow(user, prefetch);
+            mainWindow.setVisible(true);
+            dispose(); // Close login window
+        });
+    }
+    
+    /**
+     * The database cannot be reached: offer the catalog saved by an earlier
+     * run, read-only, to a guest
+     */
+    private void offerOfflineBrowsing() {
+        Timestamp savedAt = LocalCatalog.getInstance().getSavedAt();
+        int choice = JOptionPane.showConfirmDialog(this,
+            "The database cannot be reached.\nBrowse the catalog saved"
+            + (savedAt == null ? "" : " on " + savedAt.toLocalDateTime().toLocalDate()) + " (read-only)?",
+            "Offline", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
+        if (choice != JOptionPane.YES_OPTION) {
+            return;
         }
         
-        // Clear password field
-        passwordField.setText("");
+        User guest = new User();
+        guest.setUsername("guest");
+        guest.setFirstName("Guest");
+        guest.setLastName("(offline)");
+        guest.setRole("CUSTOMER");
+        BookStoreMainWindow.Prefetch prefetch = BookStoreMainWindow.prefetch();
+        SwingUtilities.invokeLater(() -> {
+            mainWindow = new BookStoreMainWindow(guest, prefetch, true);
+            mainWindow.setVisible(true);
+            dispose(); // Close login window
+        });
+    }
+    
+    private void setLoginEnabled(boolean enabled) {
+        loginButton.setEnabled(enabled);
+        registerButton.setEnabled(enabled);
+        passwordField.setEnabled(enabled);
+        setCursor(enabled ? Cursor.getDefaultCursor() : Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
     }
     
     private void showRegisterDialog() {
@@ -177,6 +266,11 @@ public class LoginWindow extends JFrame {
     }
     
     public static void main(String[] args) {
+        // Overlaps with setting up the look and feel and painting the window
+        CompletableFuture<Void> warmUp = StartupWarmup.start("com.bookstore.gui.BookStoreMainWindow",
+                                                             "com.bookstore.gui.BookDialog",
+                                                             "com.bookstore.gui.RegisterDialog");
+        
         // Set look and feel (prefer Nimbus, fall back to System)
         try {
             boolean set = false;
@@ -194,8 +288,27 @@ public class LoginWindow extends JFrame {
             e.printStackTrace();
         }
         
+        // Report event dispatch stalls (see EdtWatchdog)
+        EdtWatchdog.install();
+        
         SwingUtilities.invokeLater(() -> {
             new LoginWindow().setVisible(true);
+            if (Boolean.getBoolean("bookstore.startup.timing")) {
+                // Queued behind the events that paint the window
+                SwingUtilities.invokeLater(() -> reportStartup(warmUp));
+            }
+        });
+    }
+    
+    private static void reportStartup(CompletableFuture<Void> warmUp) {
+        System.out.println("Login window shown " + ManagementFactory.getRuntimeMXBean().getUptime()
+                           + " ms after JVM start");
+        warmUp.thenRun(() -> {
+            System.out.println("Warm-up finished " + ManagementFactory.getRuntimeMXBean().getUptime()
+                               + " ms after JVM start");
+            if (Boolean.getBoolean("bookstore.startup.exit")) {
+                System.exit(0);
+            }
         });
     }
 }
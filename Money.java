@@ -0,0 +1,154 @@
+package com.bookstore.model;
+
+import java.math.BigDecimal;
+
+/**
+ * Money value type: an immutable amount in whole cents
+ *
+ * Prices and totals are stored as a long number of cents, so adding up carts
+ * and reports is plain long arithmetic instead of BigDecimal allocations.
+ * Arithmetic throws ArithmeticException on overflow. Converts exactly to and
+ * from DECIMAL(10, 2) columns through toBigDecimal() and of(BigDecimal).
+ */
+public final class Money implements Comparable<Money> {
+    public static final Money ZERO = new Money(0);
+
+    private final long cents;
+
+    private Money(long cents) {
+        this.cents = cents;
+    }
+
+    public static Money ofCents(long cents) {
+        return cents == 0 ? ZERO : new Money(cents);
+    }
+
+    /**
+     * Convert a decimal amount with at most two decimal places (null stays null)
+     */
+    public static Money of(BigDecimal amount) {
+        if (amount == null) {
+            return null;
+        }
+        try {
+            return ofCents(amount.movePointRight(2).longValueExact());
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Amount must have at most two decimal places: " + amount);
+        }
+    }
+
+    /**
+     * Parse an amount such as "12", "12.5", "12.50" or "-0.99"
+     */
+    public static Money parse(String text) {
+        if (text == null) {
+            throw new IllegalArgumentException("Amount is required");
+        }
+        String s = text.trim();
+        int length = s.length();
+        int i = 0;
+        boolean negative = false;
+        if (i < length && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+            negative = s.charAt(i) == '-';
+            i++;
+        }
+
+        long units = 0;
+        int digits = 0;
+        while (i < length && s.charAt(i) >= '0' && s.charAt(i) <= '9') {
+            units = Math.addExact(Math.multiplyExact(units, 10), s.charAt(i) - '0');
+            digits++;
+            i++;
+        }
+        long fraction = 0;
+        int fractionDigits = 0;
+        if (i < length && s.charAt(i) == '.') {
+            i++;
+            while (i < length && s.charAt(i) >= '0' && s.charAt(i) <= '9' && fractionDigits < 2) {
+                fraction = fraction * 10 + (s.charAt(i) - '0');
+                fractionDigits++;
+                i++;
+            }
+        }
+        if (i != length || digits + fractionDigits == 0) {
+            throw new IllegalArgumentException("Invalid amount: " + text);
+        }
+        if (fractionDigits == 1) {
+            fraction *= 10;
+        }
+        long total = Math.addExact(Math.multiplyExact(units, 100), fraction);
+        return ofCents(negative ? -total : total);
+    }
+
+    public long getCents() {
+        return cents;
+    }
+
+    public Money plus(Money other) {
+        return ofCents(Math.addExact(cents, other.cents));
+    }
+
+    public Money minus(Money other) {
+        return ofCents(Math.subtractExact(cents, other.cents));
+    }
+
+    public Money times(int quantity) {
+        return ofCents(Math.multiplyExact(cents, (long) quantity));
+    }
+
+    public Money negate() {
+        return ofCents(Math.negateExact(cents));
+    }
+
+    public boolean isPositive() {
+        return cents > 0;
+    }
+
+    public boolean isNegative() {
+        return cents < 0;
+    }
+
+    public boolean isZero() {
+        return cents == 0;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    /**
+     * Format for display, e.g. "$1,234.50"
+     */
+    public String format() {
+        String amount = String.format("%,d", Math.abs(cents / 100));
+        return (cents < 0 ? "-$" : "$") + amount + "." + twoDigits(Math.abs(cents % 100));
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(cents, other.cents);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Money && ((Money) o).cents == cents;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(cents);
+    }
+
+    /**
+     * Plain decimal form with two decimal places, e.g. "1234.50"
+     */
+    @Override
+    public String toString() {
+        String units = Long.toString(Math.abs(cents / 100));
+        return (cents < 0 ? "-" : "") + units + "." + twoDigits(Math.abs(cents % 100));
+    }
+
+    private static String twoDigits(long value) {
+        return value < 10 ? "0" + value : Long.toString(value);
+    }
+}
@@ -0,0 +1,90 @@
+package com.bookstore.service;
+
+import com.bookstore.tracing.Span;
+import com.bookstore.tracing.Tracer;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Call counters for the operations of a service, one LongAdder each, so
+ * counting calls from many threads does not contend on a shared counter.
+ * Each call is also timed as a JFR event while those are being recorded.
+ */
+final class OperationCounters<E extends Enum<E>> implements OperationCountersMXBean {
+    private final String service;
+    private final E[] operations;
+    private final LongAdder[] calls;
+    private volatile long resetAt = System.currentTimeMillis();
+    
+    private OperationCounters(String service, Class<E> type) {
+        this.service = service;
+        this.operations = type.getEnumConstants();
+        this.calls = new LongAdder[operations.length];
+        for (int i = 0; i < calls.length; i++) {
+            calls[i] = new LongAdder();
+        }
+    }
+    
+    /**
+     * Create the counters for a service and register them with JMX
+     */
+    static <E extends Enum<E>> OperationCounters<E> register(String service, Class<E> type) {
+        OperationCounters<E> counters = new OperationCounters<>(service, type);
+        registerMBean(counters, "com.bookstore:type=Operations,service=" + service);
+        return counters;
+    }
+    
+    /**
+     * Register an MBean of the service layer, logging rather than failing
+     */
+    static void registerMBean(Object mbean, String name) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(mbean, new ObjectName(name));
+        } catch (JMException e) {
+            System.err.println("Could not register MBean " + name + ": " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Count a call and start its JFR event; close the span when the call returns
+     */
+    Span begin(E operation) {
+        calls[operation.ordinal()].increment();
+        return Tracer.get().operation(service, operation.name());
+    }
+    
+    @Override
+    public Map<String, Long> getCalls() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (E operation : operations) {
+            result.put(operation.name(), calls[operation.ordinal()].sum());
+        }
+        return result;
+    }
+    
+    @Override
+    public long getTotalCalls() {
+        long total = 0;
+        for (LongAdder adder : calls) {
+            total += adder.sum();
+        }
+        return total;
+    }
+    
+    @Override
+    public long getMillisSinceReset() {
+        return System.currentTimeMillis() - resetAt;
+    }
+    
+    @Override
+    public void reset() {
+        for (LongAdder adder : calls) {
+            adder.reset();
+        }
+        resetAt = System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,25 @@
+package com.bookstore.service;
+
+import java.util.Map;
+
+/**
+ * JMX view of a service's call counters
+ * (com.bookstore:type=Operations,service=BookService and so on)
+ */
+public interface OperationCountersMXBean {
+    
+    /**
+     * Calls per operation since startup or the last reset; sample twice to
+     * get throughput
+     */
+    Map<String, Long> getCalls();
+    
+    long getTotalCalls();
+    
+    /**
+     * Milliseconds since startup or the last reset
+     */
+    long getMillisSinceReset();
+    
+    void reset();
+}
@@ -1,6 +1,5 @@
 package com.bookstore.model;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -11,7 +10,7 @@ public class Order {
     private int id;
     private int userId;
     private LocalDateTime orderDate;
-    private BigDecimal totalAmount;
+    private Money totalAmount;
     private String status; // PENDING, CONFIRMED, SHIPPED, DELIVERED, CANCELLED
     private String shippingAddress;
     private String paymentMethod;
@@ -21,7 +20,7 @@ public class Order {
     public Order() {}
 
     // Constructor with all fields
-    public Order(int id, int userId, LocalDateTime orderDate, BigDecimal totalAmount,
+    public Order(int id, int userId, LocalDateTime orderDate, Money totalAmount,
                  String status, String shippingAddress, String paymentMethod) {
         this.id = id;
         this.userId = userId;
@@ -33,7 +32,7 @@ public class Order {
     }
 
     // Constructor without ID (for new orders)
-    public Order(int userId, BigDecimal totalAmount, String shippingAddress, String paymentMethod) {
+    public Order(int userId, Money totalAmount, String shippingAddress, String paymentMethod) {
         this.userId = userId;
         this.orderDate = LocalDateTime.now();
         this.totalAmount = totalAmount;
@@ -67,11 +66,11 @@ public class Order {
         this.orderDate = orderDate;
     }
 
-    public BigDecimal getTotalAmount() {
+    public Money getTotalAmount() {
         return totalAmount;
     }
 
-    public void setTotalAmount(BigDecimal totalAmount) {
+    public void setTotalAmount(Money totalAmount) {
         this.totalAmount = totalAmount;
     }
 
@@ -0,0 +1,445 @@
+package com.bookstore.dao;
+
+import com.bookstore.database.DatabaseConnection;
+import com.bookstore.model.Book;
+import com.bookstore.model.Money;
+import com.bookstore.model.Order;
+import com.bookstore.model.OrderItem;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Data Access Object for Order operations
+ */
+public class OrderDAO {
+    private DatabaseConnection dbConnection;
+    private ReportDAO reportDAO;
+    
+    public OrderDAO() {
+        this.dbConnection = DatabaseConnection.getInstance();
+        this.reportDAO = new ReportDAO();
+    }
+    
+    /**
+     * Create an order with its items in a single transaction.
+     * Stock of every line is decremented, prices are taken from the books
+     * table and the order total is computed from them. The sales summaries
+     * are updated in the same transaction. The number of statements is the
+     * same for one line or fifty.
+     *
+     * The order's items must have distinct book IDs; lines whose book ID is in
+     * reservedBookIds have had their stock taken already and are not decremented.
+     * Throws IllegalArgumentException (after rolling back) when a book is
+     * missing or short of stock.
+     */
+    public boolean createOrder(Order order, Set<Integer> reservedBookIds) {
+        try (Connection conn = dbConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                writeOrder(conn, order, reservedBookIds);
+                conn.commit();
+                return true;
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            System.err.println("Error creating order: " + e.getMessage());
+        }
+        return false;
+    }
+    
+    /**
+     * Create an order without any pre-reserved stock
+     */
+    public boolean createOrder(Order order) {
+        return createOrder(order, Collections.<Integer>emptySet());
+    }
+    
+    /**
+     * Get a user's orders, newest first, with their items.
+     * Keyset pagination: pass 0 for the first page, then the ID of the last
+     * order returned; at most limit orders are returned.
+     */
+    public List<Order> getOrdersByUser(int userId, int beforeId, int limit) {
+        String sql = "SELECT * FROM orders WHERE user_id = ? AND id < ? ORDER BY id DESC LIMIT ?";
+        
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setInt(1, userId);
+            stmt.setInt(2, beforeId > 0 ? beforeId : Integer.MAX_VALUE);
+            stmt.setInt(3, limit);
+            
+            List<Order> orders = mapOrders(stmt);
+            loadOrderItems(conn, orders);
+            return orders;
+        } catch (SQLException e) {
+            System.err.println("Error getting orders by user: " + e.getMessage());
+        }
+        return new ArrayList<>();
+    }
+    
+    /**
+     * Get orders with a status, oldest first, with their items.
+     * Keyset pagination: pass 0 for the first page, then the ID of the last
+     * order returned; at most limit orders are returned.
+     */
+    public List<Order> getOrdersByStatus(String status, int afterId, int limit) {
+        String sql = "SELECT * FROM orders WHERE status = ? AND id > ? ORDER BY id LIMIT ?";
+        
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setString(1, status);
+            stmt.setInt(2, afterId);
+            stmt.setInt(3, limit);
+            
+            List<Order> orders = mapOrders(stmt);
+            loadOrderItems(conn, orders);
+            return orders;
+        } catch (SQLException e) {
+            System.err.println("Error getting orders by status: " + e.getMessage());
+        }
+        return new ArrayList<>();
+    }
+    
+    private List<Order> mapOrders(PreparedStatement stmt) throws SQLException {
+        List<Order> orders = new ArrayList<>();
+        try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                orders.add(mapResultSetToOrder(rs));
+            }
+        }
+        return orders;
+    }
+    
+    /**
+     * Fill in the items of all given orders with a single IN (...) query
+     */
+    private void loadOrderItems(Connection conn, List<Order> orders) throws SQLException {
+        if (orders.isEmpty()) {
+            return;
+        }
+        
+        Map<Integer, Order> ordersById = new HashMap<>();
+        for (Order order : orders) {
+            order.setOrderItems(new ArrayList<>());
+            ordersById.put(order.getId(), order);
+        }
+        
+        String sql = "SELECT * FROM order_items WHERE order_id IN (" + placeholders(orders.size()) + ") ORDER BY order_id, id";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < orders.size(); i++) {
+                stmt.setInt(i + 1, orders.get(i).getId());
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    OrderItem item = mapResultSetToOrderItem(rs);
+                    ordersById.get(item.getOrderId()).getOrderItems().add(item);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Write an order on a connection whose transaction is managed by the caller
+     */
+    void writeOrder(Connection conn, Order order, Set<Integer> reservedBookIds) throws SQLException {
+        List<OrderItem> items = order.getOrderItems();
+        
+        decrementStock(conn, items, reservedBookIds);
+        
+        // Rows are locked by the decrement, so these prices cannot change under us
+        Map<Integer, Book> books = getBooks(conn, items);
+        long totalCents = 0;
+        for (OrderItem item : items) {
+            Book book = books.get(item.getBookId());
+            if (book == null) {
+                throw new IllegalArgumentException("Book not found: " + item.getBookId());
+            }
+            item.setUnitPrice(book.getPrice());
+            item.setCategory(book.getCategory());
+            totalCents = Math.addExact(totalCents, item.getSubtotal().getCents());
+        }
+        order.setTotalAmount(Money.ofCents(totalCents));
+        
+        insertOrder(conn, order);
+        insertOrderItems(conn, order);
+        if (!"CANCELLED".equals(order.getStatus())) {
+            reportDAO.recordOrder(conn, order, 1);
+        }
+    }
+    
+    /**
+     * Change an order's status, keeping the sales summaries in step when the
+     * order is cancelled or reinstated
+     */
+    public boolean updateOrderStatus(int orderId, String status) {
+        String selectSql = "SELECT * FROM orders WHERE id = ? FOR UPDATE";
+        String updateSql = "UPDATE orders SET status = ? WHERE id = ?";
+        
+        try (Connection conn = dbConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                Order order = null;
+                try (PreparedStatement stmt = conn.prepareStatement(selectSql)) {
+                    stmt.setInt(1, orderId);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        if (rs.next()) {
+                            order = mapResultSetToOrder(rs);
+                        }
+                    }
+                }
+                if (order == null) {
+                    conn.rollback();
+                    return false;
+                }
+                
+                try (PreparedStatement stmt = conn.prepareStatement(updateSql)) {
+                    stmt.setString(1, status);
+                    stmt.setInt(2, orderId);
+                    stmt.executeUpdate();
+                }
+                
+                boolean wasCounted = !"CANCELLED".equals(order.getStatus());
+                boolean isCounted = !"CANCELLED".equals(status);
+                if (wasCounted != isCounted) {
+                    loadItemsWithCategories(conn, order);
+                    reportDAO.recordOrder(conn, order, isCounted ? 1 : -1);
+                }
+                conn.commit();
+                return true;
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            System.err.println("Error updating order status: " + e.getMessage());
+        }
+        return false;
+    }
+    
+    /**
+     * Load an order's items with the category each was sold in (the book's
+     * current category for items stored before order_items.category existed)
+     */
+    private void loadItemsWithCategories(Connection conn, Order order) throws SQLException {
+        List<OrderItem> items = new ArrayList<>();
+        String sql = "SELECT oi.*, COALESCE(oi.category, b.category) AS sale_category "
+                   + "FROM order_items oi JOIN books b ON b.id = oi.book_id WHERE oi.order_id = ?";
+        
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, order.getId());
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    OrderItem item = mapResultSetToOrderItem(rs);
+                    item.setCategory(rs.getString("sale_category"));
+                    items.add(item);
+                }
+            }
+        }
+        order.setOrderItems(items);
+    }
+    
+    /**
+     * Decrement stock of all lines with one conditional UPDATE
+     */
+    private void decrementStock(Connection conn, List<OrderItem> items, Set<Integer> reservedBookIds) throws SQLException {
+        int lines = 0;
+        StringBuilder quantityCase = new StringBuilder("CASE id");
+        for (OrderItem item : items) {
+            if (!reservedBookIds.contains(item.getBookId())) {
+                quantityCase.append(" WHEN ? THEN ?");
+                lines++;
+            }
+        }
+        if (lines == 0) {
+            return;
+        }
+        quantityCase.append(" END");
+        
+        String sql = "UPDATE books SET stock_quantity = stock_quantity - " + quantityCase
+                   + " WHERE id IN (" + placeholders(lines) + ") AND is_active = TRUE"
+                   + " AND stock_quantity >= " + quantityCase;
+        
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            int index = 1;
+            for (int pass = 0; pass < 3; pass++) {
+                for (OrderItem item : items) {
+                    if (reservedBookIds.contains(item.getBookId())) {
+                        continue;
+                    }
+                    stmt.setInt(index++, item.getBookId());
+                    if (pass != 1) {
+                        stmt.setInt(index++, item.getQuantity());
+                    }
+                }
+            }
+            
+            if (stmt.executeUpdate() < lines) {
+                throw new IllegalArgumentException(describeShortage(conn, items, reservedBookIds));
+            }
+        }
+    }
+    
+    /**
+     * Find the first line that could not be served (failure path only)
+     */
+    private String describeShortage(Connection conn, List<OrderItem> items, Set<Integer> reservedBookIds) throws SQLException {
+        Map<Integer, Integer> stock = new HashMap<>();
+        String sql = "SELECT id, stock_quantity FROM books WHERE id IN (" + placeholders(items.size()) + ") AND is_active = TRUE";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < items.size(); i++) {
+                stmt.setInt(i + 1, items.get(i).getBookId());
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    stock.put(rs.getInt("id"), rs.getInt("stock_quantity"));
+                }
+            }
+        }
+        
+        for (OrderItem item : items) {
+            if (reservedBookIds.contains(item.getBookId())) {
+                continue;
+            }
+            Integer available = stock.get(item.getBookId());
+            if (available == null) {
+                return "Book not found: " + item.getBookId();
+            }
+            if (available < item.getQuantity()) {
+                return "Insufficient stock for book ID " + item.getBookId() + ". Available: " + available;
+            }
+        }
+        return "Insufficient stock";
+    }
+    
+    /**
+     * Get current price and category of all ordered books
+     */
+    private Map<Integer, Book> getBooks(Connection conn, List<OrderItem> items) throws SQLException {
+        Map<Integer, Book> books = new HashMap<>();
+        String sql = "SELECT id, price, category FROM books WHERE id IN (" + placeholders(items.size()) + ") AND is_active = TRUE";
+        
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < items.size(); i++) {
+                stmt.setInt(i + 1, items.get(i).getBookId());
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Book book = new Book();
+                    book.setId(rs.getInt("id"));
+                    book.setPrice(Money.of(rs.getBigDecimal("price")));
+                    book.setCategory(rs.getString("category"));
+                    books.put(book.getId(), book);
+                }
+            }
+        }
+        return books;
+    }
+    
+    private void insertOrder(Connection conn, Order order) throws SQLException {
+        String sql = "INSERT INTO orders (user_id, order_date, total_amount, status, shipping_address, payment_method) VALUES (?, ?, ?, ?, ?, ?)";
+        
+        try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            stmt.setInt(1, order.getUserId());
+            stmt.setTimestamp(2, Timestamp.valueOf(order.getOrderDate()));
+            stmt.setBigDecimal(3, order.getTotalAmount().toBigDecimal());
+            stmt.setString(4, order.getStatus());
+            stmt.setString(5, order.getShippingAddress());
+            stmt.setString(6, order.getPaymentMethod());
+            stmt.executeUpdate();
+            
+            try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                if (generatedKeys.next()) {
+                    order.setId(generatedKeys.getInt(1));
+                }
+            }
+        }
+    }
+    
+    /**
+     * Insert all items of an order with one multi-row INSERT
+     */
+    private void insertOrderItems(Connection conn, Order order) throws SQLException {
+        List<OrderItem> items = order.getOrderItems();
+        StringBuilder sql = new StringBuilder("INSERT INTO order_items (order_id, book_id, quantity, unit_price, subtotal, category) VALUES ");
+        for (int i = 0; i < items.size(); i++) {
+            sql.append(i == 0 ? "(?, ?, ?, ?, ?, ?)" : ", (?, ?, ?, ?, ?, ?)");
+        }
+        
+        try (PreparedStatement stmt = conn.prepareStatement(sql.toString(), Statement.RETURN_GENERATED_KEYS)) {
+            int index = 1;
+            for (OrderItem item : items) {
+                item.setOrderId(order.getId());
+                stmt.setInt(index++, order.getId());
+                stmt.setInt(index++, item.getBookId());
+                stmt.setInt(index++, item.getQuantity());
+                stmt.setBigDecimal(index++, item.getUnitPrice().toBigDecimal());
+                stmt.setBigDecimal(index++, item.getSubtotal().toBigDecimal());
+                stmt.setString(index++, item.getCategory() == null ? "" : item.getCategory());
+            }
+            stmt.executeUpdate();
+            
+            try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                for (OrderItem item : items) {
+                    if (!generatedKeys.next()) {
+                        break;
+                    }
+                    item.setId(generatedKeys.getInt(1));
+                }
+            }
+        }
+    }
+    
+    /**
+     * Map ResultSet to Order object
+     */
+    private Order mapResultSetToOrder(ResultSet rs) throws SQLException {
+        Order order = new Order();
+        order.setId(rs.getInt("id"));
+        order.setUserId(rs.getInt("user_id"));
+        
+        Timestamp orderDate = rs.getTimestamp("order_date");
+        if (orderDate != null) {
+            order.setOrderDate(orderDate.toLocalDateTime());
+        }
+        
+        order.setTotalAmount(Money.of(rs.getBigDecimal("total_amount")));
+        order.setStatus(rs.getString("status"));
+        order.setShippingAddress(rs.getString("shipping_address"));
+        order.setPaymentMethod(rs.getString("payment_method"));
+        return order;
+    }
+    
+    /**
+     * Map ResultSet to OrderItem object
+     */
+    private OrderItem mapResultSetToOrderItem(ResultSet rs) throws SQLException {
+        OrderItem item = new OrderItem();
+        item.setId(rs.getInt("id"));
+        item.setOrderId(rs.getInt("order_id"));
+        item.setBookId(rs.getInt("book_id"));
+        item.setQuantity(rs.getInt("quantity"));
+        item.setUnitPrice(Money.of(rs.getBigDecimal("unit_price")));
+        item.setSubtotal(Money.of(rs.getBigDecimal("subtotal")));
+        return item;
+    }
+    
+    /**
+     * Build "?, ?, ?" with count placeholders
+     */
+    private static String placeholders(int count) {
+        StringBuilder sb = new StringBuilder(count * 3);
+        for (int i = 0; i < count; i++) {
+            sb.append(i == 0 ? "?" : ", ?");
+        }
+        return sb.toString();
+    }
+}
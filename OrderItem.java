@@ -1,7 +1,5 @@
 package com.bookstore.model;
 
-import java.math.BigDecimal;
-
 /**
  * OrderItem model class representing an item within an order
  */
@@ -10,29 +8,30 @@ public class OrderItem {
     private int orderId;
     private int bookId;
     private int quantity;
-    private BigDecimal unitPrice;
-    private BigDecimal subtotal;
+    private Money unitPrice;
+    private Money subtotal;
+    private String category; // Book category when the order was placed ("" if it had none)
 
     // Default constructor
     public OrderItem() {}
 
     // Constructor with all fields
-    public OrderItem(int id, int orderId, int bookId, int quantity, BigDecimal unitPrice) {
+    public OrderItem(int id, int orderId, int bookId, int quantity, Money unitPrice) {
         this.id = id;
         this.orderId = orderId;
         this.bookId = bookId;
         this.quantity = quantity;
         this.unitPrice = unitPrice;
-        this.subtotal = unitPrice.multiply(BigDecimal.valueOf(quantity));
+        this.subtotal = unitPrice.times(quantity);
     }
 
     // Constructor without ID (for new order items)
-    public OrderItem(int orderId, int bookId, int quantity, BigDecimal unitPrice) {
+    public OrderItem(int orderId, int bookId, int quantity, Money unitPrice) {
         this.orderId = orderId;
         this.bookId = bookId;
         this.quantity = quantity;
         this.unitPrice = unitPrice;
-        this.subtotal = unitPrice.multiply(BigDecimal.valueOf(quantity));
+        this.subtotal = unitPrice.times(quantity);
     }
 
     // Getters and Setters
@@ -66,26 +65,36 @@ public class OrderItem {
 
     public void setQuantity(int quantity) {
         this.quantity = quantity;
-        this.subtotal = unitPrice.multiply(BigDecimal.valueOf(quantity));
+        if (unitPrice != null) {
+            this.subtotal = unitPrice.times(quantity);
+        }
     }
 
-    public BigDecimal getUnitPrice() {
+    public Money getUnitPrice() {
         return unitPrice;
     }
 
-    public void setUnitPrice(BigDecimal unitPrice) {
+    public void setUnitPrice(Money unitPrice) {
         this.unitPrice = unitPrice;
-        this.subtotal = unitPrice.multiply(BigDecimal.valueOf(quantity));
+        this.subtotal = unitPrice.times(quantity);
     }
 
-    public BigDecimal getSubtotal() {
+    public Money getSubtotal() {
         return subtotal;
     }
 
-    public void setSubtotal(BigDecimal subtotal) {
+    public void setSubtotal(Money subtotal) {
         this.subtotal = subtotal;
     }
 
+    public String getCategory() {
+        return category;
+    }
+
+    public void setCategory(String category) {
+        this.category = category;
+    }
+
     @Override
     public String toString() {
         return "OrderItem{" +
@@ -0,0 +1,52 @@
+package com.bookstore.model;
+
+import java.util.List;
+
+/**
+ * One page of orders together with the token for the next page
+ */
+public class OrderPage {
+    private List<Order> orders;
+    private String nextPageToken;
+
+    // Default constructor
+    public OrderPage() {}
+
+    // Constructor with all fields
+    public OrderPage(List<Order> orders, String nextPageToken) {
+        this.orders = orders;
+        this.nextPageToken = nextPageToken;
+    }
+
+    // Getters and Setters
+    public List<Order> getOrders() {
+        return orders;
+    }
+
+    public void setOrders(List<Order> orders) {
+        this.orders = orders;
+    }
+
+    /**
+     * Token to pass back for the next page, or null on the last page
+     */
+    public String getNextPageToken() {
+        return nextPageToken;
+    }
+
+    public void setNextPageToken(String nextPageToken) {
+        this.nextPageToken = nextPageToken;
+    }
+
+    public boolean hasNextPage() {
+        return nextPageToken != null;
+    }
+
+    @Override
+    public String toString() {
+        return "OrderPage{" +
+                "orders=" + (orders == null ? 0 : orders.size()) +
+                ", nextPageToken='" + nextPageToken + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,232 @@
+package com.bookstore.service;
+
+import com.bookstore.analytics.BestsellerTracker;
+import com.bookstore.analytics.CoPurchaseIndex;
+import com.bookstore.dao.OrderDAO;
+import com.bookstore.dao.OrderWritePipeline;
+import com.bookstore.model.Order;
+import com.bookstore.model.OrderItem;
+import com.bookstore.model.OrderPage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Service layer for Order operations
+ * Contains business logic and validation
+ */
+public class OrderService {
+    private static final int PAGE_SIZE = 50;
+    private static final List<String> STATUSES = Arrays.asList("PENDING", "CONFIRMED", "SHIPPED", "DELIVERED", "CANCELLED");
+    private OrderDAO orderDAO;
+    private HotStockInventory hotStock;
+    
+    public OrderService() {
+        this.orderDAO = new OrderDAO();
+        this.hotStock = HotStockInventory.getInstance();
+    }
+    
+    /**
+     * Place an order for the given items (book ID and quantity of each line).
+     * Stock is reserved, prices are looked up and the order is stored in one
+     * transaction; returns the stored order, or null if it could not be saved.
+     */
+    public Order placeOrder(int userId, List<OrderItem> items, String shippingAddress, String paymentMethod) {
+        validateOrder(userId, items, shippingAddress, paymentMethod);
+        
+        List<OrderItem> lines = mergeLines(items);
+        Order order = new Order(userId, null, shippingAddress.trim(), paymentMethod.trim());
+        order.setOrderItems(lines);
+        
+        // Hot titles are served from leased in-memory stock instead of the row
+        Set<Integer> reservedBookIds = reserveHotStock(lines);
+        boolean success = false;
+        try {
+            success = orderDAO.createOrder(order, reservedBookIds);
+        } finally {
+            if (!success) {
+                releaseHotStock(lines, reservedBookIds);
+            }
+        }
+        if (!success) {
+            return null;
+        }
+        recordSale(order);
+        return order;
+    }
+    
+    /**
+     * Place an order through the group-commit pipeline. Concurrent orders are
+     * committed together in one transaction; the future completes with the
+     * stored order, or exceptionally if this order could not be placed.
+     * Use this for high-volume checkout, where many callers place orders at once.
+     */
+    public CompletableFuture<Order> placeOrderAsync(int userId, List<OrderItem> items, String shippingAddress, String paymentMethod) {
+        validateOrder(userId, items, shippingAddress, paymentMethod);
+        
+        List<OrderItem> lines = mergeLines(items);
+        Order order = new Order(userId, null, shippingAddress.trim(), paymentMethod.trim());
+        order.setOrderItems(lines);
+        
+        Set<Integer> reservedBookIds = reserveHotStock(lines);
+        return OrderWritePipeline.getInstance().submit(order, reservedBookIds)
+            .whenComplete((placed, error) -> {
+                if (error != null) {
+                    releaseHotStock(lines, reservedBookIds);
+                } else {
+                    recordSale(placed);
+                }
+            });
+    }
+    
+    /**
+     * Get a page of a user's orders (newest first) with their items.
+     * Pass null for the first page, then the token from the previous page.
+     */
+    public OrderPage getOrdersForUser(int userId, String pageToken) {
+        int beforeId = parsePageToken(pageToken);
+        // Fetch one extra row to learn whether another page follows
+        List<Order> orders = orderDAO.getOrdersByUser(userId, beforeId, PAGE_SIZE + 1);
+        return toPage(orders);
+    }
+    
+    /**
+     * Get a page of orders with the given status (oldest first) with their items (admin only).
+     * Pass null for the first page, then the token from the previous page.
+     */
+    public OrderPage getOrdersByStatus(String status, String pageToken) {
+        if (status == null || !STATUSES.contains(status)) {
+            throw new IllegalArgumentException("Invalid order status");
+        }
+        int afterId = parsePageToken(pageToken);
+        List<Order> orders = orderDAO.getOrdersByStatus(status, afterId, PAGE_SIZE + 1);
+        return toPage(orders);
+    }
+    
+    /**
+     * Change an order's status (admin only)
+     */
+    public boolean updateOrderStatus(int orderId, String status) {
+        if (status == null || !STATUSES.contains(status)) {
+            throw new IllegalArgumentException("Invalid order status");
+        }
+        return orderDAO.updateOrderStatus(orderId, status);
+    }
+    
+    /**
+     * Feed a placed order to the in-memory bestseller and co-purchase indexes,
+     * and note its stock changes for catalog versions
+     */
+    private void recordSale(Order order) {
+        BestsellerTracker.getInstance().recordOrder(order);
+        CoPurchaseIndex.getInstance().recordOrder(order);
+        CatalogVersion.getInstance().changed();
+    }
+    
+    private OrderPage toPage(List<Order> orders) {
+        if (orders.size() <= PAGE_SIZE) {
+            return new OrderPage(orders, null);
+        }
+        List<Order> page = new ArrayList<>(orders.subList(0, PAGE_SIZE));
+        return new OrderPage(page, String.valueOf(page.get(PAGE_SIZE - 1).getId()));
+    }
+    
+    /**
+     * Page tokens carry the ID of the last order on the previous page
+     */
+    private int parsePageToken(String pageToken) {
+        if (pageToken == null || pageToken.isEmpty()) {
+            return 0;
+        }
+        try {
+            int id = Integer.parseInt(pageToken);
+            if (id > 0) {
+                return id;
+            }
+        } catch (NumberFormatException e) {
+            // Fall through to the error below
+        }
+        throw new IllegalArgumentException("Invalid page token");
+    }
+    
+    /**
+     * Combine lines for the same book and sort them by book ID, so concurrent
+     * orders lock book rows in the same order
+     */
+    private List<OrderItem> mergeLines(List<OrderItem> items) {
+        Map<Integer, Integer> quantities = new TreeMap<>();
+        for (OrderItem item : items) {
+            quantities.merge(item.getBookId(), item.getQuantity(), Integer::sum);
+        }
+        
+        List<OrderItem> lines = new ArrayList<>(quantities.size());
+        for (Map.Entry<Integer, Integer> entry : quantities.entrySet()) {
+            OrderItem line = new OrderItem();
+            line.setBookId(entry.getKey());
+            line.setQuantity(entry.getValue());
+            lines.add(line);
+        }
+        return lines;
+    }
+    
+    private Set<Integer> reserveHotStock(List<OrderItem> lines) {
+        Set<Integer> reserved = new HashSet<>();
+        if (!hotStock.hasHotItems()) {
+            return reserved;
+        }
+        for (OrderItem line : lines) {
+            if (!hotStock.isHot(line.getBookId())) {
+                continue;
+            }
+            if (!hotStock.reduce(line.getBookId(), line.getQuantity())) {
+                releaseHotStock(lines, reserved);
+                throw new IllegalArgumentException("Insufficient stock for book ID " + line.getBookId());
+            }
+            reserved.add(line.getBookId());
+        }
+        return reserved;
+    }
+    
+    private void releaseHotStock(List<OrderItem> lines, Set<Integer> reservedBookIds) {
+        for (OrderItem line : lines) {
+            if (reservedBookIds.contains(line.getBookId())) {
+                hotStock.release(line.getBookId(), line.getQuantity());
+            }
+        }
+    }
+    
+    /**
+     * Validate order data
+     */
+    private void validateOrder(int userId, List<OrderItem> items, String shippingAddress, String paymentMethod) {
+        if (userId <= 0) {
+            throw new IllegalArgumentException("User is required");
+        }
+        
+        if (items == null || items.isEmpty()) {
+            throw new IllegalArgumentException("Order must contain at least one item");
+        }
+        
+        for (OrderItem item : items) {
+            if (item == null) {
+                throw new IllegalArgumentException("Order item cannot be null");
+            }
+            if (item.getQuantity() <= 0) {
+                throw new IllegalArgumentException("Quantity must be positive");
+            }
+        }
+        
+        if (shippingAddress == null || shippingAddress.trim().isEmpty()) {
+            throw new IllegalArgumentException("Shipping address is required");
+        }
+        
+        if (paymentMethod == null || paymentMethod.trim().isEmpty()) {
+            throw new IllegalArgumentException("Payment method is required");
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.bookstore.dao;
+
+import com.bookstore.database.DatabaseConnection;
+import com.bookstore.model.Order;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Group commit for concurrent order writes
+ *
+ * Orders submitted by many callers are collected for a short window (bounded
+ * by batch size and time) and written by a single writer thread in one
+ * transaction, so the database flushes its log once per batch instead of once
+ * per order. Each order is written behind its own savepoint: an order that
+ * fails (missing book, short stock) is rolled back on its own and only its
+ * caller's future fails; the rest of the batch still commits.
+ *
+ * When the writer stops (shutdown or interrupt), every order it has not
+ * written, whether collected into a batch or still queued, fails instead of
+ * leaving its caller waiting.
+ */
+public class OrderWritePipeline {
+    private static final int DEFAULT_MAX_BATCH_SIZE = 64;
+    private static final long DEFAULT_MAX_DELAY_MICROS = 500;
+    private static final int QUEUE_CAPACITY = 4096;
+    private static final int MAX_ATTEMPTS = 3;
+    private static OrderWritePipeline instance;
+    
+    private final DatabaseConnection dbConnection;
+    private final OrderDAO orderDAO;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final BlockingQueue<PendingOrder> queue;
+    private final Thread writer;
+    private volatile boolean running = true;
+    private volatile boolean stopped; // Set once the writer has left its loop
+    
+    public OrderWritePipeline(int maxBatchSize, long maxDelayMicros) {
+        if (maxBatchSize <= 0 || maxDelayMicros < 0) {
+            throw new IllegalArgumentException("Batch size must be positive and delay cannot be negative");
+        }
+        this.dbConnection = DatabaseConnection.getInstance();
+        this.orderDAO = new OrderDAO();
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = TimeUnit.MICROSECONDS.toNanos(maxDelayMicros);
+        this.queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        this.writer = new Thread(this::runWriter, "order-write-pipeline");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+    
+    /**
+     * Get the shared pipeline with default batching settings
+     */
+    public static synchronized OrderWritePipeline getInstance() {
+        if (instance == null) {
+            instance = new OrderWritePipeline(DEFAULT_MAX_BATCH_SIZE, DEFAULT_MAX_DELAY_MICROS);
+            Runtime.getRuntime().addShutdownHook(new Thread(instance::shutdown, "order-write-pipeline-shutdown"));
+        }
+        return instance;
+    }
+    
+    /**
+     * Queue an order for writing. The future completes with the stored order
+     * once its batch commits, or exceptionally if this order or the batch failed.
+     * Lines whose book ID is in reservedBookIds are not decremented (see OrderDAO).
+     */
+    public CompletableFuture<Order> submit(Order order, Set<Integer> reservedBookIds) {
+        CompletableFuture<Order> future = new CompletableFuture<>();
+        if (!running) {
+            future.completeExceptionally(new IllegalStateException("Order pipeline is shut down"));
+        } else if (!queue.offer(new PendingOrder(order, reservedBookIds, future))) {
+            future.completeExceptionally(new IllegalStateException("Too many pending orders, please try again"));
+        } else if (stopped) {
+            // The writer finished draining before this order arrived
+            failQueued(new IllegalStateException("Order pipeline is shut down"));
+        }
+        return future;
+    }
+    
+    /**
+     * Stop accepting orders and write the ones already queued
+     */
+    public void shutdown() {
+        running = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private void runWriter() {
+        List<PendingOrder> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingOrder first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                
+                // Collect whatever else arrives within the batching window
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingOrder next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                running = false;
+                fail(batch, new IllegalStateException("Order pipeline was interrupted"));
+            } catch (RuntimeException e) {
+                fail(batch, e);
+            } finally {
+                batch.clear();
+            }
+        }
+        stopped = true;
+        failQueued(new IllegalStateException("Order pipeline is shut down"));
+    }
+    
+    /**
+     * Fail every order still queued; used once the writer has stopped
+     */
+    private void failQueued(Throwable error) {
+        PendingOrder pending;
+        while ((pending = queue.poll()) != null) {
+            pending.future.completeExceptionally(error);
+        }
+    }
+    
+    private static void fail(List<PendingOrder> batch, Throwable error) {
+        for (PendingOrder pending : batch) {
+            pending.future.completeExceptionally(error);
+        }
+    }
+    
+    /**
+     * Write a batch in one transaction, retrying when the database rolls back
+     * the whole transaction (deadlock)
+     */
+    private void writeBatch(List<PendingOrder> batch) {
+        SQLException failure = null;
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            try {
+                writeBatchOnce(batch);
+                return;
+            } catch (SQLException e) {
+                failure = e;
+                if (!isTransient(e)) {
+                    break;
+                }
+            }
+        }
+        System.err.println("Error writing order batch: " + failure.getMessage());
+        fail(batch, failure);
+    }
+    
+    private void writeBatchOnce(List<PendingOrder> batch) throws SQLException {
+        List<Throwable> errors = new ArrayList<>(batch.size());
+        
+        try (Connection conn = dbConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                for (PendingOrder pending : batch) {
+                    Savepoint savepoint = conn.setSavepoint();
+                    try {
+                        orderDAO.writeOrder(conn, pending.order, pending.reservedBookIds);
+                        errors.add(null);
+                    } catch (SQLException e) {
+                        if (isTransient(e)) {
+                            throw e; // The whole transaction is gone
+                        }
+                        conn.rollback(savepoint);
+                        errors.add(e);
+                    } catch (RuntimeException e) {
+                        conn.rollback(savepoint);
+                        errors.add(e);
+                    }
+                }
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+        
+        for (int i = 0; i < batch.size(); i++) {
+            PendingOrder pending = batch.get(i);
+            if (errors.get(i) == null) {
+                pending.future.complete(pending.order);
+            } else {
+                pending.future.completeExceptionally(errors.get(i));
+            }
+        }
+    }
+    
+    /**
+     * Transaction rollback errors such as deadlocks (SQLSTATE class 40)
+     */
+    private static boolean isTransient(SQLException e) {
+        return e.getSQLState() != null && e.getSQLState().startsWith("40");
+    }
+    
+    private static final class PendingOrder {
+        private final Order order;
+        private final Set<Integer> reservedBookIds;
+        private final CompletableFuture<Order> future;
+        
+        PendingOrder(Order order, Set<Integer> reservedBookIds, CompletableFuture<Order> future) {
+            this.order = order;
+            this.reservedBookIds = reservedBookIds;
+            this.future = future;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.bookstore.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.security.spec.KeySpec;
+import java.util.Base64;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+/**
+ * PBKDF2 password hashing on a dedicated, bounded thread pool
+ *
+ * Hashes are stored as "pbkdf2-sha256$iterations$salt$hash" (Base64). The cost
+ * is set with the system property bookstore.auth.pbkdf2.iterations; hashes made
+ * with another cost, and legacy plaintext passwords, still verify and are
+ * reported by needsRehash() so they can be upgraded at the next login.
+ *
+ * Hashing is deliberately slow, so it runs on its own small pool (half the
+ * cores by default, bookstore.auth.threads) with a short queue
+ * (bookstore.auth.queue). When the queue is full, new requests are rejected
+ * at once with a ServiceBusyException instead of piling up, so a login burst
+ * cannot starve other work.
+ */
+public class PasswordHasher {
+    private static final String PREFIX = "pbkdf2-sha256$";
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int DEFAULT_ITERATIONS = 310_000;
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+    private static final long TIMEOUT_SECONDS = 30;
+    private static PasswordHasher instance;
+    
+    private final int iterations;
+    private final String unknownUserHash;
+    private final ThreadPoolExecutor pool;
+    private final SecureRandom random = new SecureRandom();
+    
+    public PasswordHasher(int iterations, int threads, int queueCapacity) {
+        if (iterations <= 0 || threads <= 0 || queueCapacity < 0) {
+            throw new IllegalArgumentException("Iterations and threads must be positive");
+        }
+        this.iterations = iterations;
+        Base64.Encoder encoder = Base64.getEncoder().withoutPadding();
+        this.unknownUserHash = PREFIX + iterations + "$" + encoder.encodeToString(new byte[SALT_BYTES])
+                             + "$" + encoder.encodeToString(new byte[HASH_BITS / 8]);
+        AtomicInteger count = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+            queueCapacity == 0 ? new SynchronousQueue<>() : new ArrayBlockingQueue<>(queueCapacity),
+            runnable -> {
+                Thread thread = new Thread(runnable, "password-hasher-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+    }
+    
+    /**
+     * Start the hashing threads and load the PBKDF2 and random number
+     * implementations ahead of the first login. Cheap: hashes with one iteration.
+     */
+    public void warmUp() {
+        pool.prestartAllCoreThreads();
+        random.nextBytes(new byte[SALT_BYTES]);
+        pbkdf2("warm-up", new byte[SALT_BYTES], 1);
+    }
+    
+    /**
+     * Get the shared hasher configured from system properties
+     */
+    public static synchronized PasswordHasher getInstance() {
+        if (instance == null) {
+            int cores = Runtime.getRuntime().availableProcessors();
+            instance = new PasswordHasher(Integer.getInteger("bookstore.auth.pbkdf2.iterations", DEFAULT_ITERATIONS),
+                                          Integer.getInteger("bookstore.auth.threads", Math.max(1, cores / 2)),
+                                          Integer.getInteger("bookstore.auth.queue", 32));
+        }
+        return instance;
+    }
+    
+    /**
+     * Hash a password on the hashing pool
+     */
+    public String hash(String password) {
+        return await(submit(() -> hashNow(password)));
+    }
+    
+    /**
+     * Check a password against a stored hash (or legacy plaintext) on the hashing pool
+     */
+    public boolean verify(String password, String stored) {
+        return await(submit(() -> verifyNow(password, stored)));
+    }
+    
+    /**
+     * Reject a login for a username that does not exist, after the same PBKDF2
+     * work as a wrong password, so response times do not reveal which
+     * usernames are registered. Always returns false.
+     */
+    public boolean verifyUnknownUser(String password) {
+        verify(password, unknownUserHash);
+        return false;
+    }
+    
+    /**
+     * Check if a stored value should be replaced by a fresh hash
+     */
+    public boolean needsRehash(String stored) {
+        if (stored == null || !stored.startsWith(PREFIX)) {
+            return true;
+        }
+        String[] parts = stored.split("\\$");
+        return parts.length != 4 || !String.valueOf(iterations).equals(parts[1]);
+    }
+    
+    public int getIterations() {
+        return iterations;
+    }
+    
+    /**
+     * Hash on the calling thread
+     */
+    String hashNow(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        byte[] hash = pbkdf2(password, salt, iterations);
+        Base64.Encoder encoder = Base64.getEncoder().withoutPadding();
+        return PREFIX + iterations + "$" + encoder.encodeToString(salt) + "$" + encoder.encodeToString(hash);
+    }
+    
+    /**
+     * Verify on the calling thread
+     */
+    boolean verifyNow(String password, String stored) {
+        if (stored == null) {
+            return false;
+        }
+        if (!stored.startsWith(PREFIX)) {
+            // Legacy row stored before hashing was introduced
+            return MessageDigest.isEqual(stored.getBytes(StandardCharsets.UTF_8), password.getBytes(StandardCharsets.UTF_8));
+        }
+        String[] parts = stored.split("\\$");
+        if (parts.length != 4) {
+            return false;
+        }
+        try {
+            Base64.Decoder decoder = Base64.getDecoder();
+            byte[] expected = decoder.decode(parts[3]);
+            byte[] actual = pbkdf2(password, decoder.decode(parts[2]), Integer.parseInt(parts[1]));
+            return MessageDigest.isEqual(expected, actual);
+        } catch (IllegalArgumentException e) {
+            return false; // Corrupt hash
+        }
+    }
+    
+    private static byte[] pbkdf2(String password, byte[] salt, int iterations) {
+        KeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("PBKDF2 is not available", e);
+        }
+    }
+    
+    private <T> Future<T> submit(Callable<T> task) {
+        try {
+            return pool.submit(task);
+        } catch (RejectedExecutionException e) {
+            throw new ServiceBusyException("Too many login attempts in progress, please try again");
+        }
+    }
+    
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while checking the password");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new ServiceBusyException("Password check timed out, please try again");
+        }
+    }
+}
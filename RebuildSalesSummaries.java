@@ -0,0 +1,24 @@
+package com.bookstore.tools;
+
+import com.bookstore.service.ReportService;
+
+/**
+ * Command-line tool that rebuilds the sales summary tables from all orders.
+ * Run it once after upgrading an existing database, or after bulk changes
+ * made directly in SQL.
+ *
+ * Usage: java -cp ... com.bookstore.tools.RebuildSalesSummaries
+ */
+public class RebuildSalesSummaries {
+    
+    public static void main(String[] args) {
+        long start = System.nanoTime();
+        boolean success = new ReportService().rebuildSummaries();
+        if (success) {
+            System.out.printf("Sales summaries rebuilt in %.1f s%n", (System.nanoTime() - start) / 1e9);
+        } else {
+            System.err.println("Rebuilding sales summaries failed");
+            System.exit(1);
+        }
+    }
+}
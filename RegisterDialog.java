@@ -3,14 +3,20 @@ package com.bookstore.gui;
 import com.bookstore.model.User;
 import com.bookstore.service.UserService;
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.util.concurrent.ExecutionException;
 
 /**
  * Registration dialog for new users
  */
 public class RegisterDialog extends JDialog {
+    private static final int AVAILABILITY_DEBOUNCE_MS = 300;
+    private static final Color AVAILABLE_COLOR = new Color(0, 128, 0);
+    private static final Color TAKEN_COLOR = new Color(192, 0, 0);
     private JTextField usernameField;
     private JPasswordField passwordField;
     private JPasswordField confirmPasswordField;
@@ -21,6 +27,10 @@ public class RegisterDialog extends JDialog {
     private JButton registerButton;
     private JButton cancelButton;
     private UserService userService;
+    private JLabel usernameStatusLabel;
+    private JLabel emailStatusLabel;
+    private Timer availabilityTimer;
+    private long availabilityGeneration;
     
     public RegisterDialog(JFrame parent) {
         super(parent, "Register New User", true);
@@ -45,6 +55,16 @@ public class RegisterDialog extends JDialog {
         registerButton = new JButton("Register");
         cancelButton = new JButton("Cancel");
         
+        // Availability hints next to the username and email fields
+        usernameStatusLabel = new JLabel(" ");
+        emailStatusLabel = new JLabel(" ");
+        Dimension statusSize = new Dimension(110, usernameStatusLabel.getPreferredSize().height);
+        usernameStatusLabel.setPreferredSize(statusSize);
+        emailStatusLabel.setPreferredSize(statusSize);
+        
+        availabilityTimer = new Timer(AVAILABILITY_DEBOUNCE_MS, e -> checkAvailability());
+        availabilityTimer.setRepeats(false);
+        
         // Style the components
         registerButton.setPreferredSize(new Dimension(100, 30));
         cancelButton.setPreferredSize(new Dimension(100, 30));
@@ -90,6 +110,9 @@ public class RegisterDialog extends JDialog {
         gbc.anchor = GridBagConstraints.WEST;
         formPanel.add(usernameField, gbc);
         
+        gbc.gridx = 2; gbc.gridy = 0;
+        formPanel.add(usernameStatusLabel, gbc);
+        
         // Password
         gbc.gridx = 0; gbc.gridy = 1;
         gbc.anchor = GridBagConstraints.EAST;
@@ -117,6 +140,9 @@ public class RegisterDialog extends JDialog {
         gbc.anchor = GridBagConstraints.WEST;
         formPanel.add(emailField, gbc);
         
+        gbc.gridx = 2; gbc.gridy = 3;
+        formPanel.add(emailStatusLabel, gbc);
+        
         // First Name
         gbc.gridx = 0; gbc.gridy = 4;
         gbc.anchor = GridBagConstraints.EAST;
@@ -171,6 +197,96 @@ public class RegisterDialog extends JDialog {
                 dispose();
             }
         });
+        
+        DocumentListener availabilityListener = new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                scheduleAvailabilityCheck();
+            }
+            
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                scheduleAvailabilityCheck();
+            }
+            
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                scheduleAvailabilityCheck();
+            }
+        };
+        usernameField.getDocument().addDocumentListener(availabilityListener);
+        emailField.getDocument().addDocumentListener(availabilityListener);
+    }
+    
+    /**
+     * Restart the debounce timer so a burst of keystrokes results in one check
+     */
+    private void scheduleAvailabilityCheck() {
+        availabilityGeneration++;
+        availabilityTimer.restart();
+    }
+    
+    /**
+     * Check the entered username and email in the background. Most free names
+     * are answered from memory without a database query.
+     */
+    private void checkAvailability() {
+        final long generation = availabilityGeneration;
+        final String username = usernameField.getText().trim();
+        final String email = emailField.getText().trim();
+        final boolean checkUsername = username.length() >= 3;
+        final boolean checkEmail = email.indexOf('@') > 0;
+        if (!checkUsername) {
+            showAvailability(usernameStatusLabel, null);
+        }
+        if (!checkEmail) {
+            showAvailability(emailStatusLabel, null);
+        }
+        if (!checkUsername && !checkEmail) {
+            return;
+        }
+        
+        new SwingWorker<Boolean[], Void>() {
+            @Override
+            protected Boolean[] doInBackground() {
+                return new Boolean[] {
+                    checkUsername ? userService.isUsernameAvailable(username) : null,
+                    checkEmail ? userService.isEmailAvailable(email) : null
+                };
+            }
+            
+            @Override
+            protected void done() {
+                if (generation != availabilityGeneration) {
+                    return; // Out of date: the fields have changed since
+                }
+                try {
+                    Boolean[] available = get();
+                    if (checkUsername) {
+                        showAvailability(usernameStatusLabel, available[0]);
+                    }
+                    if (checkEmail) {
+                        showAvailability(emailStatusLabel, available[1]);
+                    }
+                } catch (InterruptedException | ExecutionException e) {
+                    // Only a hint: registration still reports taken names
+                    showAvailability(usernameStatusLabel, null);
+                    showAvailability(emailStatusLabel, null);
+                }
+            }
+        }.execute();
+    }
+    
+    private void showAvailability(JLabel label, Boolean available) {
+        if (available == null) {
+            label.setText(" ");
+        } else if (available) {
+            label.setText("Available");
+            label.setForeground(AVAILABLE_COLOR);
+        } else {
+            label.setText("Already taken");
+            label.setForeground(TAKEN_COLOR);
+        }
     }
     
     private void performRegistration() {
@@ -196,6 +312,7 @@ public class RegisterDialog extends JDialog {
             return;
         }
         
+        availabilityTimer.stop();
         try {
             User newUser = new User(username, password, email, firstName, lastName, role);
             boolean success = userService.register(newUser);
@@ -0,0 +1,392 @@
+package com.bookstore.dao;
+
+import com.bookstore.database.DatabaseConnection;
+import com.bookstore.model.Money;
+import com.bookstore.model.Order;
+import com.bookstore.model.OrderItem;
+import com.bookstore.model.SalesSummary;
+import java.sql.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Data Access Object for the sales summary tables
+ *
+ * sales_daily, sales_daily_category and sales_daily_book hold revenue and
+ * units per day (and per category / book) for all orders that are not
+ * CANCELLED. They are maintained incrementally in the transaction that places
+ * an order or changes its status, so reports read pre-aggregated rows instead
+ * of joining orders, order_items and books.
+ *
+ * Every checkout of a day would update the same sales_daily row, so the day
+ * is split into STRIPES rows chosen by order ID and readers add them up. The
+ * multi-row upserts lock category and book rows in key order, so concurrent
+ * orders over the same books cannot deadlock.
+ */
+public class ReportDAO {
+    private static final String UNCATEGORIZED = "";
+    private static final int STRIPES = 8;
+    
+    private DatabaseConnection dbConnection;
+    
+    public ReportDAO() {
+        this.dbConnection = DatabaseConnection.getInstance();
+    }
+    
+    /**
+     * Add (sign = 1) or remove (sign = -1) an order's sales in the summaries,
+     * under the category each item was sold in. Runs on the caller's
+     * connection, inside the caller's transaction.
+     */
+    void recordOrder(Connection conn, Order order, int sign) throws SQLException {
+        Date salesDate = Date.valueOf(order.getOrderDate().toLocalDate());
+        
+        int units = 0;
+        // {units, revenue in cents} per category, in key order
+        Map<String, long[]> totalsByCategory = new TreeMap<>();
+        for (OrderItem item : order.getOrderItems()) {
+            units += item.getQuantity();
+            long[] totals = totalsByCategory.computeIfAbsent(categoryKey(item.getCategory()), c -> new long[2]);
+            totals[0] += item.getQuantity();
+            totals[1] = Math.addExact(totals[1], item.getSubtotal().getCents());
+        }
+        
+        String dailySql = "INSERT INTO sales_daily (sales_date, stripe, order_count, units_sold, revenue) VALUES (?, ?, ?, ?, ?) "
+                        + "ON DUPLICATE KEY UPDATE order_count = order_count + VALUES(order_count), "
+                        + "units_sold = units_sold + VALUES(units_sold), revenue = revenue + VALUES(revenue)";
+        try (PreparedStatement stmt = conn.prepareStatement(dailySql)) {
+            stmt.setDate(1, salesDate);
+            stmt.setInt(2, order.getId() % STRIPES); // Same stripe when the order is cancelled later
+            stmt.setInt(3, sign);
+            stmt.setInt(4, sign * units);
+            stmt.setBigDecimal(5, signed(order.getTotalAmount().getCents(), sign));
+            stmt.executeUpdate();
+        }
+        
+        String categorySql = "INSERT INTO sales_daily_category (sales_date, category, units_sold, revenue) VALUES "
+                           + rows(totalsByCategory.size(), "(?, ?, ?, ?)")
+                           + " ON DUPLICATE KEY UPDATE units_sold = units_sold + VALUES(units_sold), revenue = revenue + VALUES(revenue)";
+        try (PreparedStatement stmt = conn.prepareStatement(categorySql)) {
+            int index = 1;
+            for (Map.Entry<String, long[]> entry : totalsByCategory.entrySet()) {
+                stmt.setDate(index++, salesDate);
+                stmt.setString(index++, entry.getKey());
+                stmt.setInt(index++, sign * (int) entry.getValue()[0]);
+                stmt.setBigDecimal(index++, signed(entry.getValue()[1], sign));
+            }
+            stmt.executeUpdate();
+        }
+        
+        List<OrderItem> byBook = new ArrayList<>(order.getOrderItems());
+        byBook.sort(Comparator.comparingInt(OrderItem::getBookId));
+        String bookSql = "INSERT INTO sales_daily_book (sales_date, book_id, units_sold, revenue) VALUES "
+                       + rows(byBook.size(), "(?, ?, ?, ?)")
+                       + " ON DUPLICATE KEY UPDATE units_sold = units_sold + VALUES(units_sold), revenue = revenue + VALUES(revenue)";
+        try (PreparedStatement stmt = conn.prepareStatement(bookSql)) {
+            int index = 1;
+            for (OrderItem item : byBook) {
+                stmt.setDate(index++, salesDate);
+                stmt.setInt(index++, item.getBookId());
+                stmt.setInt(index++, sign * item.getQuantity());
+                stmt.setBigDecimal(index++, signed(item.getSubtotal().getCents(), sign));
+            }
+            stmt.executeUpdate();
+        }
+    }
+    
+    /**
+     * Recompute all summary tables from orders and order_items (for backfills
+     * and after changes that bypass the incremental maintenance)
+     */
+    public boolean rebuildSummaries() {
+        String[] statements = {
+            "DELETE FROM sales_daily",
+            "DELETE FROM sales_daily_category",
+            "DELETE FROM sales_daily_book",
+            "INSERT INTO sales_daily (sales_date, stripe, order_count, units_sold, revenue) "
+                + "SELECT DATE(o.order_date), 0, COUNT(DISTINCT o.id), SUM(oi.quantity), SUM(oi.subtotal) "
+                + "FROM orders o JOIN order_items oi ON oi.order_id = o.id "
+                + "WHERE o.status <> 'CANCELLED' GROUP BY DATE(o.order_date)",
+            "INSERT INTO sales_daily_category (sales_date, category, units_sold, revenue) "
+                + "SELECT DATE(o.order_date), COALESCE(oi.category, b.category, ''), SUM(oi.quantity), SUM(oi.subtotal) "
+                + "FROM orders o JOIN order_items oi ON oi.order_id = o.id JOIN books b ON b.id = oi.book_id "
+                + "WHERE o.status <> 'CANCELLED' GROUP BY DATE(o.order_date), COALESCE(oi.category, b.category, '')",
+            "INSERT INTO sales_daily_book (sales_date, book_id, units_sold, revenue) "
+                + "SELECT DATE(o.order_date), oi.book_id, SUM(oi.quantity), SUM(oi.subtotal) "
+                + "FROM orders o JOIN order_items oi ON oi.order_id = o.id "
+                + "WHERE o.status <> 'CANCELLED' GROUP BY DATE(o.order_date), oi.book_id"
+        };
+        
+        try (Connection conn = dbConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try (Statement stmt = conn.createStatement()) {
+                for (String sql : statements) {
+                    stmt.executeUpdate(sql);
+                }
+                conn.commit();
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            System.err.println("Error rebuilding sales summaries: " + e.getMessage());
+        }
+        return false;
+    }
+    
+    /**
+     * Get sales per day in a date range (inclusive)
+     */
+    public List<SalesSummary> getDailySales(LocalDate from, LocalDate to) {
+        List<SalesSummary> rows = new ArrayList<>();
+        String sql = "SELECT sales_date, SUM(order_count) AS order_count, SUM(units_sold) AS units_sold, SUM(revenue) AS revenue "
+                   + "FROM sales_daily WHERE sales_date BETWEEN ? AND ? GROUP BY sales_date ORDER BY sales_date";
+        
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setDate(1, Date.valueOf(from));
+            stmt.setDate(2, Date.valueOf(to));
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(new SalesSummary(rs.getDate("sales_date").toLocalDate().toString(), rs.getInt("order_count"),
+                                              rs.getInt("units_sold"), Money.of(rs.getBigDecimal("revenue"))));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error getting daily sales: " + e.getMessage());
+        }
+        return rows;
+    }
+    
+    /**
+     * Get sales per category in a date range (inclusive), highest revenue first
+     */
+    public List<SalesSummary> getSalesByCategory(LocalDate from, LocalDate to) {
+        List<SalesSummary> rows = new ArrayList<>();
+        String sql = "SELECT category, SUM(units_sold) AS units_sold, SUM(revenue) AS revenue FROM sales_daily_category "
+                   + "WHERE sales_date BETWEEN ? AND ? GROUP BY category ORDER BY revenue DESC";
+        
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setDate(1, Date.valueOf(from));
+            stmt.setDate(2, Date.valueOf(to));
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    String category = rs.getString("category");
+                    rows.add(new SalesSummary(UNCATEGORIZED.equals(category) ? "Uncategorized" : category, 0,
+                                              rs.getInt("units_sold"), Money.of(rs.getBigDecimal("revenue"))));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error getting sales by category: " + e.getMessage());
+        }
+        return rows;
+    }
+    
+    /**
+     * Get the best-selling books by revenue in a date range (inclusive)
+     */
+    public List<SalesSummary> getTopBooks(LocalDate from, LocalDate to, int limit) {
+        List<SalesSummary> rows = new ArrayList<>();
+        String sql = "SELECT b.title, SUM(s.units_sold) AS units_sold, SUM(s.revenue) AS revenue "
+                   + "FROM sales_daily_book s JOIN books b ON b.id = s.book_id "
+                   + "WHERE s.sales_date BETWEEN ? AND ? GROUP BY s.book_id, b.title ORDER BY revenue DESC LIMIT ?";
+        
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setDate(1, Date.valueOf(from));
+            stmt.setDate(2, Date.valueOf(to));
+            stmt.setInt(3, limit);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(new SalesSummary(rs.getString("title"), 0, rs.getInt("units_sold"), Money.of(rs.getBigDecimal("revenue"))));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error getting top books: " + e.getMessage());
+        }
+        return rows;
+    }
+    
+    /**
+     * Stream order lines with ID greater than afterItemId, in ID order, joined
+     * with their order and book category. The scan stops at the first line of
+     * an order placed at or after placedBefore, so lines of transactions still
+     * in flight are not skipped over but picked up by the next scan.
+     * Returns the number of lines passed to the handler.
+     */
+    public int scanSalesLines(int afterItemId, Timestamp placedBefore, SalesLineHandler handler) {
+        String sql = "SELECT oi.id, oi.order_id, o.user_id, oi.book_id, COALESCE(oi.category, b.category, '') AS category, "
+                   + "o.status, o.order_date, oi.quantity, oi.unit_price, oi.subtotal "
+                   + "FROM order_items oi JOIN orders o ON o.id = oi.order_id JOIN books b ON b.id = oi.book_id "
+                   + "WHERE oi.id > ? ORDER BY oi.id";
+        int count = 0;
+        
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            
+            stmt.setInt(1, afterItemId);
+            stmt.setFetchSize(Integer.MIN_VALUE); // Stream rows instead of buffering the whole result
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Timestamp orderDate = rs.getTimestamp(7);
+                    if (!orderDate.before(placedBefore)) {
+                        break;
+                    }
+                    handler.line(rs.getInt(1), rs.getInt(2), rs.getInt(3), rs.getInt(4), rs.getString(5), rs.getString(6),
+                                 (int) orderDate.toLocalDateTime().toLocalDate().toEpochDay(), rs.getInt(8),
+                                 Money.of(rs.getBigDecimal(9)).getCents(), Money.of(rs.getBigDecimal(10)).getCents());
+                    count++;
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error scanning sales lines: " + e.getMessage());
+        }
+        return count;
+    }
+    
+    /**
+     * Stream units sold per order line since the given time (orders that are
+     * not CANCELLED), oldest first. Returns the number of lines.
+     */
+    public int scanRecentSales(Timestamp since, RecentSaleHandler handler) {
+        String sql = "SELECT oi.book_id, COALESCE(oi.category, b.category) AS category, oi.quantity, o.order_date "
+                   + "FROM orders o JOIN order_items oi ON oi.order_id = o.id JOIN books b ON b.id = oi.book_id "
+                   + "WHERE o.order_date >= ? AND o.status <> 'CANCELLED' ORDER BY o.order_date";
+        int count = 0;
+        
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setTimestamp(1, since);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    handler.sale(rs.getInt(1), rs.getString(2), rs.getInt(3), rs.getTimestamp(4).getTime());
+                    count++;
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error scanning recent sales: " + e.getMessage());
+        }
+        return count;
+    }
+    
+    /**
+     * Get the highest order ID, or 0 when there are no orders
+     */
+    public int getMaxOrderId() {
+        String sql = "SELECT COALESCE(MAX(id), 0) FROM orders";
+        
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            
+            if (rs.next()) {
+                return rs.getInt(1);
+            }
+        } catch (SQLException e) {
+            System.err.println("Error getting max order ID: " + e.getMessage());
+        }
+        return 0;
+    }
+    
+    /**
+     * Stream the book IDs of each order (that is not CANCELLED) with an ID in
+     * (afterOrderId, upToOrderId], in order ID order. Returns the number of orders.
+     */
+    public int scanBaskets(int afterOrderId, int upToOrderId, BasketHandler handler) {
+        String sql = "SELECT oi.order_id, oi.book_id FROM order_items oi JOIN orders o ON o.id = oi.order_id "
+                   + "WHERE oi.order_id > ? AND oi.order_id <= ? AND o.status <> 'CANCELLED' ORDER BY oi.order_id";
+        int count = 0;
+        
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            
+            stmt.setInt(1, afterOrderId);
+            stmt.setInt(2, upToOrderId);
+            stmt.setFetchSize(Integer.MIN_VALUE); // Stream rows instead of buffering the whole result
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                int currentOrderId = 0;
+                int[] bookIds = new int[16];
+                int size = 0;
+                while (rs.next()) {
+                    int orderId = rs.getInt(1);
+                    if (orderId != currentOrderId && size > 0) {
+                        handler.basket(currentOrderId, Arrays.copyOf(bookIds, size));
+                        count++;
+                        size = 0;
+                    }
+                    currentOrderId = orderId;
+                    if (size == bookIds.length) {
+                        bookIds = Arrays.copyOf(bookIds, size * 2);
+                    }
+                    bookIds[size++] = rs.getInt(2);
+                }
+                if (size > 0) {
+                    handler.basket(currentOrderId, Arrays.copyOf(bookIds, size));
+                    count++;
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error scanning order baskets: " + e.getMessage());
+        }
+        return count;
+    }
+    
+    /**
+     * Receives one order line from scanSalesLines
+     */
+    public interface SalesLineHandler {
+        void line(int itemId, int orderId, int userId, int bookId, String category, String status,
+                  int epochDay, int quantity, long unitPriceCents, long subtotalCents);
+    }
+    
+    /**
+     * Receives one order line from scanRecentSales
+     */
+    public interface RecentSaleHandler {
+        void sale(int bookId, String category, int quantity, long orderTimeMillis);
+    }
+    
+    /**
+     * Receives the book IDs of one order from scanBaskets
+     */
+    public interface BasketHandler {
+        void basket(int orderId, int[] bookIds);
+    }
+    
+    private static String categoryKey(String category) {
+        return category == null ? UNCATEGORIZED : category;
+    }
+    
+    private static BigDecimal signed(long cents, int sign) {
+        return BigDecimal.valueOf(sign < 0 ? -cents : cents, 2);
+    }
+    
+    private static String rows(int count, String row) {
+        StringBuilder sb = new StringBuilder(count * (row.length() + 2));
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(row);
+        }
+        return sb.toString();
+    }
+}
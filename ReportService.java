@@ -0,0 +1,89 @@
+package com.bookstore.service;
+
+import com.bookstore.analytics.SalesAggregate;
+import com.bookstore.analytics.SalesQuery;
+import com.bookstore.analytics.SalesSnapshot;
+import com.bookstore.dao.ReportDAO;
+import com.bookstore.model.SalesSummary;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Service layer for sales reports
+ * Reads the pre-aggregated sales summary tables
+ */
+public class ReportService {
+    private static final long SNAPSHOT_MAX_AGE_MILLIS = 60_000;
+    private ReportDAO reportDAO;
+    
+    public ReportService() {
+        this.reportDAO = new ReportDAO();
+    }
+    
+    /**
+     * Get revenue and units per category over the last given number of days
+     */
+    public List<SalesSummary> getRevenueByCategory(int days) {
+        LocalDate today = LocalDate.now();
+        return getRevenueByCategory(today.minusDays(Math.max(days, 1) - 1), today);
+    }
+    
+    /**
+     * Get revenue and units per category in a date range (inclusive)
+     */
+    public List<SalesSummary> getRevenueByCategory(LocalDate from, LocalDate to) {
+        validateRange(from, to);
+        return reportDAO.getSalesByCategory(from, to);
+    }
+    
+    /**
+     * Get orders, units and revenue per day in a date range (inclusive)
+     */
+    public List<SalesSummary> getDailySales(LocalDate from, LocalDate to) {
+        validateRange(from, to);
+        return reportDAO.getDailySales(from, to);
+    }
+    
+    /**
+     * Get the best-selling books by revenue in a date range (inclusive)
+     */
+    public List<SalesSummary> getTopBooks(LocalDate from, LocalDate to, int limit) {
+        validateRange(from, to);
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        return reportDAO.getTopBooks(from, to, limit);
+    }
+    
+    /**
+     * Run an ad-hoc query (any date range, category, price band, user or book)
+     * on the in-memory sales snapshot. The snapshot is loaded on first use and
+     * picks up new orders at most a minute after they are placed; status
+     * changes of older orders show up after SalesSnapshot.reload().
+     */
+    public List<SalesAggregate> querySales(SalesQuery query) {
+        SalesSnapshot snapshot = SalesSnapshot.getInstance();
+        snapshot.refreshIfOlderThan(SNAPSHOT_MAX_AGE_MILLIS);
+        return snapshot.query(query);
+    }
+    
+    /**
+     * Recompute the summary tables from all orders (backfill)
+     */
+    public boolean rebuildSummaries() {
+        return reportDAO.rebuildSummaries();
+    }
+    
+    /**
+     * Validate a report date range
+     */
+    private void validateRange(LocalDate from, LocalDate to) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("Start and end dates are required");
+        }
+        
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("Start date must not be after end date");
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.bookstore.analytics;
+
+import com.bookstore.model.Money;
+
+/**
+ * One result row of a SalesSnapshot query
+ */
+public class SalesAggregate {
+    private final int key;
+    private final String label;
+    private final long lines;
+    private final long units;
+    private final long revenueCents;
+    
+    public SalesAggregate(int key, String label, long lines, long units, long revenueCents) {
+        this.key = key;
+        this.label = label;
+        this.lines = lines;
+        this.units = units;
+        this.revenueCents = revenueCents;
+    }
+    
+    /**
+     * Group key: epoch day, category code, book ID, user ID or price band number
+     */
+    public int getKey() {
+        return key;
+    }
+    
+    public String getLabel() {
+        return label;
+    }
+    
+    public long getLines() {
+        return lines;
+    }
+    
+    public long getUnits() {
+        return units;
+    }
+    
+    public long getRevenueCents() {
+        return revenueCents;
+    }
+    
+    public Money getRevenue() {
+        return Money.ofCents(revenueCents);
+    }
+    
+    @Override
+    public String toString() {
+        return label + ": " + units + " units, " + getRevenue();
+    }
+}
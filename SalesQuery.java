@@ -0,0 +1,147 @@
+package com.bookstore.analytics;
+
+import com.bookstore.model.Money;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Filter and grouping for a SalesSnapshot query
+ *
+ * All filters are optional and combined with AND. Cancelled orders are
+ * excluded unless includeCancelled() is set. Setters return the query so
+ * they can be chained:
+ * new SalesQuery().between(from, to).category("Fiction").groupBy(GroupBy.PRICE_BAND)
+ */
+public class SalesQuery {
+    public static final String UNCATEGORIZED = "Uncategorized";
+    public static final long PRICE_BAND_CENTS = 1000;
+    
+    public enum GroupBy { NONE, DAY, CATEGORY, BOOK, USER, PRICE_BAND }
+    
+    private int fromDay = Integer.MIN_VALUE;
+    private int toDay = Integer.MAX_VALUE;
+    private final Set<String> categories = new HashSet<>();
+    private long minUnitPriceCents = Long.MIN_VALUE;
+    private long maxUnitPriceCents = Long.MAX_VALUE;
+    private int userId;
+    private int bookId;
+    private boolean includeCancelled;
+    private GroupBy groupBy = GroupBy.NONE;
+    
+    /**
+     * Only orders placed from one date to another (inclusive)
+     */
+    public SalesQuery between(LocalDate from, LocalDate to) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("Start and end dates are required");
+        }
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("Start date must not be after end date");
+        }
+        this.fromDay = (int) from.toEpochDay();
+        this.toDay = (int) to.toEpochDay();
+        return this;
+    }
+    
+    /**
+     * Only books in this category; may be called several times to allow more categories
+     */
+    public SalesQuery category(String category) {
+        if (category == null || category.trim().isEmpty()) {
+            throw new IllegalArgumentException("Category is required");
+        }
+        categories.add(category.trim());
+        return this;
+    }
+    
+    /**
+     * Only lines with a unit price in this range (inclusive)
+     */
+    public SalesQuery priceBetween(Money min, Money max) {
+        if (min == null || max == null || min.compareTo(max) > 0) {
+            throw new IllegalArgumentException("Invalid price range");
+        }
+        this.minUnitPriceCents = min.getCents();
+        this.maxUnitPriceCents = max.getCents();
+        return this;
+    }
+    
+    /**
+     * Only orders of this user
+     */
+    public SalesQuery user(int userId) {
+        if (userId <= 0) {
+            throw new IllegalArgumentException("Invalid user ID");
+        }
+        this.userId = userId;
+        return this;
+    }
+    
+    /**
+     * Only lines of this book
+     */
+    public SalesQuery book(int bookId) {
+        if (bookId <= 0) {
+            throw new IllegalArgumentException("Invalid book ID");
+        }
+        this.bookId = bookId;
+        return this;
+    }
+    
+    /**
+     * Count lines of cancelled orders too
+     */
+    public SalesQuery includeCancelled() {
+        this.includeCancelled = true;
+        return this;
+    }
+    
+    /**
+     * Group results by this dimension (default: a single total)
+     */
+    public SalesQuery groupBy(GroupBy groupBy) {
+        if (groupBy == null) {
+            throw new IllegalArgumentException("Grouping is required");
+        }
+        this.groupBy = groupBy;
+        return this;
+    }
+    
+    public int getFromDay() {
+        return fromDay;
+    }
+    
+    public int getToDay() {
+        return toDay;
+    }
+    
+    public Set<String> getCategories() {
+        return Collections.unmodifiableSet(categories);
+    }
+    
+    public long getMinUnitPriceCents() {
+        return minUnitPriceCents;
+    }
+    
+    public long getMaxUnitPriceCents() {
+        return maxUnitPriceCents;
+    }
+    
+    public int getUserId() {
+        return userId;
+    }
+    
+    public int getBookId() {
+        return bookId;
+    }
+    
+    public boolean isIncludeCancelled() {
+        return includeCancelled;
+    }
+    
+    public GroupBy getGroupBy() {
+        return groupBy;
+    }
+}
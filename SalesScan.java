@@ -0,0 +1,105 @@
+package com.bookstore.analytics;
+
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Fork/join scan of a row range of the snapshot columns
+ *
+ * Ranges are split in halves until they are small enough for one task; each
+ * leaf filters its rows and sums them into its own GroupTotals, which are
+ * merged on the way back up, so scanning threads share no mutable state.
+ */
+class SalesScan extends RecursiveTask<GroupTotals> {
+    private static final int LEAF_ROWS = 1 << 15;
+    
+    private final SalesSnapshot.Columns columns;
+    private final SalesQuery query;
+    private final boolean[] categoryMask;
+    private final int cancelledCode;
+    private final int from;
+    private final int to;
+    
+    SalesScan(SalesSnapshot.Columns columns, SalesQuery query, boolean[] categoryMask, int cancelledCode, int from, int to) {
+        this.columns = columns;
+        this.query = query;
+        this.categoryMask = categoryMask;
+        this.cancelledCode = query.isIncludeCancelled() ? -1 : cancelledCode;
+        this.from = from;
+        this.to = to;
+    }
+    
+    @Override
+    protected GroupTotals compute() {
+        if (to - from <= LEAF_ROWS) {
+            return scan();
+        }
+        int middle = (from + to) >>> 1;
+        SalesScan left = new SalesScan(columns, query, categoryMask, cancelledCode, from, middle);
+        SalesScan right = new SalesScan(columns, query, categoryMask, cancelledCode, middle, to);
+        left.fork();
+        GroupTotals totals = right.compute();
+        totals.addAll(left.join());
+        return totals;
+    }
+    
+    private GroupTotals scan() {
+        int[] epochDays = columns.epochDays;
+        int[] categories = columns.categories;
+        byte[] statuses = columns.statuses;
+        int[] userIds = columns.userIds;
+        int[] bookIds = columns.bookIds;
+        int[] quantities = columns.quantities;
+        long[] unitPrices = columns.unitPriceCents;
+        long[] subtotals = columns.subtotalCents;
+        
+        int fromDay = query.getFromDay();
+        int toDay = query.getToDay();
+        long minPrice = query.getMinUnitPriceCents();
+        long maxPrice = query.getMaxUnitPriceCents();
+        int userId = query.getUserId();
+        int bookId = query.getBookId();
+        boolean[] mask = categoryMask;
+        SalesQuery.GroupBy groupBy = query.getGroupBy();
+        
+        GroupTotals totals = new GroupTotals(groupBy == SalesQuery.GroupBy.NONE ? 1 : 64);
+        for (int row = from; row < to; row++) {
+            int day = epochDays[row];
+            if (day < fromDay || day > toDay || statuses[row] == cancelledCode) {
+                continue;
+            }
+            if (mask != null && !mask[categories[row]]) {
+                continue;
+            }
+            long price = unitPrices[row];
+            if (price < minPrice || price > maxPrice) {
+                continue;
+            }
+            if ((userId != 0 && userIds[row] != userId) || (bookId != 0 && bookIds[row] != bookId)) {
+                continue;
+            }
+            
+            int key;
+            switch (groupBy) {
+                case DAY:
+                    key = day;
+                    break;
+                case CATEGORY:
+                    key = categories[row];
+                    break;
+                case BOOK:
+                    key = bookIds[row];
+                    break;
+                case USER:
+                    key = userIds[row];
+                    break;
+                case PRICE_BAND:
+                    key = (int) (price / SalesQuery.PRICE_BAND_CENTS);
+                    break;
+                default:
+                    key = 0;
+            }
+            totals.add(key, quantities[row], subtotals[row]);
+        }
+        return totals;
+    }
+}
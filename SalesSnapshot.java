@@ -0,0 +1,266 @@
+package com.bookstore.analytics;
+
+import com.bookstore.dao.ReportDAO;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * In-memory columnar copy of order_items for ad-hoc analytics
+ *
+ * Each order line is stored across primitive column arrays (IDs, epoch-day
+ * dates, prices in cents, dictionary-encoded category and status), so queries
+ * scan a few dense arrays in parallel instead of running joins on the order
+ * database. The snapshot is append-only: refresh() loads lines added since the
+ * last load, reload() starts over (for example to pick up status changes).
+ *
+ * Queries may run while rows are appended; each query sees the rows that were
+ * published when it started.
+ */
+public class SalesSnapshot {
+    private static final int DEFAULT_CAPACITY = 1 << 16;
+    // Lines of orders placed within this window may still be uncommitted
+    private static final long SETTLE_MILLIS = 10_000;
+    private static SalesSnapshot instance;
+    
+    private final ReportDAO reportDAO;
+    private final Map<String, Integer> categoryCodes = new HashMap<>();
+    private final Map<String, Integer> statusCodes = new HashMap<>();
+    private volatile String[] categoryNames = new String[0];
+    private volatile String[] statusNames = new String[0];
+    private volatile Columns columns;
+    private int lastItemId;
+    private long lastRefreshMillis;
+    
+    public SalesSnapshot() {
+        this(DEFAULT_CAPACITY);
+    }
+    
+    public SalesSnapshot(int initialCapacity) {
+        this.reportDAO = new ReportDAO();
+        this.columns = new Columns(Math.max(initialCapacity, 16));
+    }
+    
+    /**
+     * Get the shared snapshot (empty until the first refresh)
+     */
+    public static synchronized SalesSnapshot getInstance() {
+        if (instance == null) {
+            instance = new SalesSnapshot();
+        }
+        return instance;
+    }
+    
+    /**
+     * Load order lines added since the last refresh; returns the number of new lines
+     */
+    public synchronized int refresh() {
+        long now = System.currentTimeMillis();
+        int added = reportDAO.scanSalesLines(lastItemId, new Timestamp(now - SETTLE_MILLIS), this::append);
+        lastRefreshMillis = now;
+        return added;
+    }
+    
+    /**
+     * Refresh only if the last refresh is older than maxAgeMillis
+     */
+    public synchronized void refreshIfOlderThan(long maxAgeMillis) {
+        if (System.currentTimeMillis() - lastRefreshMillis >= maxAgeMillis) {
+            refresh();
+        }
+    }
+    
+    /**
+     * Drop all rows and load every order line again
+     */
+    public synchronized int reload() {
+        columns = new Columns(columns.capacity());
+        lastItemId = 0;
+        return refresh();
+    }
+    
+    /**
+     * Append one order line. Used by refresh(); public so tools and benchmarks
+     * can build snapshots from other sources. Lines must arrive in item ID order.
+     */
+    public synchronized void append(int itemId, int orderId, int userId, int bookId, String category, String status,
+                                    int epochDay, int quantity, long unitPriceCents, long subtotalCents) {
+        Columns cols = columns;
+        int row = cols.size;
+        if (row == cols.capacity()) {
+            cols = cols.grow(row * 2);
+            columns = cols;
+        }
+        cols.itemIds[row] = itemId;
+        cols.orderIds[row] = orderId;
+        cols.userIds[row] = userId;
+        cols.bookIds[row] = bookId;
+        cols.categories[row] = categoryCode(category);
+        cols.statuses[row] = (byte) statusCode(status);
+        cols.epochDays[row] = epochDay;
+        cols.quantities[row] = quantity;
+        cols.unitPriceCents[row] = unitPriceCents;
+        cols.subtotalCents[row] = subtotalCents;
+        lastItemId = Math.max(lastItemId, itemId);
+        cols.size = row + 1; // Publishes the row to queries
+    }
+    
+    /**
+     * Get the number of order lines in the snapshot
+     */
+    public int size() {
+        return columns.size;
+    }
+    
+    /**
+     * Run a query on the common fork/join pool
+     */
+    public List<SalesAggregate> query(SalesQuery query) {
+        return query(query, ForkJoinPool.commonPool());
+    }
+    
+    /**
+     * Run a query on the given fork/join pool. Results are sorted by revenue,
+     * highest first.
+     */
+    public List<SalesAggregate> query(SalesQuery query, ForkJoinPool pool) {
+        if (query == null) {
+            throw new IllegalArgumentException("Query is required");
+        }
+        
+        Columns cols = columns;
+        int rows = cols.size;
+        String[] categories = categoryNames;
+        String[] statuses = statusNames;
+        
+        SalesScan scan = new SalesScan(cols, query, categoryMask(query, categories), cancelledCode(statuses), 0, rows);
+        GroupTotals totals = pool.invoke(scan);
+        
+        List<SalesAggregate> result = new ArrayList<>(totals.size());
+        for (int slot = totals.firstSlot(); slot >= 0; slot = totals.nextSlot(slot)) {
+            int key = totals.keyAt(slot);
+            result.add(new SalesAggregate(key, label(query.getGroupBy(), key, categories), totals.linesAt(slot),
+                                          totals.unitsAt(slot), totals.revenueAt(slot)));
+        }
+        result.sort((a, b) -> Long.compare(b.getRevenueCents(), a.getRevenueCents()));
+        return result;
+    }
+    
+    private boolean[] categoryMask(SalesQuery query, String[] categories) {
+        if (query.getCategories().isEmpty()) {
+            return null;
+        }
+        boolean[] mask = new boolean[categories.length];
+        for (int i = 0; i < categories.length; i++) {
+            mask[i] = query.getCategories().contains(categories[i].isEmpty() ? SalesQuery.UNCATEGORIZED : categories[i]);
+        }
+        return mask;
+    }
+    
+    private static int cancelledCode(String[] statuses) {
+        for (int i = 0; i < statuses.length; i++) {
+            if ("CANCELLED".equals(statuses[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    private static String label(SalesQuery.GroupBy groupBy, int key, String[] categories) {
+        switch (groupBy) {
+            case DAY:
+                return LocalDate.ofEpochDay(key).toString();
+            case CATEGORY:
+                return categories[key].isEmpty() ? SalesQuery.UNCATEGORIZED : categories[key];
+            case PRICE_BAND:
+                long from = (long) key * SalesQuery.PRICE_BAND_CENTS;
+                return String.format("%d.00-%d.99", from / 100, (from + SalesQuery.PRICE_BAND_CENTS) / 100 - 1);
+            case BOOK:
+                return "Book " + key;
+            case USER:
+                return "User " + key;
+            default:
+                return "All";
+        }
+    }
+    
+    private int categoryCode(String category) {
+        Integer code = categoryCodes.get(category);
+        if (code == null) {
+            code = categoryCodes.size();
+            categoryCodes.put(category, code);
+            String[] names = Arrays.copyOf(categoryNames, code + 1);
+            names[code] = category;
+            categoryNames = names;
+        }
+        return code;
+    }
+    
+    private int statusCode(String status) {
+        Integer code = statusCodes.get(status);
+        if (code == null) {
+            code = statusCodes.size();
+            statusCodes.put(status, code);
+            String[] names = Arrays.copyOf(statusNames, code + 1);
+            names[code] = status;
+            statusNames = names;
+        }
+        return code;
+    }
+    
+    /**
+     * Column arrays and the number of published rows; replaced by a larger
+     * copy when full and by an empty one on reload
+     */
+    static final class Columns {
+        final int[] itemIds;
+        final int[] orderIds;
+        final int[] userIds;
+        final int[] bookIds;
+        final int[] categories;
+        final byte[] statuses;
+        final int[] epochDays;
+        final int[] quantities;
+        final long[] unitPriceCents;
+        final long[] subtotalCents;
+        volatile int size;
+        
+        Columns(int capacity) {
+            this(new int[capacity], new int[capacity], new int[capacity], new int[capacity], new int[capacity],
+                 new byte[capacity], new int[capacity], new int[capacity], new long[capacity], new long[capacity]);
+        }
+        
+        private Columns(int[] itemIds, int[] orderIds, int[] userIds, int[] bookIds, int[] categories, byte[] statuses,
+                        int[] epochDays, int[] quantities, long[] unitPriceCents, long[] subtotalCents) {
+            this.itemIds = itemIds;
+            this.orderIds = orderIds;
+            this.userIds = userIds;
+            this.bookIds = bookIds;
+            this.categories = categories;
+            this.statuses = statuses;
+            this.epochDays = epochDays;
+            this.quantities = quantities;
+            this.unitPriceCents = unitPriceCents;
+            this.subtotalCents = subtotalCents;
+        }
+        
+        int capacity() {
+            return itemIds.length;
+        }
+        
+        Columns grow(int capacity) {
+            Columns grown = new Columns(Arrays.copyOf(itemIds, capacity), Arrays.copyOf(orderIds, capacity),
+                               Arrays.copyOf(userIds, capacity), Arrays.copyOf(bookIds, capacity),
+                               Arrays.copyOf(categories, capacity), Arrays.copyOf(statuses, capacity),
+                               Arrays.copyOf(epochDays, capacity), Arrays.copyOf(quantities, capacity),
+                               Arrays.copyOf(unitPriceCents, capacity), Arrays.copyOf(subtotalCents, capacity));
+            grown.size = size;
+            return grown;
+        }
+    }
+}
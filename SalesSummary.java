@@ -0,0 +1,66 @@
+package com.bookstore.model;
+
+/**
+ * SalesSummary model class representing one row of a sales report
+ * (a day, a category or a book, depending on the report)
+ */
+public class SalesSummary {
+    private String key;
+    private int orderCount;
+    private int unitsSold;
+    private Money revenue;
+
+    // Default constructor
+    public SalesSummary() {}
+
+    // Constructor with all fields
+    public SalesSummary(String key, int orderCount, int unitsSold, Money revenue) {
+        this.key = key;
+        this.orderCount = orderCount;
+        this.unitsSold = unitsSold;
+        this.revenue = revenue;
+    }
+
+    // Getters and Setters
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public int getOrderCount() {
+        return orderCount;
+    }
+
+    public void setOrderCount(int orderCount) {
+        this.orderCount = orderCount;
+    }
+
+    public int getUnitsSold() {
+        return unitsSold;
+    }
+
+    public void setUnitsSold(int unitsSold) {
+        this.unitsSold = unitsSold;
+    }
+
+    public Money getRevenue() {
+        return revenue;
+    }
+
+    public void setRevenue(Money revenue) {
+        this.revenue = revenue;
+    }
+
+    @Override
+    public String toString() {
+        return "SalesSummary{" +
+                "key='" + key + '\'' +
+                ", orderCount=" + orderCount +
+                ", unitsSold=" + unitsSold +
+                ", revenue=" + revenue +
+                '}';
+    }
+}
@@ -0,0 +1,55 @@
+package com.bookstore.validation;
+
+/**
+ * Hand-written character scanners used instead of trim() and regexes
+ */
+final class Scanners {
+    private Scanners() {
+    }
+    
+    /**
+     * Same as s == null || s.trim().isEmpty(), without creating a string
+     */
+    static boolean isBlank(String s) {
+        if (s == null) {
+            return true;
+        }
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Same as email.matches("^[A-Za-z0-9+_.-]+@(.+)$"): one or more of
+     * letters, digits and + _ . - then '@', then at least one more character,
+     * with no line terminators
+     */
+    static boolean isEmail(String email) {
+        int length = email.length();
+        int i = 0;
+        while (i < length && isLocalPartChar(email.charAt(i))) {
+            i++;
+        }
+        if (i == 0 || i == length || email.charAt(i) != '@' || i == length - 1) {
+            return false;
+        }
+        for (int j = i + 1; j < length; j++) {
+            if (isLineTerminator(email.charAt(j))) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static boolean isLocalPartChar(char c) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9'
+            || c == '+' || c == '_' || c == '.' || c == '-';
+    }
+    
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+}
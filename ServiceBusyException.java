@@ -0,0 +1,13 @@
+package com.bookstore.service;
+
+/**
+ * Thrown when a bounded resource (such as the password hashing pool) is
+ * saturated and the request was turned away; the caller may retry shortly.
+ * Extends IllegalStateException so existing handlers still catch it.
+ */
+public class ServiceBusyException extends IllegalStateException {
+    
+    public ServiceBusyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,112 @@
+package com.bookstore.service;
+
+import com.bookstore.model.User;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded in-memory store of login sessions
+ *
+ * A session token is issued after a successful password check; presenting it
+ * again is a map lookup, with no hashing and no database query. Sessions expire
+ * after a period without use, and when the store is full the least recently
+ * used session is dropped (its user simply logs in again).
+ */
+public class SessionStore {
+    private static final int TOKEN_BYTES = 32;
+    private static SessionStore instance;
+    
+    private final int maxSessions;
+    private final long idleTimeoutMillis;
+    private final SecureRandom random = new SecureRandom();
+    private final LinkedHashMap<String, Session> sessions;
+    
+    public SessionStore(int maxSessions, long idleTimeoutMillis) {
+        if (maxSessions <= 0 || idleTimeoutMillis <= 0) {
+            throw new IllegalArgumentException("Session limit and timeout must be positive");
+        }
+        this.maxSessions = maxSessions;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        // Access order: iteration starts at the least recently used session
+        this.sessions = new LinkedHashMap<String, Session>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Session> eldest) {
+                return size() > SessionStore.this.maxSessions;
+            }
+        };
+    }
+    
+    /**
+     * Get the shared store (bookstore.auth.sessions sessions, 30 minutes idle timeout)
+     */
+    public static synchronized SessionStore getInstance() {
+        if (instance == null) {
+            instance = new SessionStore(Integer.getInteger("bookstore.auth.sessions", 10_000), TimeUnit.MINUTES.toMillis(30));
+        }
+        return instance;
+    }
+    
+    /**
+     * Start a session for an authenticated user and return its token
+     */
+    public synchronized String create(User user) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        sessions.put(token, new Session(user, System.currentTimeMillis()));
+        return token;
+    }
+    
+    /**
+     * Get the user of a live session, or null if the token is unknown or expired
+     */
+    public synchronized User get(String token) {
+        if (token == null) {
+            return null;
+        }
+        Session session = sessions.get(token);
+        if (session == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        if (now - session.lastUsed > idleTimeoutMillis) {
+            sessions.remove(token);
+            return null;
+        }
+        session.lastUsed = now;
+        return session.user;
+    }
+    
+    /**
+     * End a session
+     */
+    public synchronized void remove(String token) {
+        if (token != null) {
+            sessions.remove(token);
+        }
+    }
+    
+    /**
+     * End all sessions of a user (after a password change or deactivation)
+     */
+    public synchronized void removeUser(int userId) {
+        sessions.values().removeIf(session -> session.user.getId() == userId);
+    }
+    
+    public synchronized int size() {
+        return sessions.size();
+    }
+    
+    private static final class Session {
+        private final User user;
+        private long lastUsed;
+        
+        Session(User user, long lastUsed) {
+            this.user = user;
+            this.lastUsed = lastUsed;
+        }
+    }
+}
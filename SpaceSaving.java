@@ -0,0 +1,112 @@
+package com.bookstore.analytics;
+
+/**
+ * Space-Saving heavy-hitter summary over int keys
+ *
+ * Tracks at most capacity keys in fixed memory. When a new key arrives and
+ * the summary is full, the key with the smallest count is replaced and the
+ * newcomer inherits that count as its possible overestimate (error). Any key
+ * whose true total exceeds total / capacity is guaranteed to be tracked.
+ * Entries are kept in a min-heap on count; an IntIntMap finds a key's heap
+ * position. Not thread-safe.
+ */
+class SpaceSaving {
+    private final int[] keys;
+    private final long[] counts;
+    private final long[] errors;
+    private final IntIntMap positions;
+    private int size;
+    
+    SpaceSaving(int capacity) {
+        this.keys = new int[capacity];
+        this.counts = new long[capacity];
+        this.errors = new long[capacity];
+        this.positions = new IntIntMap(capacity);
+    }
+    
+    void add(int key, long amount) {
+        int position = positions.get(key);
+        if (position == IntIntMap.MISSING) {
+            if (size < keys.length) {
+                position = size++;
+                keys[position] = key;
+                counts[position] = amount;
+                errors[position] = 0;
+                positions.put(key, position);
+                siftUp(position);
+                return;
+            }
+            // Replace the minimum; the newcomer may have been counted that often before
+            position = 0;
+            positions.remove(keys[0]);
+            errors[0] = counts[0];
+            keys[position] = key;
+            positions.put(key, position);
+        }
+        counts[position] += amount;
+        siftDown(position);
+    }
+    
+    int size() {
+        return size;
+    }
+    
+    int keyAt(int index) {
+        return keys[index];
+    }
+    
+    long countAt(int index) {
+        return counts[index];
+    }
+    
+    long errorAt(int index) {
+        return errors[index];
+    }
+    
+    void clear() {
+        positions.clear();
+        size = 0;
+    }
+    
+    private void siftUp(int position) {
+        while (position > 0) {
+            int parent = (position - 1) / 2;
+            if (counts[parent] <= counts[position]) {
+                return;
+            }
+            swap(position, parent);
+            position = parent;
+        }
+    }
+    
+    private void siftDown(int position) {
+        while (true) {
+            int child = position * 2 + 1;
+            if (child >= size) {
+                return;
+            }
+            if (child + 1 < size && counts[child + 1] < counts[child]) {
+                child++;
+            }
+            if (counts[position] <= counts[child]) {
+                return;
+            }
+            swap(position, child);
+            position = child;
+        }
+    }
+    
+    private void swap(int a, int b) {
+        int key = keys[a];
+        long count = counts[a];
+        long error = errors[a];
+        keys[a] = keys[b];
+        counts[a] = counts[b];
+        errors[a] = errors[b];
+        keys[b] = key;
+        counts[b] = count;
+        errors[b] = error;
+        positions.put(keys[a], a);
+        positions.put(keys[b], b);
+    }
+}
@@ -0,0 +1,28 @@
+package com.bookstore.tracing;
+
+/**
+ * A timed event in progress, ended by close() (use try-with-resources)
+ */
+public interface Span extends AutoCloseable {
+    
+    /**
+     * Span returned while the event type is not being recorded
+     */
+    Span NONE = new Span() {
+        @Override
+        public void close() {
+        }
+    };
+    
+    /**
+     * Record the number of rows a statement returned or changed
+     */
+    default void setRows(long rows) {
+    }
+    
+    /**
+     * End the event and record it if it is enabled and over its threshold
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,47 @@
+package com.bookstore.service;
+
+import com.bookstore.database.DatabaseConnection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Background warm-up at application start
+ *
+ * start() returns at once. On background threads it sets up the database
+ * connection (configuration, pool and its JMX registration), loads the JDBC
+ * driver and opens the initial pool connections, loads the PBKDF2
+ * implementation for the first login check, and loads the given classes (for
+ * example the windows shown after login) without initializing them.
+ */
+public final class StartupWarmup {
+    private static final Executor STARTER = runnable -> {
+        Thread thread = new Thread(runnable, "startup-warmup");
+        thread.setDaemon(true);
+        thread.start();
+    };
+    
+    private StartupWarmup() {
+    }
+    
+    /**
+     * Start warming up; the future completes when everything is done (it
+     * never completes exceptionally, failures are logged)
+     */
+    public static CompletableFuture<Void> start(String... classNames) {
+        CompletableFuture<Void> database = CompletableFuture.supplyAsync(DatabaseConnection::getInstance, STARTER)
+            .thenCompose(DatabaseConnection::warmUp)
+            .exceptionally(error -> null); // Already logged; the first query reports it again
+        CompletableFuture<Void> local = CompletableFuture.runAsync(() -> {
+            PasswordHasher.getInstance().warmUp();
+            ClassLoader loader = StartupWarmup.class.getClassLoader();
+            for (String className : classNames) {
+                try {
+                    Class.forName(className, false, loader);
+                } catch (ClassNotFoundException e) {
+                    System.err.println("Warm-up could not load " + className);
+                }
+            }
+        }, STARTER);
+        return CompletableFuture.allOf(database, local);
+    }
+}
@@ -0,0 +1,80 @@
+package com.bookstore.tracing;
+
+/**
+ * Java Flight Recorder events for service operations, JDBC statements and
+ * UI actions
+ *
+ * The events are off unless a recording turns them on, for example with the
+ * bookstore.jfc settings file. While they are off, each call site costs one
+ * check of the event type's enabled flag and returns Span.NONE.
+ *
+ * The event classes need the jdk.jfr API (JDK 11, or JDK 8u262 and later),
+ * but the application is built against the Java 8 API. So JfrTracer is
+ * compiled separately and loaded by name; on runtimes without JFR a no-op
+ * tracer is used instead.
+ */
+public abstract class Tracer {
+    private static final Tracer INSTANCE = load();
+    
+    /**
+     * Get the tracer for this runtime
+     */
+    public static Tracer get() {
+        return INSTANCE;
+    }
+    
+    /**
+     * Start timing a BookService or UserService operation; close the span
+     * when the operation returns
+     */
+    public abstract Span operation(String service, String operation);
+    
+    /**
+     * Start timing a JDBC statement; set its row count and close the span
+     * when the statement is done
+     */
+    public abstract Span statement(String sql);
+    
+    /**
+     * Check whether statement events are being recorded, so connections only
+     * wrap their statements while someone is looking
+     */
+    public abstract boolean isStatementTracingEnabled();
+    
+    /**
+     * Start timing a UI action handler; close the span when the handler returns
+     */
+    public abstract Span uiAction(String window, String action);
+    
+    private static Tracer load() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            return (Tracer) Class.forName("com.bookstore.tracing.JfrTracer").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return new NoOpTracer(); // No JFR in this runtime
+        }
+    }
+    
+    private static final class NoOpTracer extends Tracer {
+        
+        @Override
+        public Span operation(String service, String operation) {
+            return Span.NONE;
+        }
+        
+        @Override
+        public Span statement(String sql) {
+            return Span.NONE;
+        }
+        
+        @Override
+        public boolean isStatementTracingEnabled() {
+            return false;
+        }
+        
+        @Override
+        public Span uiAction(String window, String action) {
+            return Span.NONE;
+        }
+    }
+}
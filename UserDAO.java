@@ -17,16 +17,15 @@ public class UserDAO {
     }
     
     /**
-     * Authenticate user login
+     * Get an active user by username, with the stored password hash, for login
      */
-    public User authenticateUser(String username, String password) {
-        String sql = "SELECT * FROM users WHERE username = ? AND password = ? AND is_active = TRUE";
+    public User getActiveUserByUsername(String username) {
+        String sql = "SELECT * FROM users WHERE username = ? AND is_active = TRUE";
         
         try (Connection conn = dbConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
             stmt.setString(1, username);
-            stmt.setString(2, password);
             
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
@@ -40,7 +39,27 @@ public class UserDAO {
     }
     
     /**
-     * Create a new user
+     * Replace a user's stored password hash
+     */
+    public boolean updatePassword(int userId, String passwordHash) {
+        String sql = "UPDATE users SET password = ? WHERE id = ?";
+        
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setString(1, passwordHash);
+            stmt.setInt(2, userId);
+            
+            return stmt.executeUpdate() > 0;
+        } catch (SQLException e) {
+            System.err.println("Error updating password: " + e.getMessage());
+        }
+        return false;
+    }
+    
+    /**
+     * Create a new user. Throws DuplicateKeyException if the username or
+     * email is already taken.
      */
     public boolean createUser(User user) {
         String sql = "INSERT INTO users (username, password, email, first_name, last_name, role) VALUES (?, ?, ?, ?, ?, ?)";
@@ -66,6 +85,9 @@ public class UserDAO {
                 return true;
             }
         } catch (SQLException e) {
+            if (DuplicateKeyException.isDuplicateKey(e)) {
+                throw DuplicateKeyException.from(e);
+            }
             System.err.println("Error creating user: " + e.getMessage());
         }
         return false;
@@ -138,7 +160,8 @@ public class UserDAO {
     }
     
     /**
-     * Update user information
+     * Update user information. Throws DuplicateKeyException if the new
+     * username or email belongs to another user.
      */
     public boolean updateUser(User user) {
         String sql = "UPDATE users SET username = ?, email = ?, first_name = ?, last_name = ?, role = ?, is_active = ? WHERE id = ?";
@@ -156,6 +179,9 @@ public class UserDAO {
             
             return stmt.executeUpdate() > 0;
         } catch (SQLException e) {
+            if (DuplicateKeyException.isDuplicateKey(e)) {
+                throw DuplicateKeyException.from(e);
+            }
             System.err.println("Error updating user: " + e.getMessage());
         }
         return false;
@@ -242,6 +268,40 @@ public class UserDAO {
         return false;
     }
     
+    /**
+     * Stream the username and email of every user, including inactive ones
+     * (their names stay reserved). Returns the number of users, or -1 if the
+     * scan failed (the handler may then have seen only some of them).
+     */
+    public int scanAccountNames(AccountNameHandler handler) {
+        String sql = "SELECT username, email FROM users";
+        int count = 0;
+        
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            
+            stmt.setFetchSize(Integer.MIN_VALUE); // Stream rows instead of buffering the whole result
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    handler.account(rs.getString(1), rs.getString(2));
+                    count++;
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error scanning account names: " + e.getMessage());
+            return -1;
+        }
+        return count;
+    }
+    
+    /**
+     * Receives one user from scanAccountNames
+     */
+    public interface AccountNameHandler {
+        void account(String username, String email);
+    }
+    
     /**
      * Map ResultSet to User object
      */
@@ -1,146 +1,235 @@
 package com.bookstore.service;
 
+import com.bookstore.dao.DuplicateKeyException;
 import com.bookstore.dao.UserDAO;
 import com.bookstore.dao.BookDAO;
 import com.bookstore.model.User;
 import com.bookstore.model.Book;
+import com.bookstore.tracing.Span;
+import com.bookstore.validation.UserValidator;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Service layer for User operations
  * Contains business logic and validation
+ * Calls are counted per operation (JMX) and recorded as JFR events
  */
 public class UserService {
+    private static final OperationCounters<Operation> CALLS = OperationCounters.register("UserService", Operation.class);
+    
+    static {
+        CacheStats.register();
+    }
+    
+    /**
+     * Operations counted for JMX
+     */
+    enum Operation {
+        LOGIN,
+        START_SESSION,
+        GET_SESSION_USER,
+        END_SESSION,
+        REGISTER,
+        UPDATE_PROFILE,
+        IS_USERNAME_AVAILABLE,
+        IS_EMAIL_AVAILABLE,
+        GET_USER_BY_ID,
+        GET_ALL_USERS,
+        DELETE_USER
+    }
+    
     private UserDAO userDAO;
+    private PasswordHasher passwordHasher;
+    private SessionStore sessionStore;
+    private AccountNameFilter accountNames;
     
     public UserService() {
         this.userDAO = new UserDAO();
+        this.passwordHasher = PasswordHasher.getInstance();
+        this.sessionStore = SessionStore.getInstance();
+        this.accountNames = AccountNameFilter.getInstance();
     }
     
     /**
-     * Authenticate user login
+     * Authenticate user login. Passwords stored in plaintext or with an old
+     * hashing cost are re-hashed on success.
      */
     public User login(String username, String password) {
-        if (username == null || username.trim().isEmpty()) {
-            throw new IllegalArgumentException("Username cannot be empty");
+        try (Span span = CALLS.begin(Operation.LOGIN)) {
+            if (username == null || username.trim().isEmpty()) {
+                throw new IllegalArgumentException("Username cannot be empty");
+            }
+            if (password == null || password.trim().isEmpty()) {
+                throw new IllegalArgumentException("Password cannot be empty");
+            }
+            
+            User user = userDAO.getActiveUserByUsername(username.trim());
+            if (user == null) {
+                passwordHasher.verifyUnknownUser(password);
+                return null;
+            }
+            if (!passwordHasher.verify(password, user.getPassword())) {
+                return null;
+            }
+            
+            if (passwordHasher.needsRehash(user.getPassword())) {
+                String hash = passwordHasher.hash(password);
+                if (userDAO.updatePassword(user.getId(), hash)) {
+                    user.setPassword(hash);
+                }
+            }
+            return user;
+        }
+    }
+    
+    /**
+     * Log in and start a session; returns the session token, or null if the
+     * credentials are wrong
+     */
+    public String startSession(String username, String password) {
+        try (Span span = CALLS.begin(Operation.START_SESSION)) {
+            User user = login(username, password);
+            return user == null ? null : sessionStore.create(user);
         }
-        if (password == null || password.trim().isEmpty()) {
-            throw new IllegalArgumentException("Password cannot be empty");
+    }
+    
+    /**
+     * Get the user of a session token without checking the password again,
+     * or null if the session is unknown or expired
+     */
+    public User getSessionUser(String token) {
+        try (Span span = CALLS.begin(Operation.GET_SESSION_USER)) {
+            return sessionStore.get(token);
         }
-        
-        return userDAO.authenticateUser(username.trim(), password);
     }
     
     /**
-     * Register a new user
+     * End a session (logout)
      */
-    public boolean register(User user) {
-        validateUser(user);
-        
-        // Check if username already exists
-        if (userDAO.usernameExists(user.getUsername())) {
-            throw new IllegalArgumentException("Username already exists");
+    public void endSession(String token) {
+        try (Span span = CALLS.begin(Operation.END_SESSION)) {
+            sessionStore.remove(token);
         }
-        
-        // Check if email already exists
-        if (userDAO.emailExists(user.getEmail())) {
-            throw new IllegalArgumentException("Email already exists");
+    }
+    
+    /**
+     * Register a new user. Duplicate usernames and emails are caught by the
+     * UNIQUE indexes on insert, so registration is a single round trip.
+     */
+    public boolean register(User user) {
+        try (Span span = CALLS.begin(Operation.REGISTER)) {
+            validateUser(user);
+            
+            user.setPassword(passwordHasher.hash(user.getPassword()));
+            boolean created;
+            try {
+                created = userDAO.createUser(user);
+            } catch (DuplicateKeyException e) {
+                throw duplicateAccountName(e);
+            }
+            if (created) {
+                accountNames.add(user.getUsername(), user.getEmail());
+            }
+            return created;
         }
-        
-        return userDAO.createUser(user);
     }
     
     /**
-     * Update user profile
+     * Update user profile. Deactivating a user or changing their role ends
+     * their sessions, so tokens issued before do not keep the old rights.
      */
     public boolean updateProfile(User user) {
-        validateUser(user);
-        
-        // Check if username is taken by another user
-        User existingUser = userDAO.getUserByUsername(user.getUsername());
-        if (existingUser != null && existingUser.getId() != user.getId()) {
-            throw new IllegalArgumentException("Username already exists");
+        try (Span span = CALLS.begin(Operation.UPDATE_PROFILE)) {
+            validateUser(user);
+            
+            User before = userDAO.getUserById(user.getId());
+            boolean updated;
+            try {
+                updated = userDAO.updateUser(user);
+            } catch (DuplicateKeyException e) {
+                throw duplicateAccountName(e);
+            }
+            if (updated) {
+                accountNames.add(user.getUsername(), user.getEmail());
+                if (!user.isActive() || before == null || !Objects.equals(before.getRole(), user.getRole())) {
+                    sessionStore.removeUser(user.getId());
+                }
+            }
+            return updated;
         }
-        
-        // Check if email is taken by another user
-        User existingEmailUser = userDAO.getUserByEmail(user.getEmail());
-        if (existingEmailUser != null && existingEmailUser.getId() != user.getId()) {
-            throw new IllegalArgumentException("Email already exists");
+    }
+    
+    /**
+     * Check whether a username can still be registered. Most free names are
+     * answered from memory; the database is only asked about likely matches.
+     */
+    public boolean isUsernameAvailable(String username) {
+        try (Span span = CALLS.begin(Operation.IS_USERNAME_AVAILABLE)) {
+            if (username == null || username.trim().isEmpty()) {
+                return false;
+            }
+            return !accountNames.mightBeTakenUsername(username) || !userDAO.usernameExists(username.trim());
+        }
+    }
+    
+    /**
+     * Check whether an email can still be registered (see isUsernameAvailable)
+     */
+    public boolean isEmailAvailable(String email) {
+        try (Span span = CALLS.begin(Operation.IS_EMAIL_AVAILABLE)) {
+            if (email == null || email.trim().isEmpty()) {
+                return false;
+            }
+            return !accountNames.mightBeTakenEmail(email) || !userDAO.emailExists(email.trim());
         }
-        
-        return userDAO.updateUser(user);
     }
     
     /**
      * Get user by ID
      */
     public User getUserById(int id) {
-        return userDAO.getUserById(id);
+        try (Span span = CALLS.begin(Operation.GET_USER_BY_ID)) {
+            return userDAO.getUserById(id);
+        }
     }
     
     /**
      * Get all users (admin only)
      */
     public List<User> getAllUsers() {
-        return userDAO.getAllUsers();
+        try (Span span = CALLS.begin(Operation.GET_ALL_USERS)) {
+            return userDAO.getAllUsers();
+        }
     }
     
     /**
      * Delete user
      */
     public boolean deleteUser(int id) {
-        return userDAO.deleteUser(id);
+        try (Span span = CALLS.begin(Operation.DELETE_USER)) {
+            sessionStore.removeUser(id);
+            return userDAO.deleteUser(id);
+        }
     }
     
     /**
-     * Validate user data
+     * Turn a UNIQUE index violation into the matching validation error
      */
-    private void validateUser(User user) {
-        if (user == null) {
-            throw new IllegalArgumentException("User cannot be null");
-        }
-        
-        if (user.getUsername() == null || user.getUsername().trim().isEmpty()) {
-            throw new IllegalArgumentException("Username is required");
-        }
-        
-        if (user.getUsername().length() < 3) {
-            throw new IllegalArgumentException("Username must be at least 3 characters long");
-        }
-        
-        if (user.getPassword() == null || user.getPassword().trim().isEmpty()) {
-            throw new IllegalArgumentException("Password is required");
-        }
-        
-        if (user.getPassword().length() < 6) {
-            throw new IllegalArgumentException("Password must be at least 6 characters long");
+    private IllegalArgumentException duplicateAccountName(DuplicateKeyException e) {
+        if ("username".equals(e.getKey())) {
+            return new IllegalArgumentException("Username already exists");
         }
-        
-        if (user.getEmail() == null || user.getEmail().trim().isEmpty()) {
-            throw new IllegalArgumentException("Email is required");
-        }
-        
-        if (!isValidEmail(user.getEmail())) {
-            throw new IllegalArgumentException("Invalid email format");
-        }
-        
-        if (user.getFirstName() == null || user.getFirstName().trim().isEmpty()) {
-            throw new IllegalArgumentException("First name is required");
-        }
-        
-        if (user.getLastName() == null || user.getLastName().trim().isEmpty()) {
-            throw new IllegalArgumentException("Last name is required");
-        }
-        
-        if (user.getRole() == null || (!user.getRole().equals("ADMIN") && !user.getRole().equals("CUSTOMER"))) {
-            throw new IllegalArgumentException("Role must be ADMIN or CUSTOMER");
+        if ("email".equals(e.getKey())) {
+            return new IllegalArgumentException("Email already exists");
         }
+        return new IllegalArgumentException("Username or email already exists");
     }
     
     /**
-     * Validate email format
+     * Validate user data, throwing the first error found
      */
-    private boolean isValidEmail(String email) {
-        return email.matches("^[A-Za-z0-9+_.-]+@(.+)$");
+    private void validateUser(User user) {
+        UserValidator.validate(user).throwIfInvalid();
     }
 }
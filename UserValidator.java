@@ -0,0 +1,52 @@
+package com.bookstore.validation;
+
+import com.bookstore.model.User;
+
+/**
+ * Validation rules for users
+ */
+public final class UserValidator {
+    private UserValidator() {
+    }
+    
+    /**
+     * Check every field of a user and report all errors at once
+     */
+    public static ValidationResult validate(User user) {
+        if (user == null) {
+            return ValidationResult.add(null, "user", "User cannot be null");
+        }
+        ValidationResult result = null;
+        
+        if (Scanners.isBlank(user.getUsername())) {
+            result = ValidationResult.add(result, "username", "Username is required");
+        } else if (user.getUsername().length() < 3) {
+            result = ValidationResult.add(result, "username", "Username must be at least 3 characters long");
+        }
+        
+        if (Scanners.isBlank(user.getPassword())) {
+            result = ValidationResult.add(result, "password", "Password is required");
+        } else if (user.getPassword().length() < 6) {
+            result = ValidationResult.add(result, "password", "Password must be at least 6 characters long");
+        }
+        
+        if (Scanners.isBlank(user.getEmail())) {
+            result = ValidationResult.add(result, "email", "Email is required");
+        } else if (!Scanners.isEmail(user.getEmail())) {
+            result = ValidationResult.add(result, "email", "Invalid email format");
+        }
+        
+        if (Scanners.isBlank(user.getFirstName())) {
+            result = ValidationResult.add(result, "firstName", "First name is required");
+        }
+        
+        if (Scanners.isBlank(user.getLastName())) {
+            result = ValidationResult.add(result, "lastName", "Last name is required");
+        }
+        
+        if (!"ADMIN".equals(user.getRole()) && !"CUSTOMER".equals(user.getRole())) {
+            result = ValidationResult.add(result, "role", "Role must be ADMIN or CUSTOMER");
+        }
+        return ValidationResult.finish(result);
+    }
+}
@@ -0,0 +1,90 @@
+package com.bookstore.validation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of validating one object: every field error found, in check order
+ *
+ * Validators return the shared VALID instance when there is nothing to
+ * report, so validating a good row allocates nothing.
+ */
+public final class ValidationResult {
+    public static final ValidationResult VALID = new ValidationResult(Collections.emptyList());
+    
+    private final List<FieldError> errors;
+    
+    private ValidationResult(List<FieldError> errors) {
+        this.errors = errors;
+    }
+    
+    public boolean isValid() {
+        return errors.isEmpty();
+    }
+    
+    public List<FieldError> getErrors() {
+        return Collections.unmodifiableList(errors);
+    }
+    
+    /**
+     * Get the message of the first error, or null if valid
+     */
+    public String getFirstMessage() {
+        return errors.isEmpty() ? null : errors.get(0).getMessage();
+    }
+    
+    /**
+     * Throw IllegalArgumentException with the first error message, if any
+     */
+    public void throwIfInvalid() {
+        if (!errors.isEmpty()) {
+            throw new IllegalArgumentException(getFirstMessage());
+        }
+    }
+    
+    /**
+     * Add an error to a result that is still being built (null means no
+     * errors yet) and return the result
+     */
+    static ValidationResult add(ValidationResult result, String field, String message) {
+        ValidationResult target = result == null ? new ValidationResult(new ArrayList<>(4)) : result;
+        target.errors.add(new FieldError(field, message));
+        return target;
+    }
+    
+    static ValidationResult finish(ValidationResult result) {
+        return result == null ? VALID : result;
+    }
+    
+    @Override
+    public String toString() {
+        return isValid() ? "VALID" : errors.toString();
+    }
+    
+    /**
+     * One failed check: the field name and a message for the user
+     */
+    public static final class FieldError {
+        private final String field;
+        private final String message;
+        
+        FieldError(String field, String message) {
+            this.field = field;
+            this.message = message;
+        }
+        
+        public String getField() {
+            return field;
+        }
+        
+        public String getMessage() {
+            return message;
+        }
+        
+        @Override
+        public String toString() {
+            return field + ": " + message;
+        }
+    }
+}
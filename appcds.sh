@@ -0,0 +1,22 @@
+#!/bin/sh
+# Build an AppCDS (application class-data sharing) archive for the desktop
+# application and compare the time to an interactive login window with and
+# without it. Run "mvn package" first; needs JDK 13 or later.
+#
+# Usage: ./appcds.sh [classpath]
+set -e
+
+CP=${1:-app/target/bookstore-1.0-SNAPSHOT.jar:mysql-connector-j-8.3.0.jar}
+ARCHIVE=${ARCHIVE:-bookstore.jsa}
+MAIN=com.bookstore.gui.LoginWindow
+# Print startup times and exit once the background warm-up is done
+TIMING="-Dbookstore.startup.timing=true -Dbookstore.startup.exit=true"
+
+echo "Training run, writing $ARCHIVE"
+java -XX:ArchiveClassesAtExit="$ARCHIVE" $TIMING -cp "$CP" $MAIN
+
+echo "Without the archive"
+java $TIMING -cp "$CP" $MAIN
+
+echo "With the archive"
+java -XX:SharedArchiveFile="$ARCHIVE" $TIMING -cp "$CP" $MAIN
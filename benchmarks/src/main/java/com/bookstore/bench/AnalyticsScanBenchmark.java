@@ -0,0 +1,97 @@
+package com.bookstore.bench;
+
+import com.bookstore.analytics.SalesQuery;
+import com.bookstore.analytics.SalesSnapshot;
+import com.bookstore.model.Money;
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Scan-rate benchmark for SalesSnapshot queries.
+ *
+ * Fills a snapshot with synthetic order lines (three years of orders, 20
+ * categories, 5,000 books, 100,000 users) and runs typical ad-hoc queries
+ * with 1 to N scan threads, reporting rows/second and rows/second/core.
+ *
+ * Usage: AnalyticsScanBenchmark [rows] [iterations]
+ * Needs no database. Give the JVM about 60 bytes of heap per row (-Xmx).
+ */
+public class AnalyticsScanBenchmark {
+    private static final String[] CATEGORIES = {
+        "Fiction", "Science Fiction", "Fantasy", "Mystery", "Romance", "Thriller", "Horror", "Biography",
+        "History", "Science", "Technology", "Programming", "Business", "Self-Help", "Travel", "Cooking",
+        "Art", "Poetry", "Children", "Classic"
+    };
+    private static final String[] STATUSES = {"PENDING", "CONFIRMED", "SHIPPED", "DELIVERED", "CANCELLED"};
+    
+    public static void main(String[] args) {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        
+        long start = System.nanoTime();
+        SalesSnapshot snapshot = createSnapshot(rows);
+        System.out.printf("Loaded %,d rows in %.1f s%n", snapshot.size(), (System.nanoTime() - start) / 1e9);
+        
+        LocalDate today = LocalDate.now();
+        String[] names = {"total", "category, 90 days", "price band, fiction", "day, 1 year", "one user"};
+        SalesQuery[] queries = {
+            new SalesQuery(),
+            new SalesQuery().between(today.minusDays(89), today).groupBy(SalesQuery.GroupBy.CATEGORY),
+            new SalesQuery().category("Fiction").priceBetween(Money.parse("5.00"), Money.parse("60.00"))
+                .groupBy(SalesQuery.GroupBy.PRICE_BAND),
+            new SalesQuery().between(today.minusDays(364), today).groupBy(SalesQuery.GroupBy.DAY),
+            new SalesQuery().user(4242).groupBy(SalesQuery.GroupBy.BOOK)
+        };
+        
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.println("query                  threads   ms/query     M rows/s  M rows/s/core");
+        for (int threads = 1; threads <= cores; threads = threads < cores && threads * 2 > cores ? cores : threads * 2) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            for (int q = 0; q < queries.length; q++) {
+                // Warm up the JIT for this query shape
+                for (int i = 0; i < 3; i++) {
+                    snapshot.query(queries[q], pool);
+                }
+                long begin = System.nanoTime();
+                int results = 0;
+                for (int i = 0; i < iterations; i++) {
+                    results += snapshot.query(queries[q], pool).size();
+                }
+                double seconds = (System.nanoTime() - begin) / 1e9 / iterations;
+                double rowsPerSecond = snapshot.size() / seconds;
+                System.out.printf("%-20s  %8d  %9.2f  %11.1f  %13.1f%s%n", names[q], threads, seconds * 1e3,
+                                  rowsPerSecond / 1e6, rowsPerSecond / 1e6 / threads, results == 0 ? "  (no rows)" : "");
+            }
+            pool.shutdown();
+        }
+    }
+    
+    private static SalesSnapshot createSnapshot(int rows) {
+        Random random = new Random(42);
+        SalesSnapshot snapshot = new SalesSnapshot(rows);
+        int firstDay = (int) LocalDate.now().minusYears(3).toEpochDay();
+        int days = (int) (LocalDate.now().toEpochDay() - firstDay) + 1;
+        int orderId = 0;
+        int userId = 0;
+        int day = firstDay;
+        String status = STATUSES[0];
+        int linesLeft = 0;
+        for (int itemId = 1; itemId <= rows; itemId++) {
+            if (linesLeft == 0) {
+                orderId++;
+                userId = 1 + random.nextInt(100_000);
+                day = firstDay + (int) ((long) days * itemId / rows);
+                status = STATUSES[random.nextInt(20) == 0 ? 4 : random.nextInt(4)];
+                linesLeft = 1 + random.nextInt(5);
+            }
+            linesLeft--;
+            int bookId = 1 + random.nextInt(5_000);
+            int quantity = 1 + random.nextInt(3);
+            long unitPriceCents = 499 + (bookId * 7919L) % 5_000;
+            snapshot.append(itemId, orderId, userId, bookId, CATEGORIES[bookId % CATEGORIES.length], status, day,
+                            quantity, unitPriceCents, unitPriceCents * quantity);
+        }
+        return snapshot;
+    }
+}
@@ -0,0 +1,137 @@
+package com.bookstore.bench;
+
+import com.bookstore.model.Book;
+import com.bookstore.model.Isbn;
+import com.bookstore.model.Money;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Embedded H2 database (MySQL mode) with a books table for the benchmarks
+ *
+ * Points DatabaseConnection at the in-memory database through the db.*
+ * system properties, so the DAOs run unchanged. Call use() before the first
+ * DAO is created.
+ */
+public final class BenchmarkDatabase {
+    public static final String URL = "jdbc:h2:mem:bookstore_bench;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    public static final String[] CATEGORIES = {
+        "Fiction", "Fantasy", "Mystery", "Romance", "Science", "History", "Biography", "Poetry", "Travel", "Children"
+    };
+    private static final String[] WORDS = {
+        "Shadow", "River", "Garden", "Winter", "Empire", "Silent", "Golden", "Last", "Hidden", "Northern",
+        "Glass", "Iron", "Paper", "Storm", "Island", "Night", "Secret", "Lost", "Burning", "Quiet"
+    };
+    
+    private BenchmarkDatabase() {
+    }
+    
+    /**
+     * Route DatabaseConnection to the embedded database
+     */
+    public static void use() {
+        System.setProperty("db.url", URL);
+        System.setProperty("db.username", "sa");
+        System.setProperty("db.password", "");
+        System.setProperty("db.driver", "org.h2.Driver");
+    }
+    
+    /**
+     * Recreate the books table with the given number of generated books
+     */
+    public static void createBooks(int count) throws SQLException {
+        try (Connection conn = DriverManager.getConnection(URL, "sa", "");
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS books");
+            stmt.execute("CREATE TABLE books ("
+                       + "id INT PRIMARY KEY AUTO_INCREMENT, "
+                       + "title VARCHAR(255) NOT NULL, "
+                       + "author VARCHAR(255) NOT NULL, "
+                       + "isbn VARCHAR(20) NOT NULL, "
+                       + "isbn13 BIGINT UNIQUE NOT NULL, "
+                       + "category VARCHAR(100), "
+                       + "price DECIMAL(10, 2) NOT NULL, "
+                       + "stock_quantity INT DEFAULT 0, "
+                       + "description TEXT, "
+                       + "publication_date DATE, "
+                       + "publisher VARCHAR(255), "
+                       + "is_active BOOLEAN DEFAULT TRUE, "
+                       + "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, "
+                       + "updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+            stmt.execute("CREATE INDEX idx_books_title ON books(title)");
+            stmt.execute("CREATE INDEX idx_books_author ON books(author)");
+            stmt.execute("CREATE INDEX idx_books_category ON books(category)");
+            
+            conn.setAutoCommit(false);
+            String sql = "INSERT INTO books (title, author, isbn, isbn13, category, price, stock_quantity, description, "
+                       + "publication_date, publisher) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+            try (PreparedStatement insert = conn.prepareStatement(sql)) {
+                Random random = new Random(42);
+                for (int i = 0; i < count; i++) {
+                    String isbn = isbn(i);
+                    insert.setString(1, title(i, random));
+                    insert.setString(2, author(random.nextInt(500)));
+                    insert.setString(3, isbn);
+                    insert.setLong(4, Isbn.parse(isbn));
+                    insert.setString(5, CATEGORIES[random.nextInt(CATEGORIES.length)]);
+                    insert.setBigDecimal(6, BigDecimal.valueOf(499 + random.nextInt(5_000), 2));
+                    insert.setInt(7, random.nextInt(200));
+                    insert.setString(8, "Generated book number " + i + " for benchmarks.");
+                    insert.setDate(9, Date.valueOf(LocalDate.of(1950 + random.nextInt(70), 1 + random.nextInt(12), 1)));
+                    insert.setString(10, "Publisher " + random.nextInt(50));
+                    insert.addBatch();
+                    if (i % 1_000 == 999) {
+                        insert.executeBatch();
+                    }
+                }
+                insert.executeBatch();
+            }
+            conn.commit();
+        }
+    }
+    
+    /**
+     * Valid ISBN-13 in the 978-0 range for fixture number n
+     */
+    public static String isbn(int n) {
+        String digits = String.format("9780%08d", n);
+        int sum = 0;
+        for (int i = 0; i < 12; i++) {
+            sum += (digits.charAt(i) - '0') * (i % 2 == 0 ? 1 : 3);
+        }
+        return digits + (10 - sum % 10) % 10;
+    }
+    
+    public static String author(int n) {
+        return "Author " + WORDS[n % WORDS.length] + " " + n;
+    }
+    
+    /**
+     * Generate the same books as createBooks, without a database
+     */
+    public static List<Book> books(int count) {
+        Random random = new Random(42);
+        List<Book> books = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            books.add(new Book(i + 1, title(i, random), author(random.nextInt(500)), isbn(i),
+                               CATEGORIES[random.nextInt(CATEGORIES.length)], Money.ofCents(499 + random.nextInt(5_000)),
+                               random.nextInt(200), "Generated book number " + i + " for benchmarks.",
+                               LocalDate.of(1950 + random.nextInt(70), 1 + random.nextInt(12), 1),
+                               "Publisher " + random.nextInt(50), true));
+        }
+        return books;
+    }
+    
+    private static String title(int n, Random random) {
+        return "The " + WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + n;
+    }
+}
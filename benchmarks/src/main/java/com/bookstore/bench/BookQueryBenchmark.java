@@ -0,0 +1,95 @@
+package com.bookstore.bench;
+
+import com.bookstore.dao.BookDAO;
+import com.bookstore.model.Book;
+import com.bookstore.model.Isbn;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * End-to-end BookDAO queries against an embedded H2 database (MySQL mode):
+ * listing, ISBN lookup, and title/author search. The search is measured both
+ * as the single query BookService.searchBooks runs and as the old main-window
+ * approach of a title query plus an author query merged in memory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookQueryBenchmark {
+    @Param({"1000", "20000"})
+    public int rows;
+    
+    // Matches about 5% of titles and a few authors
+    private static final String SEARCH_TERM = "Garden";
+    
+    private BookDAO bookDAO;
+    private long[] isbns;
+    private int next;
+    
+    @Setup
+    public void setUp() throws SQLException {
+        BenchmarkDatabase.use();
+        BenchmarkDatabase.createBooks(rows);
+        bookDAO = new BookDAO();
+        isbns = new long[1024];
+        for (int i = 0; i < isbns.length; i++) {
+            isbns[i] = Isbn.parse(BenchmarkDatabase.isbn(i * 7919 % rows));
+        }
+    }
+    
+    @Benchmark
+    public List<Book> getAllBooks() {
+        return bookDAO.getAllBooks();
+    }
+    
+    @Benchmark
+    public Book getBookByIsbn() {
+        next = (next + 1) & (isbns.length - 1);
+        return bookDAO.getBookByIsbn(isbns[next]);
+    }
+    
+    @Benchmark
+    public List<Book> searchSingleQuery() {
+        return bookDAO.searchBooks(SEARCH_TERM, null);
+    }
+    
+    @Benchmark
+    public List<Book> searchTitleAuthorMerge() {
+        List<Book> byTitle = bookDAO.searchBooksByTitle(SEARCH_TERM);
+        List<Book> byAuthor = bookDAO.searchBooksByAuthor(SEARCH_TERM);
+        List<Book> merged = new ArrayList<>(byTitle);
+        Set<Integer> seen = new HashSet<>();
+        for (Book book : byTitle) {
+            seen.add(book.getId());
+        }
+        for (Book book : byAuthor) {
+            if (seen.add(book.getId())) {
+                merged.add(book);
+            }
+        }
+        return merged;
+    }
+    
+    @Benchmark
+    public List<Book> getBooksByCategory() {
+        return bookDAO.getBooksByCategory(BenchmarkDatabase.CATEGORIES[0]);
+    }
+}
@@ -0,0 +1,75 @@
+package com.bookstore.bench;
+
+import com.bookstore.analytics.CoPurchaseIndex;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Build and lookup benchmark for CoPurchaseIndex.
+ *
+ * Generates synthetic orders over a catalog where popularity and affinity
+ * are skewed (a few titles sell a lot, books sell with "related" titles),
+ * builds the index in parallel and measures alsoBought() latency and heap use.
+ *
+ * Usage: CoPurchaseBenchmark [titles] [orders] [lookups]
+ * Needs no database.
+ */
+public class CoPurchaseBenchmark {
+    
+    public static void main(String[] args) {
+        int titles = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int orders = args.length > 1 ? Integer.parseInt(args[1]) : 5_000_000;
+        int lookups = args.length > 2 ? Integer.parseInt(args[2]) : 1_000_000;
+        
+        Random random = new Random(7);
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+        
+        CoPurchaseIndex index = new CoPurchaseIndex();
+        long buildNanos = 0;
+        List<int[]> chunk = new ArrayList<>();
+        for (int i = 0; i < orders; i++) {
+            chunk.add(basket(random, titles));
+            if (chunk.size() == 50_000 || i == orders - 1) {
+                long start = System.nanoTime();
+                index.addBaskets(chunk);
+                buildNanos += System.nanoTime() - start;
+                chunk = new ArrayList<>();
+            }
+        }
+        System.gc();
+        long heapAfter = runtime.totalMemory() - runtime.freeMemory();
+        System.out.printf("Built from %,d orders over %,d titles in %.1f s (%d threads), heap +%,d MB%n", orders, titles,
+                          buildNanos / 1e9, Runtime.getRuntime().availableProcessors(), (heapAfter - heapBefore) >> 20);
+        
+        long found = 0;
+        for (int i = 0; i < lookups / 10; i++) {
+            found += index.alsoBought(popular(random, titles), 10).length; // Warm-up
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < lookups; i++) {
+            found += index.alsoBought(popular(random, titles), 10).length;
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%,d lookups (k=10): %.2f us each, %.1f neighbors on average%n", lookups,
+                          elapsed / 1e3 / lookups, found / (double) (lookups + lookups / 10));
+    }
+    
+    private static int[] basket(Random random, int titles) {
+        int size = 1 + random.nextInt(4);
+        int[] bookIds = new int[size];
+        bookIds[0] = popular(random, titles);
+        for (int i = 1; i < size; i++) {
+            // Mostly books "near" the first one (same series or subject), sometimes any book
+            bookIds[i] = random.nextInt(4) == 0 ? popular(random, titles)
+                                                : 1 + Math.floorMod(bookIds[0] + random.nextInt(20) - 10, titles);
+        }
+        return bookIds;
+    }
+    
+    private static int popular(Random random, int titles) {
+        return 1 + (int) (Math.pow(random.nextDouble(), 2) * titles);
+    }
+}
@@ -0,0 +1,111 @@
+package com.bookstore.bench;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Latency histogram with HdrHistogram-style log-linear buckets
+ *
+ * Values are recorded in microseconds. Values below 128 get one bucket each;
+ * above that every power of two is split into 64 buckets, so any recorded
+ * value is reported within 1.6% of its true value, from 1 us up to about an
+ * hour (larger values are clamped). Memory is fixed (about 14 KB) and
+ * recording is a few atomic increments, safe from many threads.
+ */
+final class LatencyHistogram {
+    private static final int LINEAR_BUCKETS = 128;
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final long MAX_VALUE = (1L << 32) - 1;
+    private static final int BUCKET_COUNT = indexOf(MAX_VALUE) + 1;
+    
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong totalMicros = new AtomicLong();
+    private final AtomicLong maxMicros = new AtomicLong();
+    
+    void record(long micros) {
+        long value = Math.min(Math.max(micros, 0), MAX_VALUE);
+        counts.incrementAndGet(indexOf(value));
+        totalCount.incrementAndGet();
+        totalMicros.addAndGet(value);
+        long max = maxMicros.get();
+        while (value > max && !maxMicros.compareAndSet(max, value)) {
+            max = maxMicros.get();
+        }
+    }
+    
+    long getCount() {
+        return totalCount.get();
+    }
+    
+    long getMax() {
+        return maxMicros.get();
+    }
+    
+    double getMean() {
+        long count = totalCount.get();
+        return count == 0 ? 0 : totalMicros.get() / (double) count;
+    }
+    
+    /**
+     * Get the value at a percentile (0 to 100): the highest value that falls
+     * in the same bucket as the recorded value of that rank
+     */
+    long getValueAtPercentile(double percentile) {
+        long count = totalCount.get();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(highestValueIn(i), getMax());
+            }
+        }
+        return getMax();
+    }
+    
+    /**
+     * Number of values recorded in each bucket and the bucket's highest value,
+     * as {upper bound, count} pairs for the non-empty buckets
+     */
+    long[][] getBuckets() {
+        int nonEmpty = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            if (counts.get(i) > 0) {
+                nonEmpty++;
+            }
+        }
+        long[][] buckets = new long[nonEmpty][];
+        int next = 0;
+        for (int i = 0; i < BUCKET_COUNT && next < nonEmpty; i++) {
+            long count = counts.get(i);
+            if (count > 0) {
+                buckets[next++] = new long[] {highestValueIn(i), count};
+            }
+        }
+        return buckets;
+    }
+    
+    private static int indexOf(long value) {
+        if (value < LINEAR_BUCKETS) {
+            return (int) value;
+        }
+        // Shift so the value keeps its top 7 bits: 64..127
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKETS;
+        return LINEAR_BUCKETS + (shift - 1) * SUB_BUCKETS + subBucket;
+    }
+    
+    private static long highestValueIn(int index) {
+        if (index < LINEAR_BUCKETS) {
+            return index;
+        }
+        int shift = (index - LINEAR_BUCKETS) / SUB_BUCKETS + 1;
+        long subBucket = (index - LINEAR_BUCKETS) % SUB_BUCKETS + SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
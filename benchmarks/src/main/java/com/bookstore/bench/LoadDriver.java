@@ -0,0 +1,373 @@
+package com.bookstore.bench;
+
+import com.bookstore.dao.BookDAO;
+import com.bookstore.model.Book;
+import com.bookstore.model.Money;
+import com.bookstore.model.User;
+import com.bookstore.service.BookService;
+import com.bookstore.service.UserService;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Headless multi-user load driver for UserService and BookService.
+ *
+ * Simulates customers and admins issuing a weighted mix of operations
+ * (login, browse, search, view, stock update, add book). Requests arrive
+ * open-loop at a target rate with exponential gaps, independent of how fast
+ * earlier requests finish, and each latency is measured from the request's
+ * scheduled start, so queueing behind a slow system counts against it (no
+ * coordinated omission). The rate ramps up linearly, then holds for the
+ * measured duration; only the steady phase is reported.
+ *
+ * Prints throughput and p50/p99/p99.9 per operation and writes the full
+ * results, including the histogram buckets, as JSON.
+ *
+ * Usage: LoadDriver [key=value ...]
+ *   rate=200          requests per second in the steady phase
+ *   rampUp=10         ramp-up seconds
+ *   duration=60       steady-phase seconds
+ *   customers=50      concurrent customer sessions (worker threads)
+ *   admins=5          concurrent admin sessions (worker threads)
+ *   mix=login:5,browse:30,search:35,view:25,stock:3,addBook:2
+ *   out=load-results.json
+ *   seed=1
+ *
+ * Runs against the database configured in database.properties (or the db.*
+ * system properties). It registers load-test accounts (loadtest_customer_N,
+ * loadtest_admin_N) and fixture books in the 979-98 ISBN range and leaves
+ * them in place, so point it at a scratch schema.
+ */
+public class LoadDriver {
+    private static final String PASSWORD = "loadtest-password";
+    private static final int FIXTURE_BOOKS = 20;
+    private static final int FIXTURE_STOCK = 1_000;
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99};
+    
+    enum Operation {
+        LOGIN("login", false),
+        BROWSE("browse", false),
+        SEARCH("search", false),
+        VIEW("view", false),
+        STOCK("stock", true),
+        ADD_BOOK("addBook", true);
+        
+        final String key;
+        final boolean admin;
+        
+        Operation(String key, boolean admin) {
+            this.key = key;
+            this.admin = admin;
+        }
+        
+        static Operation fromKey(String key) {
+            for (Operation operation : values()) {
+                if (operation.key.equalsIgnoreCase(key)) {
+                    return operation;
+                }
+            }
+            throw new IllegalArgumentException("Unknown operation: " + key);
+        }
+    }
+    
+    private final Map<String, String> options;
+    private final BookService bookService = new BookService();
+    private final UserService userService = new UserService();
+    private final Map<Operation, LatencyHistogram> histograms = new EnumMap<>(Operation.class);
+    private final Map<Operation, AtomicLong> errors = new EnumMap<>(Operation.class);
+    private final Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+    private final AtomicInteger isbnSequence;
+    private final List<String> customerNames = new ArrayList<>();
+    private final List<String> adminNames = new ArrayList<>();
+    private final List<Integer> bookIds = new ArrayList<>();
+    private final List<Integer> fixtureBookIds = new ArrayList<>();
+    private final List<String> categories = new ArrayList<>();
+    private final List<String> searchTerms = new ArrayList<>();
+    
+    private LoadDriver(Map<String, String> options) {
+        this.options = options;
+        for (Operation operation : Operation.values()) {
+            histograms.put(operation, new LatencyHistogram());
+            errors.put(operation, new AtomicLong());
+        }
+        for (String entry : option("mix", "login:5,browse:30,search:35,view:25,stock:3,addBook:2").split(",")) {
+            String[] parts = entry.split(":");
+            weights.put(Operation.fromKey(parts[0].trim()), Integer.parseInt(parts[1].trim()));
+        }
+        // Start new ISBNs at a random point so repeated runs rarely collide
+        this.isbnSequence = new AtomicInteger(new Random().nextInt(5_000_000));
+    }
+    
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) {
+                System.err.println("Expected key=value, got: " + arg);
+                System.exit(2);
+            }
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        new LoadDriver(options).run();
+    }
+    
+    private void run() throws InterruptedException, IOException {
+        double rate = Double.parseDouble(option("rate", "200"));
+        int rampUpSeconds = Integer.parseInt(option("rampUp", "10"));
+        int durationSeconds = Integer.parseInt(option("duration", "60"));
+        int customers = Integer.parseInt(option("customers", "50"));
+        int admins = Integer.parseInt(option("admins", "5"));
+        Random random = new Random(Long.parseLong(option("seed", "1")));
+        
+        prepare(customers, admins);
+        System.out.printf("Load: %.0f req/s after %d s ramp-up, %d s measured, %d customers, %d admins%n",
+                          rate, rampUpSeconds, durationSeconds, customers, admins);
+        
+        ExecutorService customerPool = Executors.newFixedThreadPool(Math.max(customers, 1));
+        ExecutorService adminPool = Executors.newFixedThreadPool(Math.max(admins, 1));
+        int totalWeight = 0;
+        for (int weight : weights.values()) {
+            totalWeight += weight;
+        }
+        
+        long start = System.nanoTime();
+        long measureStart = start + TimeUnit.SECONDS.toNanos(rampUpSeconds);
+        long end = measureStart + TimeUnit.SECONDS.toNanos(durationSeconds);
+        long scheduled = start;
+        long submitted = 0;
+        while (true) {
+            // Exponential gaps at the current rate (linear ramp-up, then flat)
+            double elapsed = (scheduled - start) / 1e9;
+            double currentRate = elapsed < rampUpSeconds ? Math.max(rate * elapsed / rampUpSeconds, 1.0) : rate;
+            scheduled += (long) (-Math.log(1 - random.nextDouble()) / currentRate * 1e9);
+            if (scheduled >= end) {
+                break;
+            }
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            
+            Operation operation = pick(random.nextInt(totalWeight));
+            long intendedStart = scheduled;
+            boolean record = scheduled >= measureStart;
+            (operation.admin ? adminPool : customerPool).execute(() -> execute(operation, intendedStart, record));
+            submitted++;
+        }
+        customerPool.shutdown();
+        adminPool.shutdown();
+        customerPool.awaitTermination(5, TimeUnit.MINUTES);
+        adminPool.awaitTermination(5, TimeUnit.MINUTES);
+        
+        report(durationSeconds, submitted);
+    }
+    
+    private Operation pick(int ticket) {
+        for (Map.Entry<Operation, Integer> entry : weights.entrySet()) {
+            ticket -= entry.getValue();
+            if (ticket < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("Empty operation mix");
+    }
+    
+    private void execute(Operation operation, long intendedStart, boolean record) {
+        boolean ok;
+        try {
+            ok = perform(operation);
+        } catch (RuntimeException e) {
+            ok = false;
+        }
+        if (!record) {
+            return;
+        }
+        histograms.get(operation).record((System.nanoTime() - intendedStart) / 1_000);
+        if (!ok) {
+            errors.get(operation).incrementAndGet();
+        }
+    }
+    
+    private boolean perform(Operation operation) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        switch (operation) {
+            case LOGIN:
+                List<String> names = random.nextInt(10) == 0 ? adminNames : customerNames;
+                return userService.login(names.get(random.nextInt(names.size())), PASSWORD) != null;
+            case BROWSE:
+                return bookService.getBooksByCategory(categories.get(random.nextInt(categories.size()))) != null;
+            case SEARCH:
+                return bookService.searchBooks(searchTerms.get(random.nextInt(searchTerms.size())), null) != null;
+            case VIEW:
+                return bookService.getBookById(bookIds.get(random.nextInt(bookIds.size()))) != null;
+            case STOCK:
+                int bookId = fixtureBookIds.get(random.nextInt(fixtureBookIds.size()));
+                return bookService.updateStock(bookId, FIXTURE_STOCK + random.nextInt(100));
+            case ADD_BOOK:
+                return bookService.addBook(fixtureBook(isbnSequence.incrementAndGet()));
+            default:
+                throw new IllegalStateException("Unknown operation " + operation);
+        }
+    }
+    
+    /**
+     * Register the load-test accounts and fixture books if missing and load
+     * the IDs, categories and search terms the operations pick from
+     */
+    private void prepare(int customers, int admins) {
+        for (int i = 0; i < customers; i++) {
+            customerNames.add(ensureUser("loadtest_customer_" + i, "CUSTOMER"));
+        }
+        for (int i = 0; i < Math.max(admins, 1); i++) {
+            adminNames.add(ensureUser("loadtest_admin_" + i, "ADMIN"));
+        }
+        
+        BookDAO bookDAO = new BookDAO();
+        for (int i = 0; i < FIXTURE_BOOKS; i++) {
+            Book book = fixtureBook(i);
+            Book existing = bookDAO.getBookByIsbn(book.getIsbn());
+            if (existing == null) {
+                bookService.addBook(book);
+                existing = book;
+            }
+            fixtureBookIds.add(existing.getId());
+        }
+        
+        for (Book book : bookService.getAllBooks()) {
+            bookIds.add(book.getId());
+            for (String word : book.getTitle().split("\\W+")) {
+                if (word.length() >= 4 && searchTerms.size() < 200 && !searchTerms.contains(word)) {
+                    searchTerms.add(word);
+                }
+            }
+        }
+        categories.addAll(bookService.getAllCategories());
+        if (bookIds.isEmpty() || categories.isEmpty() || searchTerms.isEmpty()) {
+            throw new IllegalStateException("The catalog is empty; load the sample data first");
+        }
+    }
+    
+    private String ensureUser(String username, String role) {
+        try {
+            userService.register(new User(username, PASSWORD, username + "@loadtest.invalid", "Load", "Test", role));
+        } catch (IllegalArgumentException e) {
+            // Already registered by an earlier run
+        }
+        return username;
+    }
+    
+    /**
+     * Fixture book number n, with a valid ISBN-13 in the 979-98 range
+     */
+    private static Book fixtureBook(int n) {
+        String digits = String.format("97998%07d", n);
+        int sum = 0;
+        for (int i = 0; i < 12; i++) {
+            sum += (digits.charAt(i) - '0') * (i % 2 == 0 ? 1 : 3);
+        }
+        String isbn = digits + (10 - sum % 10) % 10;
+        return new Book("Load Test Book " + n, "Load Test Author", isbn, "Load Test", Money.ofCents(999),
+                        FIXTURE_STOCK, null, null, "Load Test");
+    }
+    
+    private void report(int durationSeconds, long submitted) throws IOException {
+        System.out.println();
+        System.out.println("operation       count   errors    ops/s    mean ms     p50 ms     p99 ms   p99.9 ms     max ms");
+        for (Operation operation : Operation.values()) {
+            LatencyHistogram histogram = histograms.get(operation);
+            if (histogram.getCount() == 0) {
+                continue;
+            }
+            System.out.printf(Locale.ROOT, "%-10s  %9d  %7d  %7.1f  %9.2f  %9.2f  %9.2f  %9.2f  %9.2f%n", operation.key,
+                              histogram.getCount(), errors.get(operation).get(), histogram.getCount() / (double) durationSeconds,
+                              histogram.getMean() / 1000, histogram.getValueAtPercentile(50) / 1000.0,
+                              histogram.getValueAtPercentile(99) / 1000.0, histogram.getValueAtPercentile(99.9) / 1000.0,
+                              histogram.getMax() / 1000.0);
+        }
+        
+        String out = option("out", "load-results.json");
+        try (Writer writer = new FileWriter(out)) {
+            writer.write(toJson(durationSeconds, submitted));
+        }
+        System.out.println();
+        System.out.println("Results written to " + out);
+    }
+    
+    private String toJson(int durationSeconds, long submitted) {
+        StringBuilder json = new StringBuilder();
+        json.append("{\n  \"options\": {");
+        boolean first = true;
+        for (Map.Entry<String, String> option : options.entrySet()) {
+            json.append(first ? "" : ",").append("\n    ").append(quote(option.getKey())).append(": ")
+                .append(quote(option.getValue()));
+            first = false;
+        }
+        json.append(first ? "},\n" : "\n  },\n");
+        json.append("  \"durationSeconds\": ").append(durationSeconds).append(",\n");
+        json.append("  \"requestsScheduled\": ").append(submitted).append(",\n");
+        json.append("  \"latencyUnit\": \"us\",\n");
+        json.append("  \"operations\": {");
+        first = true;
+        for (Operation operation : Operation.values()) {
+            LatencyHistogram histogram = histograms.get(operation);
+            if (histogram.getCount() == 0) {
+                continue;
+            }
+            json.append(first ? "" : ",").append("\n    ").append(quote(operation.key)).append(": {\n");
+            json.append("      \"count\": ").append(histogram.getCount()).append(",\n");
+            json.append("      \"errors\": ").append(errors.get(operation).get()).append(",\n");
+            json.append("      \"throughput\": ")
+                .append(String.format(Locale.ROOT, "%.2f", histogram.getCount() / (double) durationSeconds)).append(",\n");
+            json.append("      \"mean\": ").append(String.format(Locale.ROOT, "%.1f", histogram.getMean())).append(",\n");
+            json.append("      \"max\": ").append(histogram.getMax()).append(",\n");
+            json.append("      \"percentiles\": {");
+            for (int i = 0; i < PERCENTILES.length; i++) {
+                json.append(i == 0 ? "" : ", ").append(quote(String.valueOf(PERCENTILES[i]))).append(": ")
+                    .append(histogram.getValueAtPercentile(PERCENTILES[i]));
+            }
+            json.append("},\n      \"histogram\": [");
+            long[][] buckets = histogram.getBuckets();
+            for (int i = 0; i < buckets.length; i++) {
+                json.append(i == 0 ? "" : ", ").append('[').append(buckets[i][0]).append(", ").append(buckets[i][1]).append(']');
+            }
+            json.append("]\n    }");
+            first = false;
+        }
+        json.append(first ? "}\n}\n" : "\n  }\n}\n");
+        return json.toString();
+    }
+    
+    private static String quote(String value) {
+        StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < ' ') {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+    
+    private String option(String key, String defaultValue) {
+        return options.getOrDefault(key, defaultValue);
+    }
+}
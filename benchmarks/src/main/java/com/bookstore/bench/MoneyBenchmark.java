@@ -0,0 +1,127 @@
+package com.bookstore.bench;
+
+import com.bookstore.model.Money;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Money vs BigDecimal for order totaling and report aggregation.
+ *
+ * Totals carts of 1 to 50 lines (unit price times quantity, summed) and sums
+ * a day of sales per category, once with BigDecimal arithmetic as the models
+ * used to do and once with Money. Run with -prof gc for bytes per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyBenchmark {
+    private static final int CARTS = 1_000;
+    private static final int SALES = 100_000;
+    private static final int CATEGORIES = 20;
+    
+    private int[][] cartQuantities;
+    private BigDecimal[][] decimalPrices;
+    private Money[][] moneyPrices;
+    private int[] saleCategories;
+    private BigDecimal[] decimalSales;
+    private Money[] moneySales;
+    
+    @Setup
+    public void setUp() {
+        Random random = new Random(11);
+        cartQuantities = new int[CARTS][];
+        decimalPrices = new BigDecimal[CARTS][];
+        moneyPrices = new Money[CARTS][];
+        for (int c = 0; c < CARTS; c++) {
+            int lines = 1 + random.nextInt(50);
+            cartQuantities[c] = new int[lines];
+            decimalPrices[c] = new BigDecimal[lines];
+            moneyPrices[c] = new Money[lines];
+            for (int i = 0; i < lines; i++) {
+                long cents = 499 + random.nextInt(5_000);
+                cartQuantities[c][i] = 1 + random.nextInt(3);
+                decimalPrices[c][i] = BigDecimal.valueOf(cents, 2);
+                moneyPrices[c][i] = Money.ofCents(cents);
+            }
+        }
+        saleCategories = new int[SALES];
+        decimalSales = new BigDecimal[SALES];
+        moneySales = new Money[SALES];
+        for (int i = 0; i < SALES; i++) {
+            long cents = 499 + random.nextInt(15_000);
+            saleCategories[i] = random.nextInt(CATEGORIES);
+            decimalSales[i] = BigDecimal.valueOf(cents, 2);
+            moneySales[i] = Money.ofCents(cents);
+        }
+    }
+    
+    /**
+     * Cart total the way OrderItem and OrderDAO computed it with BigDecimal
+     */
+    @Benchmark
+    @OperationsPerInvocation(CARTS)
+    public void cartTotalBigDecimal(Blackhole blackhole) {
+        for (int c = 0; c < CARTS; c++) {
+            BigDecimal[] prices = decimalPrices[c];
+            int[] quantities = cartQuantities[c];
+            BigDecimal total = BigDecimal.ZERO;
+            for (int i = 0; i < prices.length; i++) {
+                total = total.add(prices[i].multiply(BigDecimal.valueOf(quantities[i])));
+            }
+            blackhole.consume(total);
+        }
+    }
+    
+    /**
+     * Cart total the way OrderItem and OrderDAO compute it with Money
+     */
+    @Benchmark
+    @OperationsPerInvocation(CARTS)
+    public void cartTotalMoney(Blackhole blackhole) {
+        for (int c = 0; c < CARTS; c++) {
+            Money[] prices = moneyPrices[c];
+            int[] quantities = cartQuantities[c];
+            long total = 0;
+            for (int i = 0; i < prices.length; i++) {
+                total = Math.addExact(total, prices[i].times(quantities[i]).getCents());
+            }
+            blackhole.consume(Money.ofCents(total));
+        }
+    }
+    
+    @Benchmark
+    public BigDecimal[] reportBigDecimal() {
+        BigDecimal[] totals = new BigDecimal[CATEGORIES];
+        Arrays.fill(totals, BigDecimal.ZERO);
+        for (int i = 0; i < SALES; i++) {
+            totals[saleCategories[i]] = totals[saleCategories[i]].add(decimalSales[i]);
+        }
+        return totals;
+    }
+    
+    @Benchmark
+    public long[] reportMoney() {
+        long[] totals = new long[CATEGORIES];
+        for (int i = 0; i < SALES; i++) {
+            totals[saleCategories[i]] = Math.addExact(totals[saleCategories[i]], moneySales[i].getCents());
+        }
+        return totals;
+    }
+}
@@ -0,0 +1,140 @@
+package com.bookstore.bench;
+
+import com.bookstore.dao.BookDAO;
+import com.bookstore.model.Book;
+import com.bookstore.model.Money;
+import com.bookstore.model.Order;
+import com.bookstore.model.OrderItem;
+import com.bookstore.service.OrderService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Throughput benchmark for OrderService.placeOrder and placeOrderAsync.
+ *
+ * Places orders with 1 to 50 line items from several threads and reports
+ * orders/second and mean latency for each order size, once with a
+ * transaction per order and once through the group-commit pipeline.
+ *
+ * Usage: OrderPlacementBenchmark [userId] [ordersPerSize] [threads]
+ * Group commit pays off with many concurrent callers, so try 64 threads or more.
+ * Runs against the database configured in database.properties. It creates
+ * (or reuses) 50 fixture books with large stock and leaves the placed orders
+ * in the database, so point it at a scratch schema.
+ */
+public class OrderPlacementBenchmark {
+    private static final int[] LINE_COUNTS = {1, 5, 10, 25, 50};
+    private static final int FIXTURE_STOCK = 1_000_000;
+    
+    public static void main(String[] args) throws Exception {
+        int userId = args.length > 0 ? Integer.parseInt(args[0]) : 2;
+        int ordersPerSize = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+        
+        List<Integer> bookIds = createFixtureBooks(LINE_COUNTS[LINE_COUNTS.length - 1]);
+        OrderService orderService = new OrderService();
+        
+        // Warm up connections, statement caches and the JIT
+        run(orderService, userId, bookIds, 5, ordersPerSize / 4 + 1, threads, false);
+        run(orderService, userId, bookIds, 5, ordersPerSize / 4 + 1, threads, true);
+        
+        System.out.println("mode          lines  orders  threads   orders/s   mean ms");
+        for (int lines : LINE_COUNTS) {
+            for (boolean groupCommit : new boolean[] {false, true}) {
+                double[] result = run(orderService, userId, bookIds, lines, ordersPerSize, threads, groupCommit);
+                System.out.printf("%-12s  %5d  %6d  %7d  %9.1f  %8.2f%n", groupCommit ? "group-commit" : "per-order",
+                                  lines, ordersPerSize, threads, result[0], result[1]);
+            }
+        }
+    }
+    
+    /**
+     * Returns {orders per second, mean latency in ms}
+     */
+    private static double[] run(OrderService orderService, int userId, List<Integer> bookIds,
+                                int lines, int orders, int threads, boolean groupCommit) throws InterruptedException {
+        List<OrderItem> items = new ArrayList<>(lines);
+        for (int i = 0; i < lines; i++) {
+            OrderItem item = new OrderItem();
+            item.setBookId(bookIds.get(i));
+            item.setQuantity(1);
+            items.add(item);
+        }
+        
+        AtomicInteger failures = new AtomicInteger();
+        long[] latencies = new long[orders];
+        AtomicInteger next = new AtomicInteger();
+        CountDownLatch finished = new CountDownLatch(orders);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        
+        long start = System.nanoTime();
+        for (int i = 0; i < orders; i++) {
+            pool.execute(() -> {
+                long begin = System.nanoTime();
+                try {
+                    Order order = groupCommit
+                        ? orderService.placeOrderAsync(userId, items, "1 Benchmark Way", "Credit Card").join()
+                        : orderService.placeOrder(userId, items, "1 Benchmark Way", "Credit Card");
+                    if (order == null) {
+                        failures.incrementAndGet();
+                    }
+                } catch (RuntimeException e) {
+                    failures.incrementAndGet();
+                } finally {
+                    latencies[next.getAndIncrement()] = System.nanoTime() - begin;
+                    finished.countDown();
+                }
+            });
+        }
+        finished.await();
+        long elapsed = System.nanoTime() - start;
+        pool.shutdown();
+        pool.awaitTermination(1, TimeUnit.MINUTES);
+        
+        if (failures.get() > 0) {
+            System.err.println(failures.get() + " of " + orders + " orders with " + lines + " lines failed");
+        }
+        long total = 0;
+        for (long latency : latencies) {
+            total += latency;
+        }
+        return new double[] {orders / (elapsed / 1e9), total / (double) orders / 1e6};
+    }
+    
+    private static List<Integer> createFixtureBooks(int count) {
+        BookDAO bookDAO = new BookDAO();
+        List<Integer> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String isbn = fixtureIsbn(i);
+            Book book = bookDAO.getBookByIsbn(isbn);
+            if (book == null) {
+                book = new Book("Benchmark Book " + i, "Benchmark Author", isbn, "Benchmark",
+                                Money.parse("9.99"), FIXTURE_STOCK, null, null, "Benchmark");
+                if (!bookDAO.createBook(book)) {
+                    throw new IllegalStateException("Could not create fixture book " + isbn);
+                }
+            } else {
+                bookDAO.updateStockQuantity(book.getId(), FIXTURE_STOCK);
+            }
+            ids.add(book.getId());
+        }
+        return ids;
+    }
+    
+    /**
+     * Valid ISBN-13 in the 979-99 range for fixture number n
+     */
+    private static String fixtureIsbn(int n) {
+        String digits = String.format("97999%07d", n);
+        int sum = 0;
+        for (int i = 0; i < 12; i++) {
+            sum += (digits.charAt(i) - '0') * (i % 2 == 0 ? 1 : 3);
+        }
+        return digits + (10 - sum % 10) % 10;
+    }
+}
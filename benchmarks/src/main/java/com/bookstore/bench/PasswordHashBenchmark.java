@@ -0,0 +1,84 @@
+package com.bookstore.bench;
+
+import com.bookstore.service.PasswordHasher;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Throughput and latency of password verification at several PBKDF2 costs.
+ *
+ * For each iteration count, a burst of concurrent logins is sent to a
+ * PasswordHasher with its default pool size and queue. The run reports
+ * verifications per second, median and 99th percentile latency of the
+ * accepted requests, and how many were rejected because the queue was full.
+ *
+ * Usage: PasswordHashBenchmark [logins] [clients] [iterations...]
+ * Needs no database.
+ */
+public class PasswordHashBenchmark {
+    
+    public static void main(String[] args) throws Exception {
+        int logins = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int[] costs = args.length > 2
+            ? Arrays.stream(args, 2, args.length).mapToInt(Integer::parseInt).toArray()
+            : new int[] {10_000, 100_000, 310_000, 600_000};
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        
+        // Warm up the JIT on the HMAC code
+        PasswordHasher warmUp = new PasswordHasher(10_000, 1, 4);
+        String warmUpHash = warmUp.hash("warm-up");
+        for (int i = 0; i < 50; i++) {
+            warmUp.verify("warm-up", warmUpHash);
+        }
+        
+        System.out.println(logins + " logins from " + clients + " clients, " + threads + " hashing threads, queue 32");
+        System.out.println("iterations  single ms   logins/s    p50 ms    p99 ms  rejected");
+        for (int cost : costs) {
+            PasswordHasher hasher = new PasswordHasher(cost, threads, 32);
+            String stored = hasher.hash("correct horse battery staple");
+            
+            long start = System.nanoTime();
+            for (int i = 0; i < 5; i++) {
+                hasher.verify("correct horse battery staple", stored);
+            }
+            double singleMillis = (System.nanoTime() - start) / 5 / 1e6;
+            
+            long[] latencies = new long[logins];
+            AtomicInteger accepted = new AtomicInteger();
+            AtomicInteger rejected = new AtomicInteger();
+            CountDownLatch done = new CountDownLatch(logins);
+            ExecutorService clientPool = Executors.newFixedThreadPool(clients);
+            start = System.nanoTime();
+            for (int i = 0; i < logins; i++) {
+                clientPool.execute(() -> {
+                    long begin = System.nanoTime();
+                    try {
+                        if (hasher.verify("correct horse battery staple", stored)) {
+                            latencies[accepted.getAndIncrement()] = System.nanoTime() - begin;
+                        }
+                    } catch (IllegalStateException e) {
+                        rejected.incrementAndGet();
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            }
+            done.await();
+            double seconds = (System.nanoTime() - start) / 1e9;
+            clientPool.shutdown();
+            
+            long[] sorted = Arrays.copyOf(latencies, accepted.get());
+            Arrays.sort(sorted);
+            System.out.printf("%10d  %9.1f  %9.1f  %8.1f  %8.1f  %8d%n", cost, singleMillis, accepted.get() / seconds,
+                              percentile(sorted, 0.50) / 1e6, percentile(sorted, 0.99) / 1e6, rejected.get());
+        }
+    }
+    
+    private static long percentile(long[] sorted, double p) {
+        return sorted.length == 0 ? 0 : sorted[Math.min(sorted.length - 1, (int) (sorted.length * p))];
+    }
+}
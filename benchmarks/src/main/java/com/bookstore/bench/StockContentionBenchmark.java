@@ -0,0 +1,118 @@
+package com.bookstore.bench;
+
+import com.bookstore.model.Book;
+import com.bookstore.service.BookService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Contention benchmark for stock reduction on a single title.
+ *
+ * Many buyers try to purchase one copy each of the same book at the same time.
+ * The run reports throughput and checks that the number of successful
+ * purchases matches what the stock allowed (no oversell, no lost updates).
+ * The legacy read-check-write sequence and the hot-title in-memory counters
+ * are run for comparison.
+ *
+ * Usage: StockContentionBenchmark [bookId] [buyers] [initialStock] [threads]
+ * Runs against the database configured in database.properties and restores
+ * the original stock of the book when finished.
+ */
+public class StockContentionBenchmark {
+    
+    public static void main(String[] args) throws Exception {
+        int bookId = args.length > 0 ? Integer.parseInt(args[0]) : 1;
+        int buyers = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int initialStock = args.length > 2 ? Integer.parseInt(args[2]) : 500;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : 64;
+        
+        BookService bookService = new BookService();
+        Book book = bookService.getBookById(bookId);
+        if (book == null) {
+            System.err.println("Book " + bookId + " not found");
+            return;
+        }
+        int originalStock = book.getStockQuantity();
+        
+        System.out.println("Book " + bookId + " '" + book.getTitle() + "', " + buyers + " buyers, "
+                           + initialStock + " in stock, " + threads + " threads");
+        try {
+            run("legacy read-check-write", bookService, bookId, buyers, initialStock, threads, true);
+            run("atomic conditional decrement", bookService, bookId, buyers, initialStock, threads, false);
+            bookService.enableHotInventory(bookId);
+            try {
+                run("hot-title striped counters", bookService, bookId, buyers, initialStock, threads, false);
+            } finally {
+                bookService.disableHotInventory(bookId);
+            }
+        } finally {
+            bookService.updateStock(bookId, originalStock);
+        }
+    }
+    
+    private static void run(String name, BookService bookService, int bookId, int buyers,
+                            int initialStock, int threads, boolean legacy) throws InterruptedException {
+        bookService.updateStock(bookId, initialStock);
+        
+        AtomicInteger sold = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(buyers);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        
+        for (int i = 0; i < buyers; i++) {
+            pool.execute(() -> {
+                try {
+                    start.await();
+                    boolean ok = legacy ? legacyReduceStock(bookService, bookId, 1) : bookService.reduceStock(bookId, 1);
+                    if (ok) {
+                        sold.incrementAndGet();
+                    } else {
+                        rejected.incrementAndGet();
+                    }
+                } catch (IllegalArgumentException e) {
+                    rejected.incrementAndGet();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    finished.countDown();
+                }
+            });
+        }
+        
+        long startTime = System.nanoTime();
+        start.countDown();
+        finished.await();
+        long elapsed = System.nanoTime() - startTime;
+        pool.shutdown();
+        pool.awaitTermination(1, TimeUnit.MINUTES);
+        
+        int finalStock = bookService.getBookById(bookId).getStockQuantity();
+        int oversold = Math.max(0, sold.get() - initialStock);
+        int lostUpdates = finalStock - (initialStock - sold.get());
+        
+        System.out.println();
+        System.out.println("== " + name);
+        System.out.printf("  elapsed      %.1f ms%n", elapsed / 1e6);
+        System.out.printf("  throughput   %.0f purchases/s%n", buyers / (elapsed / 1e9));
+        System.out.println("  sold         " + sold.get());
+        System.out.println("  rejected     " + rejected.get());
+        System.out.println("  final stock  " + finalStock);
+        System.out.println("  oversold     " + oversold);
+        System.out.println("  lost updates " + lostUpdates);
+    }
+    
+    /**
+     * The pre-atomic implementation of BookService.reduceStock
+     */
+    private static boolean legacyReduceStock(BookService bookService, int bookId, int quantity) {
+        Book book = bookService.getBookById(bookId);
+        if (book == null || book.getStockQuantity() < quantity) {
+            return false;
+        }
+        return bookService.updateStock(bookId, book.getStockQuantity() - quantity);
+    }
+}
@@ -0,0 +1,214 @@
+package com.bookstore.bench;
+
+import com.bookstore.model.Book;
+import com.bookstore.model.Isbn;
+import com.bookstore.model.User;
+import com.bookstore.validation.BookValidator;
+import com.bookstore.validation.UserValidator;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Validation engine vs the old exception-based checks, per row of an import
+ * batch with about 10% invalid rows: BookValidator and UserValidator against
+ * the trim()/regex/exception code BookService and UserService used to run,
+ * and Isbn.parse against the old regex ISBN check. Run with -prof gc for
+ * bytes per row.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidationBenchmark {
+    private static final int ROWS = 1024;
+    
+    private Book[] books;
+    private User[] users;
+    private String[] isbns;
+    private LocalDate today;
+    
+    @Setup
+    public void setUp() {
+        Random random = new Random(5);
+        List<Book> generated = BenchmarkDatabase.books(ROWS);
+        books = new Book[ROWS];
+        users = new User[ROWS];
+        isbns = new String[ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            boolean bad = random.nextInt(10) == 0;
+            books[i] = generated.get(i);
+            if (bad) {
+                books[i].setIsbn("978-0-7432-7356-6"); // Wrong check digit
+            }
+            users[i] = new User("user" + i, "secret" + i, bad ? "user" + i + "@" : "user" + i + "@example.com",
+                                "First", "Last", "CUSTOMER");
+            String isbn = books[i].getIsbn();
+            isbns[i] = i % 2 == 0 ? isbn : isbn.substring(0, 3) + "-" + isbn.substring(3, 4) + "-" + isbn.substring(4, 12)
+                                                + "-" + isbn.substring(12);
+        }
+        today = LocalDate.now();
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public int bookValidator() {
+        int invalid = 0;
+        for (Book book : books) {
+            if (!BookValidator.validate(book, today).isValid()) {
+                invalid++;
+            }
+        }
+        return invalid;
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public int bookExceptions() {
+        int invalid = 0;
+        for (Book book : books) {
+            try {
+                validateBookOld(book);
+            } catch (IllegalArgumentException e) {
+                invalid++;
+            }
+        }
+        return invalid;
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public int userValidator() {
+        int invalid = 0;
+        for (User user : users) {
+            if (!UserValidator.validate(user).isValid()) {
+                invalid++;
+            }
+        }
+        return invalid;
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public int userExceptions() {
+        int invalid = 0;
+        for (User user : users) {
+            try {
+                validateUserOld(user);
+            } catch (IllegalArgumentException e) {
+                invalid++;
+            }
+        }
+        return invalid;
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void isbnParse(Blackhole blackhole) {
+        for (String isbn : isbns) {
+            blackhole.consume(Isbn.parse(isbn));
+        }
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void isbnRegex(Blackhole blackhole) {
+        for (String isbn : isbns) {
+            blackhole.consume(isValidIsbnOld(isbn));
+        }
+    }
+    
+    /**
+     * The checks BookService.validateBook used to run
+     */
+    private static void validateBookOld(Book book) {
+        if (book.getTitle() == null || book.getTitle().trim().isEmpty()) {
+            throw new IllegalArgumentException("Title is required");
+        }
+        if (book.getAuthor() == null || book.getAuthor().trim().isEmpty()) {
+            throw new IllegalArgumentException("Author is required");
+        }
+        if (book.getIsbn() == null || book.getIsbn().trim().isEmpty()) {
+            throw new IllegalArgumentException("ISBN is required");
+        }
+        if (!isValidIsbnOld(book.getIsbn())) {
+            throw new IllegalArgumentException("Invalid ISBN format");
+        }
+        if (book.getPrice() == null || !book.getPrice().isPositive()) {
+            throw new IllegalArgumentException("Price must be greater than 0");
+        }
+        if (book.getStockQuantity() < 0) {
+            throw new IllegalArgumentException("Stock quantity cannot be negative");
+        }
+        if (book.getPublicationDate() != null && book.getPublicationDate().isAfter(LocalDate.now())) {
+            throw new IllegalArgumentException("Publication date cannot be in the future");
+        }
+    }
+    
+    /**
+     * The old BookService.isValidISBN, plus the check digit it skipped so
+     * both sides reject the same rows
+     */
+    private static boolean isValidIsbnOld(String isbn) {
+        String cleanIsbn = isbn.replaceAll("[\\s-]", "");
+        if (!cleanIsbn.matches("^\\d{10}$") && !cleanIsbn.matches("^\\d{13}$")) {
+            return false;
+        }
+        if (cleanIsbn.length() == 10) {
+            return true;
+        }
+        int sum = 0;
+        for (int i = 0; i < 12; i++) {
+            sum += (cleanIsbn.charAt(i) - '0') * (i % 2 == 0 ? 1 : 3);
+        }
+        return cleanIsbn.charAt(12) - '0' == (10 - sum % 10) % 10;
+    }
+    
+    /**
+     * The checks UserService.validateUser used to run
+     */
+    private static void validateUserOld(User user) {
+        if (user.getUsername() == null || user.getUsername().trim().isEmpty()) {
+            throw new IllegalArgumentException("Username is required");
+        }
+        if (user.getUsername().length() < 3) {
+            throw new IllegalArgumentException("Username must be at least 3 characters long");
+        }
+        if (user.getPassword() == null || user.getPassword().trim().isEmpty()) {
+            throw new IllegalArgumentException("Password is required");
+        }
+        if (user.getPassword().length() < 6) {
+            throw new IllegalArgumentException("Password must be at least 6 characters long");
+        }
+        if (user.getEmail() == null || user.getEmail().trim().isEmpty()) {
+            throw new IllegalArgumentException("Email is required");
+        }
+        if (!user.getEmail().matches("^[A-Za-z0-9+_.-]+@(.+)$")) {
+            throw new IllegalArgumentException("Invalid email format");
+        }
+        if (user.getFirstName() == null || user.getFirstName().trim().isEmpty()) {
+            throw new IllegalArgumentException("First name is required");
+        }
+        if (user.getLastName() == null || user.getLastName().trim().isEmpty()) {
+            throw new IllegalArgumentException("Last name is required");
+        }
+        if (user.getRole() == null || (!user.getRole().equals("ADMIN") && !user.getRole().equals("CUSTOMER"))) {
+            throw new IllegalArgumentException("Role must be ADMIN or CUSTOMER");
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.bookstore.dao;
+
+import com.bookstore.bench.BenchmarkDatabase;
+import com.bookstore.model.Book;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.h2.tools.SimpleResultSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * BookDAO.mapResultSetToBook over a large in-memory result set, without a
+ * database, so the numbers show the mapping cost alone (column lookups by
+ * name, BigDecimal to Money, Date to LocalDate).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookMappingBenchmark {
+    @Param({"10000", "100000"})
+    public int rows;
+    
+    private SimpleResultSet resultSet;
+    
+    @Setup
+    public void setUp() {
+        resultSet = new SimpleResultSet();
+        resultSet.setAutoClose(false);
+        resultSet.addColumn("id", Types.INTEGER, 10, 0);
+        resultSet.addColumn("title", Types.VARCHAR, 255, 0);
+        resultSet.addColumn("author", Types.VARCHAR, 255, 0);
+        resultSet.addColumn("isbn", Types.VARCHAR, 20, 0);
+        resultSet.addColumn("category", Types.VARCHAR, 100, 0);
+        resultSet.addColumn("price", Types.DECIMAL, 10, 2);
+        resultSet.addColumn("stock_quantity", Types.INTEGER, 10, 0);
+        resultSet.addColumn("description", Types.VARCHAR, 65535, 0);
+        resultSet.addColumn("publication_date", Types.DATE, 10, 0);
+        resultSet.addColumn("publisher", Types.VARCHAR, 255, 0);
+        resultSet.addColumn("is_active", Types.BOOLEAN, 1, 0);
+        List<Book> books = BenchmarkDatabase.books(rows);
+        for (Book book : books) {
+            resultSet.addRow(book.getId(), book.getTitle(), book.getAuthor(), book.getIsbn(), book.getCategory(),
+                             book.getPrice().toBigDecimal(), book.getStockQuantity(), book.getDescription(),
+                             Date.valueOf(book.getPublicationDate()), book.getPublisher(), Boolean.TRUE);
+        }
+    }
+    
+    @Benchmark
+    public void mapResultSet(Blackhole blackhole) throws SQLException {
+        resultSet.beforeFirst();
+        while (resultSet.next()) {
+            blackhole.consume(BookDAO.mapResultSetToBook(resultSet));
+        }
+    }
+}
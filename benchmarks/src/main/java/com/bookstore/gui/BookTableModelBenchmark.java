@@ -0,0 +1,50 @@
+package com.bookstore.gui;
+
+import com.bookstore.bench.BenchmarkDatabase;
+import com.bookstore.model.Book;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.swing.table.DefaultTableModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Filling the main window's book table model (BookStoreMainWindow.updateTable)
+ * with search results. Runs headless: the model is not attached to a table.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class BookTableModelBenchmark {
+    private static final String[] COLUMNS = {"ID", "Title", "Author", "ISBN", "Category", "Price", "Stock", "Publisher"};
+    
+    @Param({"100", "10000"})
+    public int rows;
+    
+    private List<Book> books;
+    private DefaultTableModel model;
+    
+    @Setup
+    public void setUp() {
+        books = BenchmarkDatabase.books(rows);
+        model = new DefaultTableModel(COLUMNS, 0);
+    }
+    
+    @Benchmark
+    public DefaultTableModel populateTableModel() {
+        BookStoreMainWindow.populateTableModel(model, books);
+        return model;
+    }
+}
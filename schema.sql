@@ -6,6 +6,9 @@
 -- USE bookstore_db;
 
 -- Drop tables if they exist (for clean setup)
+DROP TABLE IF EXISTS sales_daily_book;
+DROP TABLE IF EXISTS sales_daily_category;
+DROP TABLE IF EXISTS sales_daily;
 DROP TABLE IF EXISTS order_items;
 DROP TABLE IF EXISTS orders;
 DROP TABLE IF EXISTS books;
@@ -30,7 +33,8 @@ CREATE TABLE books (
     id INT PRIMARY KEY AUTO_INCREMENT,
     title VARCHAR(255) NOT NULL,
     author VARCHAR(255) NOT NULL,
-    isbn VARCHAR(20) UNIQUE NOT NULL,
+    isbn VARCHAR(20) NOT NULL,
+    isbn13 BIGINT UNIQUE, -- Canonical ISBN-13 for lookups and duplicate checks, NULL only for upgraded rows with an invalid ISBN
     category VARCHAR(100),
     price DECIMAL(10, 2) NOT NULL,
     stock_quantity INT DEFAULT 0,
@@ -39,7 +43,7 @@ CREATE TABLE books (
     publisher VARCHAR(255),
     is_active BOOLEAN DEFAULT TRUE,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+    updated_at TIMESTAMP(6) DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6) -- Microseconds, so catalog versions tell apart changes in the same second
 );
 
 -- Create orders table
@@ -64,26 +68,69 @@ CREATE TABLE order_items (
     quantity INT NOT NULL,
     unit_price DECIMAL(10, 2) NOT NULL,
     subtotal DECIMAL(10, 2) NOT NULL,
+    category VARCHAR(100), -- Book category at sale time ('' if none), NULL for items stored before this column
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     FOREIGN KEY (order_id) REFERENCES orders(id) ON DELETE CASCADE,
     FOREIGN KEY (book_id) REFERENCES books(id) ON DELETE CASCADE
 );
 
+-- Create sales summary tables (maintained incrementally when orders are
+-- placed or change status; rebuild with com.bookstore.tools.RebuildSalesSummaries)
+-- sales_daily is striped (order ID % 8) so concurrent checkouts do not all
+-- wait on one row per day; readers SUM over the stripes of a date.
+CREATE TABLE sales_daily (
+    sales_date DATE NOT NULL,
+    stripe TINYINT NOT NULL DEFAULT 0,
+    order_count INT NOT NULL DEFAULT 0,
+    units_sold INT NOT NULL DEFAULT 0,
+    revenue DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    PRIMARY KEY (sales_date, stripe)
+);
+
+CREATE TABLE sales_daily_category (
+    sales_date DATE NOT NULL,
+    category VARCHAR(100) NOT NULL,
+    units_sold INT NOT NULL DEFAULT 0,
+    revenue DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    PRIMARY KEY (sales_date, category)
+);
+
+CREATE TABLE sales_daily_book (
+    sales_date DATE NOT NULL,
+    book_id INT NOT NULL,
+    units_sold INT NOT NULL DEFAULT 0,
+    revenue DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    PRIMARY KEY (sales_date, book_id)
+);
+
+-- Upgrading an existing database:
+-- ALTER TABLE books ADD COLUMN isbn13 BIGINT AFTER isbn;
+-- (run com.bookstore.tools.BackfillIsbn13, then)
+-- ALTER TABLE books ADD UNIQUE INDEX isbn13 (isbn13), DROP INDEX isbn, DROP INDEX idx_books_isbn;
+-- ALTER TABLE books MODIFY updated_at TIMESTAMP(6) DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6);
+-- CREATE INDEX idx_books_updated_at ON books(updated_at);
+-- ALTER TABLE order_items ADD COLUMN category VARCHAR(100) AFTER subtotal;
+-- ALTER TABLE sales_daily ADD COLUMN stripe TINYINT NOT NULL DEFAULT 0 AFTER sales_date,
+--     DROP PRIMARY KEY, ADD PRIMARY KEY (sales_date, stripe);
+-- (run com.bookstore.tools.RebuildSalesSummaries)
+
 -- Create indexes for better performance
 CREATE INDEX idx_users_username ON users(username);
 CREATE INDEX idx_users_email ON users(email);
 CREATE INDEX idx_books_title ON books(title);
 CREATE INDEX idx_books_author ON books(author);
 CREATE INDEX idx_books_category ON books(category);
-CREATE INDEX idx_books_isbn ON books(isbn);
+CREATE INDEX idx_books_updated_at ON books(updated_at);
 CREATE INDEX idx_orders_user_id ON orders(user_id);
 CREATE INDEX idx_orders_status ON orders(status);
+CREATE INDEX idx_orders_order_date ON orders(order_date);
 CREATE INDEX idx_order_items_order_id ON order_items(order_id);
 CREATE INDEX idx_order_items_book_id ON order_items(book_id);
+CREATE INDEX idx_sales_daily_book_book_id ON sales_daily_book(book_id, sales_date);
 
 -- Insert sample data
 
--- Insert sample users
+-- Insert sample users (plaintext passwords are replaced by PBKDF2 hashes at first login)
 INSERT INTO users (username, password, email, first_name, last_name, role) VALUES
 ('admin', 'admin123', 'admin@bookstore.com', 'Admin', 'User', 'ADMIN'),
 ('john_doe', 'password123', 'john.doe@email.com', 'John', 'Doe', 'CUSTOMER'),
@@ -91,17 +138,17 @@ INSERT INTO users (username, password, email, first_name, last_name, role) VALUE
 ('bob_wilson', 'password123', 'bob.wilson@email.com', 'Bob', 'Wilson', 'CUSTOMER');
 
 -- Insert sample books
-INSERT INTO books (title, author, isbn, category, price, stock_quantity, description, publication_date, publisher) VALUES
-('The Great Gatsby', 'F. Scott Fitzgerald', '9780743273565', 'Fiction', 12.99, 50, 'A classic American novel set in the Jazz Age.', '1925-04-10', 'Scribner'),
-('To Kill a Mockingbird', 'Harper Lee', '9780061120084', 'Fiction', 14.99, 30, 'A gripping tale of racial injustice and childhood innocence.', '1960-07-11', 'J.B. Lippincott & Co.'),
-('1984', 'George Orwell', '9780451524935', 'Dystopian Fiction', 13.99, 40, 'A dystopian social science fiction novel.', '1949-06-08', 'Secker & Warburg'),
-('Pride and Prejudice', 'Jane Austen', '9780141439518', 'Romance', 11.99, 25, 'A romantic novel of manners.', '1813-01-28', 'T. Egerton'),
-('The Catcher in the Rye', 'J.D. Salinger', '9780316769174', 'Fiction', 15.99, 35, 'A coming-of-age story.', '1951-07-16', 'Little, Brown and Company'),
-('Lord of the Flies', 'William Golding', '9780571056866', 'Fiction', 12.99, 20, 'A story about British boys stranded on an island.', '1954-09-17', 'Faber and Faber'),
-('The Hobbit', 'J.R.R. Tolkien', '9780547928227', 'Fantasy', 16.99, 45, 'A fantasy novel about a hobbit''s adventure.', '1937-09-21', 'George Allen & Unwin'),
-('Harry Potter and the Philosopher''s Stone', 'J.K. Rowling', '9780747532699', 'Fantasy', 18.99, 60, 'The first book in the Harry Potter series.', '1997-06-26', 'Bloomsbury'),
-('The Da Vinci Code', 'Dan Brown', '9780307474278', 'Mystery', 14.99, 30, 'A mystery thriller novel.', '2003-03-18', 'Doubleday'),
-('The Alchemist', 'Paulo Coelho', '9780061122415', 'Fiction', 13.99, 25, 'A philosophical novel about a young shepherd.', '1988-01-01', 'HarperCollins');
+INSERT INTO books (title, author, isbn, isbn13, category, price, stock_quantity, description, publication_date, publisher) VALUES
+('The Great Gatsby', 'F. Scott Fitzgerald', '9780743273565', 9780743273565, 'Fiction', 12.99, 50, 'A classic American novel set in the Jazz Age.', '1925-04-10', 'Scribner'),
+('To Kill a Mockingbird', 'Harper Lee', '9780061120084', 9780061120084, 'Fiction', 14.99, 30, 'A gripping tale of racial injustice and childhood innocence.', '1960-07-11', 'J.B. Lippincott & Co.'),
+('1984', 'George Orwell', '9780451524935', 9780451524935, 'Dystopian Fiction', 13.99, 40, 'A dystopian social science fiction novel.', '1949-06-08', 'Secker & Warburg'),
+('Pride and Prejudice', 'Jane Austen', '9780141439518', 9780141439518, 'Romance', 11.99, 25, 'A romantic novel of manners.', '1813-01-28', 'T. Egerton'),
+('The Catcher in the Rye', 'J.D. Salinger', '9780316769174', 9780316769174, 'Fiction', 15.99, 35, 'A coming-of-age story.', '1951-07-16', 'Little, Brown and Company'),
+('Lord of the Flies', 'William Golding', '9780571056866', 9780571056866, 'Fiction', 12.99, 20, 'A story about British boys stranded on an island.', '1954-09-17', 'Faber and Faber'),
+('The Hobbit', 'J.R.R. Tolkien', '9780547928227', 9780547928227, 'Fantasy', 16.99, 45, 'A fantasy novel about a hobbit''s adventure.', '1937-09-21', 'George Allen & Unwin'),
+('Harry Potter and the Philosopher''s Stone', 'J.K. Rowling', '9780747532699', 9780747532699, 'Fantasy', 18.99, 60, 'The first book in the Harry Potter series.', '1997-06-26', 'Bloomsbury'),
+('The Da Vinci Code', 'Dan Brown', '9780307474278', 9780307474278, 'Mystery', 14.99, 30, 'A mystery thriller novel.', '2003-03-18', 'Doubleday'),
+('The Alchemist', 'Paulo Coelho', '9780061122415', 9780061122415, 'Fiction', 13.99, 25, 'A philosophical novel about a young shepherd.', '1988-01-01', 'HarperCollins');
 
 -- Insert sample orders
 INSERT INTO orders (user_id, total_amount, status, shipping_address, payment_method) VALUES
@@ -118,6 +165,22 @@ INSERT INTO order_items (order_id, book_id, quantity, unit_price, subtotal) VALU
 (2, 5, 1, 15.99, 15.99),
 (3, 6, 1, 15.99, 15.99);
 
+-- Build sales summaries for the sample orders
+INSERT INTO sales_daily (sales_date, order_count, units_sold, revenue)
+SELECT DATE(o.order_date), COUNT(DISTINCT o.id), SUM(oi.quantity), SUM(oi.subtotal)
+FROM orders o JOIN order_items oi ON oi.order_id = o.id
+WHERE o.status <> 'CANCELLED' GROUP BY DATE(o.order_date);
+
+INSERT INTO sales_daily_category (sales_date, category, units_sold, revenue)
+SELECT DATE(o.order_date), COALESCE(b.category, ''), SUM(oi.quantity), SUM(oi.subtotal)
+FROM orders o JOIN order_items oi ON oi.order_id = o.id JOIN books b ON b.id = oi.book_id
+WHERE o.status <> 'CANCELLED' GROUP BY DATE(o.order_date), COALESCE(b.category, '');
+
+INSERT INTO sales_daily_book (sales_date, book_id, units_sold, revenue)
+SELECT DATE(o.order_date), oi.book_id, SUM(oi.quantity), SUM(oi.subtotal)
+FROM orders o JOIN order_items oi ON oi.order_id = o.id
+WHERE o.status <> 'CANCELLED' GROUP BY DATE(o.order_date), oi.book_id;
+
 -- Display success message
 SELECT 'Database schema created successfully!' AS message;
 SELECT 'Sample data inserted successfully!' AS message;